@@ -0,0 +1,217 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity table of the pointers currently down, with their initial and last positions.
+ *
+ * <p>Pointer ids are arbitrary ints and are mapped to dense slots through a small open
+ * addressing hash, so lookups are O(1) whatever the id. Positions are kept in one primitive
+ * array per field, indexed by slot. Nothing is allocated after construction; a pointer going
+ * down while the table is full is not tracked.</p>
+ */
+public final class PointerTable {
+
+    /**
+     * Returned by {@link #slotOf(int)} and {@link #down(int, float, float)} when the pointer is
+     * not tracked.
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * Enough for any touch screen.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final int MAX_CAPACITY = 64;
+
+    private static final int EMPTY = -1;
+
+    private final int mCapacity;
+
+    /**
+     * Bit {@code i} is set while slot {@code i} holds a pointer.
+     */
+    private long mUsedSlots;
+
+    private final int[] mIds;
+
+    private final float[] mInitialX;
+
+    private final float[] mInitialY;
+
+    private final float[] mLastX;
+
+    private final float[] mLastY;
+
+    /**
+     * Hash of pointer id to slot, linear probing, at most half full.
+     */
+    private final int[] mHashSlots;
+
+    private final int mHashMask;
+
+    public PointerTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of pointers tracked at once, at most 64
+     */
+    public PointerTable(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be within [1, " + MAX_CAPACITY + "]: " + capacity);
+        }
+        mCapacity = capacity;
+        mIds = new int[capacity];
+        mInitialX = new float[capacity];
+        mInitialY = new float[capacity];
+        mLastX = new float[capacity];
+        mLastY = new float[capacity];
+        int hashSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        mHashSlots = new int[hashSize];
+        mHashMask = hashSize - 1;
+        Arrays.fill(mHashSlots, EMPTY);
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * @return Number of pointers currently down.
+     */
+    public int size() {
+        return Long.bitCount(mUsedSlots);
+    }
+
+    /**
+     * Records a pointer going down. A pointer that is already down is restarted at the new
+     * position.
+     *
+     * @param pointerId id of the pointer
+     * @param x         initial x
+     * @param y         initial y
+     * @return The slot of the pointer, or {@link #NO_SLOT} if the table is full.
+     */
+    public int down(int pointerId, float x, float y) {
+        int slot = slotOf(pointerId);
+        if (slot == NO_SLOT) {
+            if (Long.bitCount(mUsedSlots) == mCapacity) {
+                return NO_SLOT;
+            }
+            slot = Long.numberOfTrailingZeros(~mUsedSlots);
+            mUsedSlots |= 1L << slot;
+            mIds[slot] = pointerId;
+            int h = hash(pointerId);
+            while (mHashSlots[h] != EMPTY) {
+                h = (h + 1) & mHashMask;
+            }
+            mHashSlots[h] = slot;
+        }
+        mInitialX[slot] = mLastX[slot] = x;
+        mInitialY[slot] = mLastY[slot] = y;
+        return slot;
+    }
+
+    /**
+     * Records a pointer going up. Does nothing if the pointer is not down.
+     *
+     * @param pointerId id of the pointer
+     */
+    public void up(int pointerId) {
+        int h = hash(pointerId);
+        while (mHashSlots[h] != EMPTY) {
+            int slot = mHashSlots[h];
+            if (mIds[slot] == pointerId) {
+                mUsedSlots &= ~(1L << slot);
+                removeHashAt(h);
+                return;
+            }
+            h = (h + 1) & mHashMask;
+        }
+    }
+
+    /**
+     * Forgets every pointer.
+     */
+    public void clear() {
+        if (mUsedSlots != 0) {
+            mUsedSlots = 0;
+            Arrays.fill(mHashSlots, EMPTY);
+        }
+    }
+
+    /**
+     * @param pointerId id of the pointer
+     * @return The slot of the pointer, or {@link #NO_SLOT} if it is not down.
+     */
+    public int slotOf(int pointerId) {
+        int h = hash(pointerId);
+        while (mHashSlots[h] != EMPTY) {
+            int slot = mHashSlots[h];
+            if (mIds[slot] == pointerId) {
+                return slot;
+            }
+            h = (h + 1) & mHashMask;
+        }
+        return NO_SLOT;
+    }
+
+    public boolean isDown(int pointerId) {
+        return slotOf(pointerId) != NO_SLOT;
+    }
+
+    /**
+     * Updates the last known position of the pointer in the given slot.
+     */
+    public void setLast(int slot, float x, float y) {
+        mLastX[slot] = x;
+        mLastY[slot] = y;
+    }
+
+    public int getId(int slot) {
+        return mIds[slot];
+    }
+
+    public float getInitialX(int slot) {
+        return mInitialX[slot];
+    }
+
+    public float getInitialY(int slot) {
+        return mInitialY[slot];
+    }
+
+    public float getLastX(int slot) {
+        return mLastX[slot];
+    }
+
+    public float getLastY(int slot) {
+        return mLastY[slot];
+    }
+
+    private int hash(int pointerId) {
+        return (pointerId * 0x9E3779B9 >>> 16) & mHashMask;
+    }
+
+    /**
+     * Empties a hash bucket and moves later entries of its probe run back, so lookups never stop
+     * early at a hole.
+     */
+    private void removeHashAt(int hole) {
+        mHashSlots[hole] = EMPTY;
+        int h = (hole + 1) & mHashMask;
+        while (mHashSlots[h] != EMPTY) {
+            int slot = mHashSlots[h];
+            int home = hash(mIds[slot]);
+            // Move the entry unless its home lies cyclically within (hole, h].
+            boolean reachable = hole <= h ? home > hole && home <= h : home > hole || home <= h;
+            if (!reachable) {
+                mHashSlots[hole] = slot;
+                mHashSlots[h] = EMPTY;
+                hole = h;
+            }
+            h = (h + 1) & mHashMask;
+        }
+    }
+}
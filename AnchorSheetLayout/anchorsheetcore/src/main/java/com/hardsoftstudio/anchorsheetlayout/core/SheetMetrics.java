@@ -0,0 +1,373 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import java.util.Arrays;
+
+/**
+ * Performance counters of a sheet: frame intervals while it is dragged and while it settles,
+ * dropped frames, touch to position latency, how far settles miss their predicted duration and
+ * who took each gesture.
+ *
+ * <p>Every signal goes into a {@link Histogram} with fixed buckets or a plain counter, so
+ * recording is a few primitive writes and never allocates. {@link #snapshot()} copies the
+ * numbers out for export while recording goes on.</p>
+ */
+public final class SheetMetrics {
+
+    /**
+     * Frames of a drag.
+     */
+    public static final int PHASE_DRAG = 0;
+
+    /**
+     * Frames of a settle.
+     */
+    public static final int PHASE_SETTLE = 1;
+
+    private static final long[] FRAME_INTERVAL_BOUNDS_MICROS = {
+            4_000, 8_000, 12_000, 16_700, 20_000, 25_000, 33_400, 50_000, 66_800, 100_000
+    };
+
+    private static final long[] LATENCY_BOUNDS_MICROS = {
+            1_000, 2_000, 4_000, 8_000, 12_000, 16_700, 25_000, 33_400, 50_000, 100_000
+    };
+
+    private static final long[] SETTLE_ERROR_BOUNDS_MILLIS = {
+            -200, -100, -50, -20, -10, 10, 20, 50, 100, 200
+    };
+
+    /**
+     * A histogram over fixed bucket bounds, plus count, sum, minimum and maximum of the values.
+     */
+    public static final class Histogram {
+
+        private final long[] mUpperBounds;
+
+        private final long[] mCounts;
+
+        private long mCount;
+
+        private long mSum;
+
+        private long mMin;
+
+        private long mMax;
+
+        /**
+         * @param upperBounds exclusive upper bounds of the buckets, ascending; a last bucket
+         *                    takes every larger value
+         */
+        public Histogram(long... upperBounds) {
+            for (int i = 1; i < upperBounds.length; i++) {
+                if (upperBounds[i] <= upperBounds[i - 1]) {
+                    throw new IllegalArgumentException("Bounds must be ascending: " + Arrays.toString(upperBounds));
+                }
+            }
+            mUpperBounds = upperBounds.clone();
+            mCounts = new long[upperBounds.length + 1];
+            reset();
+        }
+
+        public void record(long value) {
+            int low = 0;
+            int high = mUpperBounds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (mUpperBounds[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            mCounts[low]++;
+            mCount++;
+            mSum += value;
+            mMin = Math.min(mMin, value);
+            mMax = Math.max(mMax, value);
+        }
+
+        public void reset() {
+            Arrays.fill(mCounts, 0);
+            mCount = 0;
+            mSum = 0;
+            mMin = Long.MAX_VALUE;
+            mMax = Long.MIN_VALUE;
+        }
+
+        /**
+         * @return Number of buckets, the last one being unbounded.
+         */
+        public int getBucketCount() {
+            return mCounts.length;
+        }
+
+        /**
+         * @param bucket bucket index
+         * @return Exclusive upper bound of the bucket, {@link Long#MAX_VALUE} for the last one.
+         */
+        public long getUpperBound(int bucket) {
+            return bucket < mUpperBounds.length ? mUpperBounds[bucket] : Long.MAX_VALUE;
+        }
+
+        public long getBucket(int bucket) {
+            return mCounts[bucket];
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getSum() {
+            return mSum;
+        }
+
+        /**
+         * @return Smallest value recorded, 0 if none.
+         */
+        public long getMin() {
+            return mCount > 0 ? mMin : 0;
+        }
+
+        /**
+         * @return Largest value recorded, 0 if none.
+         */
+        public long getMax() {
+            return mCount > 0 ? mMax : 0;
+        }
+
+        /**
+         * Estimates a percentile from the buckets.
+         *
+         * @param percentile between 0 and 100
+         * @return Upper bound of the bucket holding the percentile, capped by the largest value
+         * recorded; 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100 * mCount);
+            long seen = 0;
+            for (int i = 0; i < mCounts.length; i++) {
+                seen += mCounts[i];
+                if (seen >= rank && mCounts[i] > 0) {
+                    return Math.min(getUpperBound(i), mMax);
+                }
+            }
+            return mMax;
+        }
+
+        /**
+         * Copies the values into a histogram with the same bounds.
+         *
+         * @param other histogram to overwrite
+         */
+        public void copyTo(Histogram other) {
+            if (!Arrays.equals(mUpperBounds, other.mUpperBounds)) {
+                throw new IllegalArgumentException("Histograms have different bounds");
+            }
+            System.arraycopy(mCounts, 0, other.mCounts, 0, mCounts.length);
+            other.mCount = mCount;
+            other.mSum = mSum;
+            other.mMin = mMin;
+            other.mMax = mMax;
+        }
+    }
+
+    /**
+     * A copy of the metrics taken by {@link #snapshot()}. Reuse one through
+     * {@link #snapshot(Snapshot)} to export periodically without allocating.
+     */
+    public static final class Snapshot {
+
+        private final Histogram mDragFrameIntervals = new Histogram(FRAME_INTERVAL_BOUNDS_MICROS);
+
+        private final Histogram mSettleFrameIntervals = new Histogram(FRAME_INTERVAL_BOUNDS_MICROS);
+
+        private final Histogram mTouchLatency = new Histogram(LATENCY_BOUNDS_MICROS);
+
+        private final Histogram mSettleError = new Histogram(SETTLE_ERROR_BOUNDS_MILLIS);
+
+        private long mDragDroppedFrames;
+
+        private long mSettleDroppedFrames;
+
+        private long mSheetGestures;
+
+        private long mNestedGestures;
+
+        /**
+         * @return Intervals between the frames of drags, in microseconds.
+         */
+        public Histogram getDragFrameIntervals() {
+            return mDragFrameIntervals;
+        }
+
+        /**
+         * @return Intervals between the frames of settles, in microseconds.
+         */
+        public Histogram getSettleFrameIntervals() {
+            return mSettleFrameIntervals;
+        }
+
+        /**
+         * @return Time from a touch event to the sheet being moved for it, in microseconds.
+         */
+        public Histogram getTouchLatency() {
+            return mTouchLatency;
+        }
+
+        /**
+         * @return Actual minus predicted duration of completed settles, in milliseconds.
+         */
+        public Histogram getSettleError() {
+            return mSettleError;
+        }
+
+        public long getDragDroppedFrames() {
+            return mDragDroppedFrames;
+        }
+
+        public long getSettleDroppedFrames() {
+            return mSettleDroppedFrames;
+        }
+
+        /**
+         * @return Gestures that moved the sheet.
+         */
+        public long getSheetGestures() {
+            return mSheetGestures;
+        }
+
+        /**
+         * @return Gestures that scrolled a nested scrollable.
+         */
+        public long getNestedGestures() {
+            return mNestedGestures;
+        }
+    }
+
+    private final Snapshot mValues = new Snapshot();
+
+    private long mFrameIntervalNanos = 16_666_667L;
+
+    private int mPhase = PHASE_DRAG;
+
+    private long mLastFrameNanos;
+
+    private boolean mHasFrame;
+
+    /**
+     * @param refreshRate refresh rate of the display in Hz, used to count dropped frames;
+     *                    ignored if not positive
+     */
+    public void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            mFrameIntervalNanos = (long) (1_000_000_000L / refreshRate);
+        }
+    }
+
+    /**
+     * Starts a new run of frames; the interval to the frames before it is not counted.
+     *
+     * @param phase {@link #PHASE_DRAG} or {@link #PHASE_SETTLE}
+     */
+    public void beginFrames(int phase) {
+        mPhase = phase;
+        mHasFrame = false;
+    }
+
+    /**
+     * Records a frame of the current run.
+     *
+     * @param nanos time of the frame on a monotonic clock
+     */
+    public void recordFrame(long nanos) {
+        if (mHasFrame) {
+            long interval = nanos - mLastFrameNanos;
+            long dropped = interval > mFrameIntervalNanos * 3 / 2
+                    ? (interval + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1 : 0;
+            if (mPhase == PHASE_DRAG) {
+                mValues.mDragFrameIntervals.record(interval / 1000);
+                mValues.mDragDroppedFrames += dropped;
+            } else {
+                mValues.mSettleFrameIntervals.record(interval / 1000);
+                mValues.mSettleDroppedFrames += dropped;
+            }
+        }
+        mLastFrameNanos = nanos;
+        mHasFrame = true;
+    }
+
+    /**
+     * @param micros time from a touch event to the sheet being moved for it
+     */
+    public void recordTouchLatency(long micros) {
+        if (micros >= 0) {
+            mValues.mTouchLatency.record(micros);
+        }
+    }
+
+    /**
+     * @param predictedMillis duration the settle was expected to take
+     * @param actualMillis    duration it took
+     */
+    public void recordSettle(long predictedMillis, long actualMillis) {
+        mValues.mSettleError.record(actualMillis - predictedMillis);
+    }
+
+    /**
+     * Records the end of a gesture. A gesture can count for both the sheet and a nested
+     * scrollable when it moved both; a tap counts for neither.
+     *
+     * @param movedSheet     whether the gesture moved the sheet
+     * @param scrolledNested whether the gesture scrolled a nested scrollable
+     */
+    public void recordGesture(boolean movedSheet, boolean scrolledNested) {
+        if (movedSheet) {
+            mValues.mSheetGestures++;
+        }
+        if (scrolledNested) {
+            mValues.mNestedGestures++;
+        }
+    }
+
+    /**
+     * @return A copy of the numbers recorded so far.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Copies the numbers recorded so far into an existing snapshot.
+     *
+     * @param snapshot snapshot to overwrite
+     */
+    public void snapshot(Snapshot snapshot) {
+        mValues.mDragFrameIntervals.copyTo(snapshot.mDragFrameIntervals);
+        mValues.mSettleFrameIntervals.copyTo(snapshot.mSettleFrameIntervals);
+        mValues.mTouchLatency.copyTo(snapshot.mTouchLatency);
+        mValues.mSettleError.copyTo(snapshot.mSettleError);
+        snapshot.mDragDroppedFrames = mValues.mDragDroppedFrames;
+        snapshot.mSettleDroppedFrames = mValues.mSettleDroppedFrames;
+        snapshot.mSheetGestures = mValues.mSheetGestures;
+        snapshot.mNestedGestures = mValues.mNestedGestures;
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        mValues.mDragFrameIntervals.reset();
+        mValues.mSettleFrameIntervals.reset();
+        mValues.mTouchLatency.reset();
+        mValues.mSettleError.reset();
+        mValues.mDragDroppedFrames = 0;
+        mValues.mSettleDroppedFrames = 0;
+        mValues.mSheetGestures = 0;
+        mValues.mNestedGestures = 0;
+        mHasFrame = false;
+    }
+}
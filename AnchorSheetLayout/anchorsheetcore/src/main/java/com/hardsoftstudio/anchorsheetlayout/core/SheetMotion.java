@@ -0,0 +1,185 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+/**
+ * Velocity preserving settle motion along one axis.
+ *
+ * <p>{@link #MODE_SPRING} pulls the offset to its target with a critically damped spring, which
+ * never oscillates and starts with the release velocity. {@link #MODE_FLING} first lets the
+ * release velocity decay exponentially, as a free fling would, and hands over to the spring once
+ * the target is reached or the fling has run out of speed.</p>
+ *
+ * <p>Both phases use their closed form solutions, so {@link #step(float)} is exact for any frame
+ * interval and allocates nothing.</p>
+ */
+public final class SheetMotion {
+
+    /**
+     * Critically damped spring towards the target.
+     */
+    public static final int MODE_SPRING = 1;
+
+    /**
+     * Decaying fling, finished by the spring.
+     */
+    public static final int MODE_FLING = 2;
+
+    private static final int PHASE_IDLE = 0;
+
+    private static final int PHASE_FLING = 1;
+
+    private static final int PHASE_SPRING = 2;
+
+    /**
+     * Natural frequency of the spring in rad/s; the spring covers ~99% of the distance in ~0.25s.
+     */
+    static final float DEFAULT_STIFFNESS = 26f;
+
+    /**
+     * Decay rate of the fling in 1/s.
+     */
+    static final float DEFAULT_FRICTION = 4.2f;
+
+    /**
+     * Below this speed, in px/s, the fling hands over to the spring.
+     */
+    private static final float FLING_HANDOFF_VELOCITY = 300f;
+
+    private static final float REST_DISTANCE = 0.5f;
+
+    private static final float REST_VELOCITY = 10f;
+
+    private float mStiffness = DEFAULT_STIFFNESS;
+
+    private float mFriction = DEFAULT_FRICTION;
+
+    private int mPhase = PHASE_IDLE;
+
+    private float mPosition;
+
+    private float mVelocity;
+
+    private float mTarget;
+
+    /**
+     * Sets the natural frequency of the spring.
+     *
+     * @param stiffness frequency in rad/s, positive; higher settles faster
+     */
+    public void setStiffness(float stiffness) {
+        if (!(stiffness > 0)) {
+            throw new IllegalArgumentException("stiffness must be positive: " + stiffness);
+        }
+        mStiffness = stiffness;
+    }
+
+    public float getStiffness() {
+        return mStiffness;
+    }
+
+    /**
+     * Sets the decay rate of the fling phase.
+     *
+     * @param friction decay rate in 1/s, positive; higher stops sooner
+     */
+    public void setFriction(float friction) {
+        if (!(friction > 0)) {
+            throw new IllegalArgumentException("friction must be positive: " + friction);
+        }
+        mFriction = friction;
+    }
+
+    public float getFriction() {
+        return mFriction;
+    }
+
+    /**
+     * Starts a motion, replacing any motion in progress.
+     *
+     * @param mode     {@link #MODE_SPRING} or {@link #MODE_FLING}
+     * @param from     current offset
+     * @param velocity current velocity in px/s
+     * @param target   offset to settle at
+     */
+    public void start(int mode, float from, float velocity, float target) {
+        mPosition = from;
+        mVelocity = velocity;
+        mTarget = target;
+        mPhase = mode == MODE_FLING && isFlingUseful() ? PHASE_FLING : PHASE_SPRING;
+    }
+
+    /**
+     * Stops the motion where it is.
+     */
+    public void cancel() {
+        mPhase = PHASE_IDLE;
+    }
+
+    public boolean isRunning() {
+        return mPhase != PHASE_IDLE;
+    }
+
+    public float getPosition() {
+        return mPosition;
+    }
+
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    public float getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * Advances the motion.
+     *
+     * @param dt elapsed time in seconds
+     * @return Whether the motion is still running.
+     */
+    public boolean step(float dt) {
+        if (mPhase == PHASE_FLING) {
+            stepFling(dt);
+        } else if (mPhase == PHASE_SPRING) {
+            stepSpring(dt);
+        }
+        return mPhase != PHASE_IDLE;
+    }
+
+    private boolean isFlingUseful() {
+        float toTarget = mTarget - mPosition;
+        return Math.abs(mVelocity) > FLING_HANDOFF_VELOCITY && toTarget * mVelocity > 0;
+    }
+
+    private void stepFling(float dt) {
+        float decay = (float) Math.exp(-mFriction * dt);
+        float position = mPosition + mVelocity / mFriction * (1 - decay);
+        float velocity = mVelocity * decay;
+        if ((mTarget - mPosition) * (mTarget - position) <= 0) {
+            // Reached the target within this frame; let the spring absorb the remaining speed.
+            mPosition = mTarget;
+            mVelocity = velocity;
+            mPhase = PHASE_SPRING;
+            return;
+        }
+        mPosition = position;
+        mVelocity = velocity;
+        if (Math.abs(velocity) < FLING_HANDOFF_VELOCITY) {
+            mPhase = PHASE_SPRING;
+        }
+    }
+
+    private void stepSpring(float dt) {
+        // x(t) = target + (c1 + c2 t) e^(-w t), with c1 = x0 - target and c2 = v0 + w c1
+        float w = mStiffness;
+        float c1 = mPosition - mTarget;
+        float c2 = mVelocity + w * c1;
+        float decay = (float) Math.exp(-w * dt);
+        mPosition = mTarget + (c1 + c2 * dt) * decay;
+        mVelocity = (c2 - w * (c1 + c2 * dt)) * decay;
+        if (Math.abs(mPosition - mTarget) < REST_DISTANCE && Math.abs(mVelocity) < REST_VELOCITY) {
+            mPosition = mTarget;
+            mVelocity = 0;
+            mPhase = PHASE_IDLE;
+        }
+    }
+}
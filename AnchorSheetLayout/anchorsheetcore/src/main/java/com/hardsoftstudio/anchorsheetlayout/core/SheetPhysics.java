@@ -0,0 +1,819 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+/**
+ * Platform independent model of an anchor sheet.
+ *
+ * <p>Owns the offsets of every resting position (detent), decides which state a released
+ * sheet should settle to and how long that settle should take. Everything is primitive math
+ * on fields, so the decision path allocates nothing and can be driven from a plain JVM.</p>
+ *
+ * <p>Offsets are measured from the top of the parent: {@link #getMinOffset()} is the expanded
+ * position, {@link #getMaxOffset()} the collapsed one and {@link #getHideOffset()} the
+ * hidden one.</p>
+ *
+ * <p>By default the detents are expanded, anchor and collapsed. {@link #setDetents(float[], int)}
+ * replaces them with any number of stops: the highest becomes the expanded state, the lowest the
+ * collapsed state and every stop in between rests as {@link #STATE_ANCHOR}. A release then
+ * projects where the sheet would coast to and snaps to the detent nearest that point.</p>
+ */
+public final class SheetPhysics {
+
+    /**
+     * The sheet is dragging.
+     */
+    public static final int STATE_DRAGGING = 1;
+
+    /**
+     * The sheet is settling.
+     */
+    public static final int STATE_SETTLING = 2;
+
+    /**
+     * The sheet is expanded.
+     */
+    public static final int STATE_EXPANDED = 3;
+
+    /**
+     * The sheet is collapsed.
+     */
+    public static final int STATE_COLLAPSED = 4;
+
+    /**
+     * The sheet is hidden.
+     */
+    public static final int STATE_HIDDEN = 5;
+
+    /**
+     * The sheet is anchored.
+     */
+    public static final int STATE_ANCHOR = 6;
+
+    /**
+     * The sheet is forced to be hidden programmatically.
+     */
+    public static final int STATE_FORCE_HIDDEN = 7;
+
+    /**
+     * Returned by {@link #offsetForState(int)} for states without a resting position.
+     */
+    public static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    /**
+     * Detent values are fractions 0..1 of the parent height left visible.
+     */
+    public static final int UNIT_FRACTION = 0;
+
+    /**
+     * Detent values are heights in pixels left visible.
+     */
+    public static final int UNIT_PIXELS = 1;
+
+    /**
+     * Deceleration used to project where a released sheet would coast to, in px/s^2.
+     */
+    public static final float DEFAULT_DECELERATION = 3000f;
+
+    private static final float HIDE_THRESHOLD = 0.25f;
+
+    private static final float HIDE_FRICTION = 0.1f;
+
+    private static final float DEFAULT_ANCHOR_THRESHOLD = 0.50f;
+
+    private static final int MAX_SETTLE_DURATION = 200;
+
+    private int mParentHeight;
+
+    private int mWidth;
+
+    private int mPeekHeight;
+
+    /**
+     * The expanded offset as set through {@link #setMinOffset(int)}; no detent goes above it.
+     */
+    private int mMinOffsetLimit;
+
+    private int mMinOffset;
+
+    private int mMaxOffset;
+
+    private int mAnchorOffset;
+
+    private int mHideOffset;
+
+    private float mHideValue;
+
+    private int mHideUnit = UNIT_PIXELS;
+
+    /**
+     * Detent values as given, or {@code null} for expanded, anchor and collapsed.
+     */
+    private float[] mDetentValues;
+
+    private int mDetentUnit;
+
+    /**
+     * Detent offsets sorted from top to bottom, followed by the hide offset.
+     */
+    private int[] mDetentOffsets;
+
+    private int mAnchorDetent;
+
+    private boolean mAnchorDetentChosen;
+
+    private float mDeceleration = DEFAULT_DECELERATION;
+
+    private float mAnchorThreshold = DEFAULT_ANCHOR_THRESHOLD;
+
+    private boolean mHideable;
+
+    private boolean mSkipCollapsed;
+
+    private float mMinVelocity;
+
+    private float mMaxVelocity;
+
+    /**
+     * Constructor
+     *
+     * @param parentHeight Height of the parent the sheet moves in, in pixels.
+     * @param minVelocity  Velocities below this magnitude are treated as zero.
+     * @param maxVelocity  Velocities above this magnitude are clamped to it.
+     */
+    public SheetPhysics(int parentHeight, float minVelocity, float maxVelocity) {
+        mParentHeight = parentHeight;
+        mMinVelocity = minVelocity;
+        mMaxVelocity = maxVelocity;
+        updateOffsets();
+    }
+
+    /**
+     * Sets the height of the parent and recomputes every offset derived from it.
+     *
+     * @param parentHeight height in pixels
+     */
+    public void setParentHeight(int parentHeight) {
+        mParentHeight = parentHeight;
+        updateOffsets();
+    }
+
+    /**
+     * Sets the measured size of the parent. Offsets are only recomputed when the size
+     * actually changed, so this is cheap to call on every layout pass.
+     *
+     * @param width        width in pixels
+     * @param parentHeight height in pixels
+     * @return Whether the size changed.
+     */
+    public boolean setSize(int width, int parentHeight) {
+        if (width == mWidth && parentHeight == mParentHeight) {
+            return false;
+        }
+        mWidth = width;
+        if (parentHeight != mParentHeight) {
+            setParentHeight(parentHeight);
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether a parent height has been set yet.
+     */
+    public boolean isMeasured() {
+        return mParentHeight > 0;
+    }
+
+    /**
+     * @return Height of the parent in pixels, which is also the force hidden offset.
+     */
+    public int getParentHeight() {
+        return mParentHeight;
+    }
+
+    /**
+     * Sets the width used to scale settle durations.
+     *
+     * @param width width in pixels
+     */
+    public void setWidth(int width) {
+        mWidth = width;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Sets the height of the sheet when it is collapsed.
+     *
+     * @param peekHeight height in pixels
+     */
+    public void setPeekHeight(int peekHeight) {
+        mPeekHeight = Math.max(0, peekHeight);
+        updateOffsets();
+    }
+
+    public int getPeekHeight() {
+        return mPeekHeight;
+    }
+
+    /**
+     * Sets the expanded offset.
+     *
+     * @param minOffset offset in pixels from the top of the parent
+     */
+    public void setMinOffset(int minOffset) {
+        mMinOffsetLimit = minOffset;
+        updateOffsets();
+    }
+
+    public int getMinOffset() {
+        return mMinOffset;
+    }
+
+    public int getMaxOffset() {
+        return mMaxOffset;
+    }
+
+    /**
+     * @return Offset of {@link #STATE_ANCHOR}, or {@link #NO_OFFSET} with only two detents.
+     */
+    public int getAnchorOffset() {
+        return mAnchorOffset;
+    }
+
+    /**
+     * @return Whether there is an intermediate detent for {@link #STATE_ANCHOR} to rest at; not
+     * the case when only two detents are set.
+     */
+    public boolean hasAnchor() {
+        return mAnchorOffset != NO_OFFSET;
+    }
+
+    /**
+     * Sets the multiplier between 0..1 of the parent height used for the anchor offset.
+     *
+     * @param threshold multiplier between 0..1
+     */
+    public void setAnchorThreshold(float threshold) {
+        mAnchorThreshold = threshold;
+        mAnchorDetentChosen = false;
+        updateOffsets();
+    }
+
+    public float getAnchorThreshold() {
+        return mAnchorThreshold;
+    }
+
+    public void setHideable(boolean hideable) {
+        mHideable = hideable;
+    }
+
+    public boolean isHideable() {
+        return mHideable;
+    }
+
+    public void setSkipCollapsed(boolean skipCollapsed) {
+        mSkipCollapsed = skipCollapsed;
+    }
+
+    public boolean getSkipCollapsed() {
+        return mSkipCollapsed;
+    }
+
+    public float getMinVelocity() {
+        return mMinVelocity;
+    }
+
+    public float getMaxVelocity() {
+        return mMaxVelocity;
+    }
+
+    /**
+     * Replaces the detents. Values are sorted, so they can be given in any order; offsets above
+     * the one set through {@link #setMinOffset(int)} are moved down to it.
+     *
+     * @param values visible heights, at least two, or {@code null} to restore expanded, anchor
+     *               and collapsed
+     * @param unit   {@link #UNIT_FRACTION} or {@link #UNIT_PIXELS}
+     */
+    public void setDetents(float[] values, int unit) {
+        if (values == null) {
+            mDetentValues = null;
+            mDetentOffsets = null;
+        } else {
+            if (values.length < 2) {
+                throw new IllegalArgumentException("At least two detents are needed, got " + values.length);
+            }
+            mDetentValues = values.clone();
+            mDetentUnit = unit;
+            mDetentOffsets = new int[values.length + 1];
+        }
+        mAnchorDetentChosen = false;
+        updateOffsets();
+    }
+
+    /**
+     * @return Whether detents were set through {@link #setDetents(float[], int)}.
+     */
+    public boolean hasCustomDetents() {
+        return mDetentOffsets != null;
+    }
+
+    /**
+     * @return A copy of the values set through {@link #setDetents(float[], int)}, {@code null}
+     * for expanded, anchor and collapsed.
+     */
+    public float[] getDetentValues() {
+        return mDetentValues != null ? mDetentValues.clone() : null;
+    }
+
+    public int getDetentUnit() {
+        return mDetentUnit;
+    }
+
+    /**
+     * @return Number of detents, not counting the hide detent.
+     */
+    public int getDetentCount() {
+        return mDetentOffsets != null ? mDetentOffsets.length - 1 : 3;
+    }
+
+    /**
+     * @param index detent index from the top; {@link #getDetentCount()} is the hide detent
+     * @return offset of the detent in pixels
+     */
+    public int detentOffset(int index) {
+        if (mDetentOffsets != null) {
+            return mDetentOffsets[index];
+        }
+        switch (index) {
+            case 0:
+                return mMinOffset;
+            case 1:
+                return mAnchorOffset;
+            case 2:
+                return mMaxOffset;
+            default:
+                return mHideOffset;
+        }
+    }
+
+    /**
+     * @param index detent index from the top; {@link #getDetentCount()} is the hide detent
+     * @return the state a sheet resting at the detent is in
+     */
+    public int stateForDetent(int index) {
+        int count = getDetentCount();
+        if (index == 0) {
+            return STATE_EXPANDED;
+        } else if (index == count - 1) {
+            return STATE_COLLAPSED;
+        } else if (index == count) {
+            return STATE_HIDDEN;
+        }
+        return STATE_ANCHOR;
+    }
+
+    /**
+     * Picks the intermediate detent {@link #STATE_ANCHOR} rests at. Without an explicit choice
+     * it is the one closest to the anchor threshold.
+     *
+     * @param index index of an intermediate detent
+     */
+    public void setAnchorDetent(int index) {
+        if (index <= 0 || index >= getDetentCount() - 1) {
+            throw new IllegalArgumentException("Not an intermediate detent: " + index);
+        }
+        mAnchorDetent = index;
+        mAnchorDetentChosen = true;
+        updateOffsets();
+    }
+
+    /**
+     * @return The detent picked through {@link #setAnchorDetent(int)}, -1 if the anchor
+     * threshold decides.
+     */
+    public int getChosenAnchorDetent() {
+        return mAnchorDetentChosen ? mAnchorDetent : -1;
+    }
+
+    /**
+     * Sets the hide detent as the height left visible while hidden, 0 by default. The sheet
+     * never goes below it unless forced hidden.
+     *
+     * @param value visible height
+     * @param unit  {@link #UNIT_FRACTION} or {@link #UNIT_PIXELS}
+     */
+    public void setHideDetent(float value, int unit) {
+        mHideValue = value;
+        mHideUnit = unit;
+        updateOffsets();
+    }
+
+    public int getHideOffset() {
+        return mHideOffset;
+    }
+
+    public float getHideValue() {
+        return mHideValue;
+    }
+
+    public int getHideUnit() {
+        return mHideUnit;
+    }
+
+    /**
+     * Sets the deceleration used to project where a released sheet would coast to.
+     *
+     * @param deceleration deceleration in px/s^2, positive
+     */
+    public void setDeceleration(float deceleration) {
+        if (deceleration <= 0) {
+            throw new IllegalArgumentException("deceleration must be positive: " + deceleration);
+        }
+        mDeceleration = deceleration;
+    }
+
+    public float getDeceleration() {
+        return mDeceleration;
+    }
+
+    private int offsetForVisible(float value, int unit) {
+        float visible = unit == UNIT_FRACTION ? value * mParentHeight : value;
+        return Math.min(mParentHeight, Math.max(mMinOffsetLimit, mParentHeight - (int) visible));
+    }
+
+    private void updateOffsets() {
+        if (mDetentOffsets == null) {
+            mMinOffset = mMinOffsetLimit;
+            mMaxOffset = mParentHeight - mPeekHeight;
+            mAnchorOffset = (int) Math.max(mParentHeight * mAnchorThreshold, mMinOffset);
+            mHideOffset = Math.max(mMaxOffset, offsetForVisible(mHideValue, mHideUnit));
+            return;
+        }
+        int count = mDetentValues.length;
+        for (int i = 0; i < count; i++) {
+            int offset = offsetForVisible(mDetentValues[i], mDetentUnit);
+            int j = i;
+            for (; j > 0 && mDetentOffsets[j - 1] > offset; j--) {
+                mDetentOffsets[j] = mDetentOffsets[j - 1];
+            }
+            mDetentOffsets[j] = offset;
+        }
+        mMinOffset = mDetentOffsets[0];
+        mMaxOffset = mDetentOffsets[count - 1];
+        mHideOffset = Math.max(mMaxOffset, offsetForVisible(mHideValue, mHideUnit));
+        mDetentOffsets[count] = mHideOffset;
+        if (count == 2) {
+            mAnchorOffset = NO_OFFSET;
+            return;
+        }
+        if (!mAnchorDetentChosen) {
+            int wanted = (int) (mParentHeight * mAnchorThreshold);
+            int nearest = findNearest(wanted, 0, count);
+            mAnchorDetent = Math.max(1, Math.min(count - 2, nearest));
+        }
+        mAnchorOffset = mDetentOffsets[mAnchorDetent];
+    }
+
+    /**
+     * Finds the detent nearest to an offset by binary search over the sorted offsets.
+     *
+     * @param offset offset in pixels
+     * @return detent index; the hide detent is only considered when the sheet is hideable
+     */
+    public int findNearestDetent(int offset) {
+        int count = getDetentCount();
+        if (mDetentOffsets == null) {
+            int state = nearestRestingState(offset);
+            return state == STATE_EXPANDED ? 0 : state == STATE_ANCHOR ? 1 : 2;
+        }
+        return findNearest(offset, 0, mHideable ? count + 1 : count);
+    }
+
+    /**
+     * Finds the band of detents an offset lies in.
+     *
+     * @param offset offset in pixels
+     * @return index of the lowest detent at or above the offset, the hide detent included; 0
+     * above every detent
+     */
+    public int detentAbove(int offset) {
+        int low = 0;
+        int high = getDetentCount() + 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (detentOffset(mid) <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.max(0, low - 1);
+    }
+
+    private int findNearest(int offset, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mDetentOffsets[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // low is the first detent at or below the offset
+        if (low == to) {
+            return to - 1;
+        }
+        if (low > from && offset - mDetentOffsets[low - 1] <= mDetentOffsets[low] - offset) {
+            return low - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Where a sheet released at {@code top} would come to rest decelerating at
+     * {@link #getDeceleration()}.
+     *
+     * @param top  offset of the sheet
+     * @param yvel release velocity in pixels per second
+     * @return projected offset in pixels
+     */
+    public int projectLanding(int top, float yvel) {
+        return (int) (top + yvel * Math.abs(yvel) / (2f * mDeceleration));
+    }
+
+    /**
+     * Decides which of the detents set through {@link #setDetents(float[], int)} a released
+     * sheet should settle to: the one nearest to its projected landing point, but at least the
+     * next one in the direction of a fling.
+     *
+     * @param currentTop offset of the sheet when released
+     * @param yvel       release velocity in pixels per second, already clamped
+     * @return detent index; {@link #getDetentCount()} is the hide detent
+     */
+    public int resolveReleaseDetent(int currentTop, float yvel) {
+        int count = getDetentCount();
+        int last = mHideable ? count : count - 1;
+        int detent = findNearestDetent(projectLanding(currentTop, yvel));
+        if (yvel < 0 && detentOffset(detent) > currentTop) {
+            detent = Math.max(0, detent - 1);
+        } else if (yvel > 0 && detentOffset(detent) < currentTop) {
+            detent = Math.min(last, detent + 1);
+        }
+        if (mSkipCollapsed && mHideable && detent == count - 1 && (yvel > 0 || currentTop > mMaxOffset)) {
+            detent = count;
+        }
+        return detent;
+    }
+
+    /**
+     * @param state any value
+     * @return Whether the value is a state a sheet can rest in, i.e. neither dragging nor
+     * settling.
+     */
+    public static boolean isRestingState(int state) {
+        switch (state) {
+            case STATE_EXPANDED:
+            case STATE_COLLAPSED:
+            case STATE_ANCHOR:
+            case STATE_HIDDEN:
+            case STATE_FORCE_HIDDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Resting offset of a state.
+     *
+     * @param state One of the {@code STATE_*} constants.
+     * @return offset in pixels, or {@link #NO_OFFSET} if the state has no resting position
+     */
+    public int offsetForState(int state) {
+        switch (state) {
+            case STATE_EXPANDED:
+                return mMinOffset;
+            case STATE_ANCHOR:
+                return mAnchorOffset;
+            case STATE_COLLAPSED:
+                return mMaxOffset;
+            case STATE_HIDDEN:
+                return mHideable ? mHideOffset : NO_OFFSET;
+            case STATE_FORCE_HIDDEN:
+                return mParentHeight;
+            default:
+                return NO_OFFSET;
+        }
+    }
+
+    /**
+     * Offset reported while the sheet rests in {@code state}. Unlike
+     * {@link #offsetForState(int)} this falls back to the collapsed offset, also for
+     * {@link #STATE_ANCHOR} without an anchor detent.
+     *
+     * @param state One of the {@code STATE_*} constants.
+     * @return offset in pixels
+     */
+    public int panelOffset(int state) {
+        if (state == STATE_EXPANDED) {
+            return mMinOffset;
+        } else if (state == STATE_ANCHOR && hasAnchor()) {
+            return mAnchorOffset;
+        } else if (mHideable && state == STATE_HIDDEN) {
+            return mHideOffset;
+        }
+        return mMaxOffset;
+    }
+
+    /**
+     * Restricts a proposed top offset to the draggable range.
+     *
+     * @param top proposed offset
+     * @return clamped offset
+     */
+    public int clampTop(int top) {
+        return Math.min(mHideable ? mHideOffset : mMaxOffset, Math.max(mMinOffset, top));
+    }
+
+    /**
+     * @return Vertical range of motion in pixels.
+     */
+    public int verticalDragRange() {
+        if (mHideable) {
+            return mHideOffset - mMinOffset;
+        } else {
+            return mMaxOffset - mMinOffset;
+        }
+    }
+
+    /**
+     * Decides where a released sheet should settle.
+     *
+     * @param currentTop   offset of the sheet when released
+     * @param yvel         release velocity in pixels per second, already clamped
+     * @param dy           last movement of the pointer, negative when moving up
+     * @param currentState state of the sheet when released
+     * @return target state; equal to {@code currentState} if the sheet should stay where it
+     * rests
+     */
+    public int resolveReleaseState(int currentTop, float yvel, float dy, int currentState) {
+        if (dy < 0) { // moving up
+            if (yvel == 0.f) {
+                return nearestRestingState(currentTop);
+            } else if (!hasAnchor() || currentTop < mAnchorOffset) {
+                return STATE_EXPANDED;
+            } else {
+                return STATE_ANCHOR;
+            }
+        } else if (dy > 0) {
+            if (mHideable && shouldHide(currentTop, yvel)) {
+                return STATE_HIDDEN;
+            } else {
+                return STATE_COLLAPSED;
+            }
+        }
+        if (offsetForState(currentState) != NO_OFFSET) {
+            return currentState;
+        }
+        // Released without moving while dragging or settling, e.g. a settle grabbed and let go.
+        return nearestRestingState(currentTop);
+    }
+
+    /**
+     * Finds the closest of the expanded, anchor and collapsed offsets; only expanded and
+     * collapsed without an anchor detent.
+     *
+     * @param top offset of the sheet
+     * @return one of {@link #STATE_EXPANDED}, {@link #STATE_ANCHOR} or {@link #STATE_COLLAPSED}
+     */
+    public int nearestRestingState(int top) {
+        if (!hasAnchor()) {
+            return top - mMinOffset < mMaxOffset - top ? STATE_EXPANDED : STATE_COLLAPSED;
+        }
+        if (Math.abs(top - mMinOffset) < Math.abs(top - mAnchorOffset)) {
+            return STATE_EXPANDED;
+        } else if (Math.abs(top - mAnchorOffset) < Math.abs(top - mMaxOffset)) {
+            return STATE_ANCHOR;
+        }
+        return STATE_COLLAPSED;
+    }
+
+    /**
+     * Checks whether to hide the sheet or not pending upon its position and the velocity at
+     * which it is thrown.
+     *
+     * @param top  offset of the sheet
+     * @param yvel Y velocity
+     * @return Whether to hide the sheet or not
+     */
+    public boolean shouldHide(float top, float yvel) {
+        if (mSkipCollapsed) {
+            return true;
+        }
+        if (top < mMaxOffset) {
+            // It should not hide, but collapse.
+            return false;
+        }
+        final float newTop = top + yvel * HIDE_FRICTION;
+        return Math.abs(newTop - mMaxOffset) / (float) mPeekHeight > HIDE_THRESHOLD;
+    }
+
+    /**
+     * Converts an offset into the slide offset reported to callbacks.
+     *
+     * @param top offset of the sheet
+     * @return value within [-1,1]; 0..1 between collapsed and expanded, -1..0 between hidden
+     * and collapsed
+     */
+    public float slideOffset(int top) {
+        if (top > mMaxOffset) {
+            return (float) (mMaxOffset - top) / Math.max(1, mHideOffset - mMaxOffset);
+        } else {
+            return (float) (mMaxOffset - top) / Math.max(1, mMaxOffset - mMinOffset);
+        }
+    }
+
+    /**
+     * Finds the duration of a settle animation.
+     *
+     * @param dx              X distance
+     * @param dy              Y distance
+     * @param xvel            X Velocity
+     * @param yvel            Y Velocity
+     * @param horizontalRange horizontal range of motion in pixels
+     * @param verticalRange   vertical range of motion in pixels
+     * @return time in milliseconds
+     */
+    public int computeSettleDuration(int dx, int dy, int xvel, int yvel, int horizontalRange, int verticalRange) {
+        xvel = clampMag(xvel, (int) mMinVelocity, (int) mMaxVelocity);
+        yvel = clampMag(yvel, (int) mMinVelocity, (int) mMaxVelocity);
+        int absDx = Math.abs(dx);
+        int absDy = Math.abs(dy);
+        int absXVel = Math.abs(xvel);
+        int absYVel = Math.abs(yvel);
+        int addedVel = absXVel + absYVel;
+        int addedDistance = absDx + absDy;
+        float xweight = xvel != 0 ? (float) absXVel / (float) addedVel : (float) absDx / (float) addedDistance;
+        float yweight = yvel != 0 ? (float) absYVel / (float) addedVel : (float) absDy / (float) addedDistance;
+        int xduration = computeAxisDuration(dx, xvel, horizontalRange);
+        int yduration = computeAxisDuration(dy, yvel, verticalRange);
+        return (int) ((float) xduration * xweight + (float) yduration * yweight);
+    }
+
+    /**
+     * Finds the duration of a settle along one axis.
+     *
+     * @param delta       distance to travel
+     * @param velocity    velocity along the axis
+     * @param motionRange range of motion along the axis
+     * @return time in milliseconds
+     */
+    public int computeAxisDuration(int delta, int velocity, int motionRange) {
+        if (delta == 0) {
+            return 0;
+        }
+        int halfWidth = mWidth / 2;
+        float distanceRatio = Math.min(1.0F, (float) Math.abs(delta) / (float) mWidth);
+        float distance = (float) halfWidth + (float) halfWidth * distanceInfluenceForSnapDuration(distanceRatio);
+        velocity = Math.abs(velocity);
+        int duration;
+        if (velocity > 0) {
+            duration = 4 * Math.round(1000.0F * Math.abs(distance / (float) velocity));
+        } else {
+            float range = (float) Math.abs(delta) / (float) motionRange;
+            duration = (int) ((range + 1.0F) * 256.0F);
+        }
+        return Math.min(duration, MAX_SETTLE_DURATION);
+    }
+
+    /**
+     * Clamp the magnitude of value for absMin and absMax.
+     * If the value is below the minimum, it will be clamped to zero.
+     * If the value is above the maximum, it will be clamped to the maximum.
+     *
+     * @param value  Value to clamp
+     * @param absMin Absolute value of the minimum significant value to return
+     * @param absMax Absolute value of the maximum value to return
+     * @return The clamped value with the same sign as <code>value</code>
+     */
+    public static int clampMag(int value, int absMin, int absMax) {
+        int absValue = Math.abs(value);
+        if (absValue < absMin) {
+            return 0;
+        } else if (absValue > absMax) {
+            return value > 0 ? absMax : -absMax;
+        } else {
+            return value;
+        }
+    }
+
+    private static float distanceInfluenceForSnapDuration(float f) {
+        f -= 0.5F; // center the values about 0.
+        f *= 0.47123894F;
+        return (float) Math.sin(f);
+    }
+}
@@ -0,0 +1,344 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The state, offset and configuration of a sheet, saved so that a recreated sheet can be put
+ * straight back where it was instead of settling there again.
+ *
+ * <p>{@link #capture(SheetPhysics, int, float)} takes the configuration from the physics of a
+ * sheet and {@link #applyTo(SheetPhysics)} puts it back; the options of the layout itself are
+ * carried through their own setters. {@link #toByteArray()} gives a compact binary form to store
+ * with the saved state of a page.</p>
+ */
+public final class SheetSavedState {
+
+    private static final int MAGIC = 0x41535353;
+
+    private static final short VERSION = 1;
+
+    /**
+     * Highest settle mode, {@link SheetMotion#MODE_FLING}.
+     */
+    private static final int MAX_SETTLE_MODE = SheetMotion.MODE_FLING;
+
+    /**
+     * Highest movement mode, the translation mode of the layout.
+     */
+    private static final int MAX_MOVEMENT_MODE = 1;
+
+    private int mParentHeight;
+
+    private int mState = SheetPhysics.STATE_COLLAPSED;
+
+    private float mTop = Float.NaN;
+
+    private int mPeekHeight;
+
+    private int mMinOffset;
+
+    private float mAnchorThreshold;
+
+    private boolean mHideable;
+
+    private boolean mSkipCollapsed;
+
+    private float[] mDetentValues;
+
+    private int mDetentUnit;
+
+    private int mAnchorDetent = -1;
+
+    private float mHideValue;
+
+    private int mHideUnit;
+
+    private float mDeceleration = SheetPhysics.DEFAULT_DECELERATION;
+
+    private int mSettleMode;
+
+    private int mMovementMode;
+
+    private float mSpringStiffness = SheetMotion.DEFAULT_STIFFNESS;
+
+    private float mFlingFriction = SheetMotion.DEFAULT_FRICTION;
+
+    private boolean mTouchResampling;
+
+    private boolean mInputCoalescing;
+
+    /**
+     * Stores the configuration of a sheet along with where it rests.
+     *
+     * @param physics physics of the sheet
+     * @param state   resting state of the sheet
+     * @param top     offset of the sheet, {@link Float#NaN} for the offset of the state
+     */
+    public void capture(SheetPhysics physics, int state, float top) {
+        mParentHeight = physics.getParentHeight();
+        mState = state;
+        mTop = top;
+        mPeekHeight = physics.getPeekHeight();
+        mMinOffset = physics.getMinOffset();
+        mAnchorThreshold = physics.getAnchorThreshold();
+        mHideable = physics.isHideable();
+        mSkipCollapsed = physics.getSkipCollapsed();
+        mDetentValues = physics.getDetentValues();
+        mDetentUnit = physics.getDetentUnit();
+        mAnchorDetent = physics.getChosenAnchorDetent();
+        mHideValue = physics.getHideValue();
+        mHideUnit = physics.getHideUnit();
+        mDeceleration = physics.getDeceleration();
+    }
+
+    /**
+     * Applies the stored configuration to a physics instance. The parent height is left alone,
+     * the recreated sheet measures its own.
+     *
+     * @param physics physics to configure
+     */
+    public void applyTo(SheetPhysics physics) {
+        physics.setPeekHeight(mPeekHeight);
+        physics.setMinOffset(mMinOffset);
+        physics.setAnchorThreshold(mAnchorThreshold);
+        physics.setHideable(mHideable);
+        physics.setSkipCollapsed(mSkipCollapsed);
+        physics.setHideDetent(mHideValue, mHideUnit);
+        physics.setDeceleration(mDeceleration);
+        physics.setDetents(mDetentValues, mDetentUnit);
+        if (mDetentValues != null && mAnchorDetent > 0 && mAnchorDetent < mDetentValues.length - 1) {
+            physics.setAnchorDetent(mAnchorDetent);
+        }
+    }
+
+    /**
+     * @return Height of the parent when the state was captured.
+     */
+    public int getParentHeight() {
+        return mParentHeight;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * @return Offset of the sheet, {@link Float#NaN} if it rests at the offset of its state.
+     */
+    public float getTop() {
+        return mTop;
+    }
+
+    /**
+     * Overrides the intermediate detent {@link SheetPhysics#STATE_ANCHOR} rests at, e.g. the one
+     * a sheet caught mid-drag is saved at.
+     *
+     * @param index index of an intermediate detent, -1 to let the anchor threshold decide
+     */
+    public void setAnchorDetent(int index) {
+        mAnchorDetent = index;
+    }
+
+    public int getAnchorDetent() {
+        return mAnchorDetent;
+    }
+
+    public void setSettleMode(int settleMode) {
+        mSettleMode = settleMode;
+    }
+
+    public int getSettleMode() {
+        return mSettleMode;
+    }
+
+    public void setMovementMode(int movementMode) {
+        mMovementMode = movementMode;
+    }
+
+    public int getMovementMode() {
+        return mMovementMode;
+    }
+
+    public void setSpringStiffness(float springStiffness) {
+        mSpringStiffness = springStiffness;
+    }
+
+    public float getSpringStiffness() {
+        return mSpringStiffness;
+    }
+
+    public void setFlingFriction(float flingFriction) {
+        mFlingFriction = flingFriction;
+    }
+
+    public float getFlingFriction() {
+        return mFlingFriction;
+    }
+
+    public void setTouchResampling(boolean touchResampling) {
+        mTouchResampling = touchResampling;
+    }
+
+    public boolean isTouchResampling() {
+        return mTouchResampling;
+    }
+
+    public void setInputCoalescing(boolean inputCoalescing) {
+        mInputCoalescing = inputCoalescing;
+    }
+
+    public boolean isInputCoalescing() {
+        return mInputCoalescing;
+    }
+
+    /**
+     * @return This state in its binary form.
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream data = new DataOutputStream(bytes);
+        try {
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeInt(mParentHeight);
+            data.writeByte(mState);
+            data.writeFloat(mTop);
+            data.writeInt(mPeekHeight);
+            data.writeInt(mMinOffset);
+            data.writeFloat(mAnchorThreshold);
+            data.writeBoolean(mHideable);
+            data.writeBoolean(mSkipCollapsed);
+            data.writeInt(mDetentValues != null ? mDetentValues.length : -1);
+            if (mDetentValues != null) {
+                for (float value : mDetentValues) {
+                    data.writeFloat(value);
+                }
+            }
+            data.writeByte(mDetentUnit);
+            data.writeInt(mAnchorDetent);
+            data.writeFloat(mHideValue);
+            data.writeByte(mHideUnit);
+            data.writeFloat(mDeceleration);
+            data.writeByte(mSettleMode);
+            data.writeByte(mMovementMode);
+            data.writeFloat(mSpringStiffness);
+            data.writeFloat(mFlingFriction);
+            data.writeBoolean(mTouchResampling);
+            data.writeBoolean(mInputCoalescing);
+        } catch (IOException e) {
+            // Not thrown by an in-memory stream.
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a state written by {@link #toByteArray()}.
+     *
+     * @param bytes the binary form
+     * @return the state
+     * @throws IllegalArgumentException if the bytes are not a saved state of this version
+     */
+    public static SheetSavedState fromByteArray(byte[] bytes) {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a saved sheet state");
+            }
+            short version = data.readShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported saved sheet state version: " + version);
+            }
+            SheetSavedState state = new SheetSavedState();
+            state.mParentHeight = data.readInt();
+            state.mState = readState(data);
+            state.mTop = data.readFloat();
+            // NaN stands for the offset of the state.
+            if (Float.isInfinite(state.mTop)) {
+                throw corrupt();
+            }
+            state.mPeekHeight = data.readInt();
+            state.mMinOffset = data.readInt();
+            state.mAnchorThreshold = data.readFloat();
+            state.mHideable = data.readBoolean();
+            state.mSkipCollapsed = data.readBoolean();
+            int detentCount = data.readInt();
+            // -1 stands for the default detents; custom ones are at least two.
+            if (detentCount < -1 || detentCount == 0 || detentCount == 1 || detentCount > bytes.length / 4) {
+                throw corrupt();
+            }
+            if (detentCount >= 0) {
+                state.mDetentValues = new float[detentCount];
+                for (int i = 0; i < detentCount; i++) {
+                    state.mDetentValues[i] = readFinite(data);
+                }
+            }
+            state.mDetentUnit = readUnit(data);
+            state.mAnchorDetent = data.readInt();
+            state.mHideValue = readFinite(data);
+            state.mHideUnit = readUnit(data);
+            state.mDeceleration = readPositive(data);
+            state.mSettleMode = readMode(data, MAX_SETTLE_MODE);
+            state.mMovementMode = readMode(data, MAX_MOVEMENT_MODE);
+            state.mSpringStiffness = readPositive(data);
+            state.mFlingFriction = readPositive(data);
+            state.mTouchResampling = data.readBoolean();
+            state.mInputCoalescing = data.readBoolean();
+            return state;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated saved sheet state", e);
+        }
+    }
+
+    /**
+     * Reads a resting state; a sheet is never saved dragging or settling.
+     */
+    private static int readState(DataInputStream data) throws IOException {
+        int state = data.readByte();
+        if (!SheetPhysics.isRestingState(state)) {
+            throw corrupt();
+        }
+        return state;
+    }
+
+    private static float readFinite(DataInputStream data) throws IOException {
+        float value = data.readFloat();
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            throw corrupt();
+        }
+        return value;
+    }
+
+    private static float readPositive(DataInputStream data) throws IOException {
+        float value = readFinite(data);
+        if (value <= 0) {
+            throw corrupt();
+        }
+        return value;
+    }
+
+    private static int readUnit(DataInputStream data) throws IOException {
+        int unit = data.readByte();
+        if (unit != SheetPhysics.UNIT_FRACTION && unit != SheetPhysics.UNIT_PIXELS) {
+            throw corrupt();
+        }
+        return unit;
+    }
+
+    private static int readMode(DataInputStream data, int max) throws IOException {
+        int mode = data.readByte();
+        if (mode < 0 || mode > max) {
+            throw corrupt();
+        }
+        return mode;
+    }
+
+    private static IllegalArgumentException corrupt() {
+        return new IllegalArgumentException("Corrupt saved sheet state");
+    }
+}
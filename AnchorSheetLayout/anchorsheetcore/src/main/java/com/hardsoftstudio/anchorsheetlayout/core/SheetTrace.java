@@ -0,0 +1,278 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fixed-size ring buffer of sheet events: drag start, every drag move, the release with its
+ * velocities, the state chosen for it, and the start and end of every settle.
+ *
+ * <p>Events are stored in primitive arrays allocated up front, so recording is a handful of
+ * array writes and never allocates or formats anything. Once full, the oldest events are
+ * overwritten. {@link #writeChromeTrace(OutputStream)} writes the events held in the Chrome trace
+ * event format, to be opened in {@code chrome://tracing} or Perfetto.</p>
+ */
+public final class SheetTrace {
+
+    /**
+     * A drag started; {@code a} is the offset of the sheet.
+     */
+    public static final int EVENT_DRAG_START = 0;
+
+    /**
+     * The sheet was dragged; {@code a} is the new offset, {@code b} the change.
+     */
+    public static final int EVENT_MOVE = 1;
+
+    /**
+     * The sheet was released; {@code a} and {@code b} are the x and y velocities.
+     */
+    public static final int EVENT_RELEASE = 2;
+
+    /**
+     * The target of a release was chosen; {@code a} is its offset, {@code state} the state.
+     */
+    public static final int EVENT_TARGET = 3;
+
+    /**
+     * A settle started; {@code a} and {@code b} are the start and target offsets, {@code state}
+     * the target state.
+     */
+    public static final int EVENT_SETTLE_START = 4;
+
+    /**
+     * A settle ended; {@code a} is the offset, {@code state} the target state and {@code b} the
+     * outcome.
+     */
+    public static final int EVENT_SETTLE_END = 5;
+
+    /**
+     * Default number of events held.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long[] mTimes;
+
+    private final byte[] mTypes;
+
+    private final float[] mA;
+
+    private final float[] mB;
+
+    private final byte[] mStates;
+
+    /**
+     * Index the next event goes to.
+     */
+    private int mNext;
+
+    private int mSize;
+
+    public SheetTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of events held before the oldest are overwritten
+     */
+    public SheetTrace(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        mTimes = new long[capacity];
+        mTypes = new byte[capacity];
+        mA = new float[capacity];
+        mB = new float[capacity];
+        mStates = new byte[capacity];
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param timeNanos time of the event on a monotonic clock
+     * @param type      one of the {@code EVENT_*} constants
+     * @param a         first value, see the event type
+     * @param b         second value, see the event type
+     * @param state     sheet state, see the event type
+     */
+    public void record(long timeNanos, int type, float a, float b, int state) {
+        int i = mNext;
+        mTimes[i] = timeNanos;
+        mTypes[i] = (byte) type;
+        mA[i] = a;
+        mB[i] = b;
+        mStates[i] = (byte) state;
+        mNext = i + 1 == mTimes.length ? 0 : i + 1;
+        if (mSize < mTimes.length) {
+            mSize++;
+        }
+    }
+
+    /**
+     * @return Number of events held.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getCapacity() {
+        return mTimes.length;
+    }
+
+    /**
+     * @param index 0 for the oldest event held
+     */
+    public long getTime(int index) {
+        return mTimes[slot(index)];
+    }
+
+    /**
+     * @param index 0 for the oldest event held
+     */
+    public int getType(int index) {
+        return mTypes[slot(index)];
+    }
+
+    /**
+     * @param index 0 for the oldest event held
+     */
+    public float getA(int index) {
+        return mA[slot(index)];
+    }
+
+    /**
+     * @param index 0 for the oldest event held
+     */
+    public float getB(int index) {
+        return mB[slot(index)];
+    }
+
+    /**
+     * @param index 0 for the oldest event held
+     */
+    public int getState(int index) {
+        return mStates[slot(index)];
+    }
+
+    /**
+     * Drops every event.
+     */
+    public void clear() {
+        mNext = 0;
+        mSize = 0;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+        int slot = mNext - mSize + index;
+        return slot < 0 ? slot + mTimes.length : slot;
+    }
+
+    /**
+     * Writes the events held as a Chrome trace JSON document. Drags and settles become duration
+     * events, moves a counter track of the offset, and release targets instant events.
+     * Timestamps are relative to the oldest event held. An end whose start was already
+     * overwritten is left out.
+     *
+     * @param out stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeChromeTrace(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        long baseTime = mSize > 0 ? getTime(0) : 0;
+        boolean dragOpen = false;
+        boolean settleOpen = false;
+        boolean first = true;
+        for (int i = 0; i < mSize; i++) {
+            int type = getType(i);
+            String name;
+            String phase;
+            String args;
+            switch (type) {
+                case EVENT_DRAG_START:
+                    dragOpen = true;
+                    name = "drag";
+                    phase = "B";
+                    args = "\"top\":" + getA(i);
+                    break;
+                case EVENT_MOVE:
+                    name = "top";
+                    phase = "C";
+                    args = "\"top\":" + getA(i);
+                    break;
+                case EVENT_RELEASE:
+                    if (!dragOpen) {
+                        continue;
+                    }
+                    dragOpen = false;
+                    name = "drag";
+                    phase = "E";
+                    args = "\"xvel\":" + getA(i) + ",\"yvel\":" + getB(i);
+                    break;
+                case EVENT_TARGET:
+                    name = "target " + stateName(getState(i));
+                    phase = "i";
+                    args = "\"top\":" + getA(i);
+                    break;
+                case EVENT_SETTLE_START:
+                    if (settleOpen) {
+                        // Only one settle runs at a time; its end was overwritten.
+                        continue;
+                    }
+                    settleOpen = true;
+                    name = "settle";
+                    phase = "B";
+                    args = "\"from\":" + getA(i) + ",\"to\":" + getB(i) + ",\"state\":\"" + stateName(getState(i)) + "\"";
+                    break;
+                case EVENT_SETTLE_END:
+                    if (!settleOpen) {
+                        continue;
+                    }
+                    settleOpen = false;
+                    name = "settle";
+                    phase = "E";
+                    args = "\"top\":" + getA(i) + ",\"outcome\":" + (int) getB(i);
+                    break;
+                default:
+                    continue;
+            }
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            writer.write("{\"name\":\"" + name + "\",\"ph\":\"" + phase + "\",\"ts\":"
+                    + (getTime(i) - baseTime) / 1000.0 + ",\"pid\":1,\"tid\":1");
+            if (phase.equals("i")) {
+                writer.write(",\"s\":\"t\"");
+            }
+            writer.write(",\"args\":{" + args + "}}");
+        }
+        writer.write("\n]}\n");
+        writer.flush();
+    }
+
+    private static String stateName(int state) {
+        switch (state) {
+            case SheetPhysics.STATE_DRAGGING:
+                return "dragging";
+            case SheetPhysics.STATE_SETTLING:
+                return "settling";
+            case SheetPhysics.STATE_EXPANDED:
+                return "expanded";
+            case SheetPhysics.STATE_COLLAPSED:
+                return "collapsed";
+            case SheetPhysics.STATE_HIDDEN:
+                return "hidden";
+            case SheetPhysics.STATE_ANCHOR:
+                return "anchor";
+            case SheetPhysics.STATE_FORCE_HIDDEN:
+                return "force_hidden";
+            default:
+                return String.valueOf(state);
+        }
+    }
+}
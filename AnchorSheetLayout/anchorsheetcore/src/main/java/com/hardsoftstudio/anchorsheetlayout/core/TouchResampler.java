@@ -0,0 +1,143 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+/**
+ * Estimates where a pointer is at a given time from its recent samples, so a drag can show the
+ * position for the frame being drawn rather than that of the last touch event.
+ *
+ * <p>A time within the samples is interpolated between the two around it. A time past the newest
+ * sample is extrapolated from the last two, by no more than {@link #MAX_PREDICTION_MILLIS} and
+ * half the interval between them; samples closer than {@link #MIN_DELTA_MILLIS} or further apart
+ * than {@link #MAX_DELTA_MILLIS} are not extrapolated at all, the newest position is used.
+ * Samples go into a fixed ring buffer; nothing is allocated after construction.</p>
+ */
+public final class TouchResampler {
+
+    /**
+     * Furthest a position is extrapolated past the newest sample.
+     */
+    public static final long MAX_PREDICTION_MILLIS = 8;
+
+    /**
+     * Samples closer than this are too noisy to extrapolate from.
+     */
+    public static final long MIN_DELTA_MILLIS = 2;
+
+    /**
+     * Samples further apart than this mean the pointer paused; nothing is extrapolated.
+     */
+    public static final long MAX_DELTA_MILLIS = 20;
+
+    private static final int HISTORY = 8;
+
+    private final long[] mTimes = new long[HISTORY];
+
+    private final float[] mX = new float[HISTORY];
+
+    private final float[] mY = new float[HISTORY];
+
+    private int mHead = -1;
+
+    private int mCount;
+
+    private float mResampledX;
+
+    private float mResampledY;
+
+    /**
+     * Adds a sample of the tracked pointer. Samples must come in time order; several may share a
+     * timestamp.
+     *
+     * @param timeMillis time of the sample in milliseconds
+     * @param x          x of the pointer
+     * @param y          y of the pointer
+     */
+    public void addSample(long timeMillis, float x, float y) {
+        mHead = (mHead + 1) % HISTORY;
+        mTimes[mHead] = timeMillis;
+        mX[mHead] = x;
+        mY[mHead] = y;
+        if (mCount < HISTORY) {
+            mCount++;
+        }
+    }
+
+    /**
+     * Forgets every sample, for instance when another pointer is tracked.
+     */
+    public void clear() {
+        mHead = -1;
+        mCount = 0;
+    }
+
+    /**
+     * @return Number of samples held.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Estimates the position at a time; read it through {@link #getX()} and {@link #getY()}.
+     *
+     * @param timeMillis time to estimate the position at
+     * @return false if there is no sample to estimate from
+     */
+    public boolean resample(long timeMillis) {
+        if (mCount == 0) {
+            return false;
+        }
+        long newest = mTimes[mHead];
+        if (timeMillis >= newest) {
+            extrapolate(timeMillis - newest);
+            return true;
+        }
+        for (int i = 1; i < mCount; i++) {
+            int older = (mHead - i + HISTORY) % HISTORY;
+            if (mTimes[older] <= timeMillis) {
+                int newer = (older + 1) % HISTORY;
+                long span = mTimes[newer] - mTimes[older];
+                // Samples sharing a timestamp have no span to interpolate over.
+                float alpha = span > 0 ? (float) (timeMillis - mTimes[older]) / span : 1f;
+                mResampledX = mX[older] + (mX[newer] - mX[older]) * alpha;
+                mResampledY = mY[older] + (mY[newer] - mY[older]) * alpha;
+                return true;
+            }
+        }
+        // Before every sample held.
+        int oldest = (mHead - mCount + 1 + HISTORY) % HISTORY;
+        mResampledX = mX[oldest];
+        mResampledY = mY[oldest];
+        return true;
+    }
+
+    /**
+     * @return X estimated by the last {@link #resample(long)}.
+     */
+    public float getX() {
+        return mResampledX;
+    }
+
+    /**
+     * @return Y estimated by the last {@link #resample(long)}.
+     */
+    public float getY() {
+        return mResampledY;
+    }
+
+    private void extrapolate(long ahead) {
+        mResampledX = mX[mHead];
+        mResampledY = mY[mHead];
+        if (mCount < 2 || ahead == 0) {
+            return;
+        }
+        int previous = (mHead - 1 + HISTORY) % HISTORY;
+        long delta = mTimes[mHead] - mTimes[previous];
+        if (delta < MIN_DELTA_MILLIS || delta > MAX_DELTA_MILLIS) {
+            return;
+        }
+        long prediction = Math.min(ahead, Math.min(MAX_PREDICTION_MILLIS, delta / 2));
+        float alpha = (float) prediction / delta;
+        mResampledX += (mX[mHead] - mX[previous]) * alpha;
+        mResampledY += (mY[mHead] - mY[previous]) * alpha;
+    }
+}
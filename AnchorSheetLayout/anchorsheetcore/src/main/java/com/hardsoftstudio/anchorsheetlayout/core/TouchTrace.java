@@ -0,0 +1,311 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded stream of touch events together with the sheet configuration it was recorded
+ * against, stored in growable primitive arrays.
+ *
+ * <p>The configuration is held as a {@link SheetSavedState}, so a trace carries everything that
+ * decides how a gesture resolves: detents, hide detent, deceleration, settle and movement mode
+ * and the motion parameters, along with the state and offset the sheet starts from.</p>
+ *
+ * <p>Binary layout, big endian: magic {@code "ASTR"}, version, the width of the sheet, the length
+ * and bytes of {@link SheetSavedState#toByteArray()}, the time of the first event, the event
+ * count, then per event its action, action index, pointer count and time relative to the first
+ * event, followed by id, x, y, screen x and screen y of each of its pointers.</p>
+ */
+public final class TouchTrace {
+
+    private static final int MAGIC = 0x41535452;
+
+    private static final short VERSION = 2;
+
+    /**
+     * Version 1 only recorded the peek height, min offset, anchor threshold and the hide flags.
+     */
+    private static final short VERSION_PARTIAL_CONFIG = 1;
+
+    private static final int MAX_CONFIG_BYTES = 64 * 1024;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int mWidth;
+
+    private SheetSavedState mConfig = new SheetSavedState();
+
+    private int mEventCount;
+
+    private byte[] mActions = new byte[INITIAL_CAPACITY];
+
+    private byte[] mIndices = new byte[INITIAL_CAPACITY];
+
+    private byte[] mPointerCounts = new byte[INITIAL_CAPACITY];
+
+    private int[] mPointerStarts = new int[INITIAL_CAPACITY];
+
+    private long[] mTimes = new long[INITIAL_CAPACITY];
+
+    private int mPointerTotal;
+
+    private int[] mPointerIds = new int[INITIAL_CAPACITY];
+
+    private float[] mX = new float[INITIAL_CAPACITY];
+
+    private float[] mY = new float[INITIAL_CAPACITY];
+
+    private float[] mScreenX = new float[INITIAL_CAPACITY];
+
+    private float[] mScreenY = new float[INITIAL_CAPACITY];
+
+    /**
+     * Stores the configuration of the sheet the trace is recorded against and drops every
+     * event recorded so far.
+     *
+     * @param physics      physics of the sheet
+     * @param initialState state of the sheet when recording starts
+     * @param initialTop   offset of the sheet when recording starts
+     */
+    public void begin(SheetPhysics physics, int initialState, float initialTop) {
+        SheetSavedState config = new SheetSavedState();
+        config.capture(physics, initialState, initialTop);
+        begin(config, physics.getWidth());
+    }
+
+    /**
+     * Stores the configuration of the sheet the trace is recorded against, layout options
+     * included, and drops every event recorded so far.
+     *
+     * @param config configuration, state and offset of the sheet when recording starts
+     * @param width  width of the sheet
+     */
+    public void begin(SheetSavedState config, int width) {
+        mConfig = config;
+        mWidth = width;
+        mEventCount = 0;
+        mPointerTotal = 0;
+    }
+
+    /**
+     * Applies the recorded configuration to a physics instance.
+     *
+     * @param physics physics to configure
+     */
+    public void applyTo(SheetPhysics physics) {
+        physics.setParentHeight(mConfig.getParentHeight());
+        physics.setWidth(mWidth);
+        mConfig.applyTo(physics);
+    }
+
+    /**
+     * @return Configuration, state and offset of the sheet when recording started.
+     */
+    public SheetSavedState getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * Appends an event. Its pointers must follow through {@link #appendPointer}.
+     *
+     * @param action       action of the event
+     * @param index        index of the pointer the action refers to
+     * @param time         time the event occurred
+     * @param pointerCount number of pointers of the event
+     */
+    public void appendEvent(int action, int index, long time, int pointerCount) {
+        if (mEventCount == mActions.length) {
+            int capacity = mEventCount * 2;
+            mActions = Arrays.copyOf(mActions, capacity);
+            mIndices = Arrays.copyOf(mIndices, capacity);
+            mPointerCounts = Arrays.copyOf(mPointerCounts, capacity);
+            mPointerStarts = Arrays.copyOf(mPointerStarts, capacity);
+            mTimes = Arrays.copyOf(mTimes, capacity);
+        }
+        mActions[mEventCount] = (byte) action;
+        mIndices[mEventCount] = (byte) index;
+        mPointerCounts[mEventCount] = (byte) pointerCount;
+        mPointerStarts[mEventCount] = mPointerTotal;
+        mTimes[mEventCount] = time;
+        mEventCount++;
+    }
+
+    /**
+     * Appends a pointer of the last appended event.
+     *
+     * @param pointerId id of the pointer
+     * @param x         x position
+     * @param y         y position
+     * @param screenX   x position on screen
+     * @param screenY   y position on screen
+     */
+    public void appendPointer(int pointerId, float x, float y, float screenX, float screenY) {
+        if (mPointerTotal == mPointerIds.length) {
+            int capacity = mPointerTotal * 2;
+            mPointerIds = Arrays.copyOf(mPointerIds, capacity);
+            mX = Arrays.copyOf(mX, capacity);
+            mY = Arrays.copyOf(mY, capacity);
+            mScreenX = Arrays.copyOf(mScreenX, capacity);
+            mScreenY = Arrays.copyOf(mScreenY, capacity);
+        }
+        mPointerIds[mPointerTotal] = pointerId;
+        mX[mPointerTotal] = x;
+        mY[mPointerTotal] = y;
+        mScreenX[mPointerTotal] = screenX;
+        mScreenY[mPointerTotal] = screenY;
+        mPointerTotal++;
+    }
+
+    public int getParentHeight() {
+        return mConfig.getParentHeight();
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getInitialState() {
+        return mConfig.getState();
+    }
+
+    /**
+     * @return Offset of the sheet when recording started, {@link Float#NaN} if it rested at the
+     * offset of its state.
+     */
+    public float getInitialTop() {
+        return mConfig.getTop();
+    }
+
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    public int getAction(int event) {
+        return mActions[event];
+    }
+
+    public int getIndex(int event) {
+        return mIndices[event];
+    }
+
+    public long getTime(int event) {
+        return mTimes[event];
+    }
+
+    public int getPointerCount(int event) {
+        return mPointerCounts[event];
+    }
+
+    /**
+     * @param event event index
+     * @return index of the first pointer of the event, to be used with the pointer getters
+     */
+    public int getPointerStart(int event) {
+        return mPointerStarts[event];
+    }
+
+    public int getPointerId(int pointer) {
+        return mPointerIds[pointer];
+    }
+
+    public float getX(int pointer) {
+        return mX[pointer];
+    }
+
+    public float getY(int pointer) {
+        return mY[pointer];
+    }
+
+    public float getScreenX(int pointer) {
+        return mScreenX[pointer];
+    }
+
+    public float getScreenY(int pointer) {
+        return mScreenY[pointer];
+    }
+
+    /**
+     * Writes this trace in its binary form.
+     *
+     * @param out stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeInt(mWidth);
+        byte[] config = mConfig.toByteArray();
+        data.writeInt(config.length);
+        data.write(config);
+        long baseTime = mEventCount > 0 ? mTimes[0] : 0;
+        data.writeLong(baseTime);
+        data.writeInt(mEventCount);
+        for (int i = 0; i < mEventCount; i++) {
+            data.writeByte(mActions[i]);
+            data.writeByte(mIndices[i]);
+            data.writeByte(mPointerCounts[i]);
+            data.writeInt((int) (mTimes[i] - baseTime));
+            for (int p = mPointerStarts[i], end = p + mPointerCounts[i]; p < end; p++) {
+                data.writeInt(mPointerIds[p]);
+                data.writeFloat(mX[p]);
+                data.writeFloat(mY[p]);
+                data.writeFloat(mScreenX[p]);
+                data.writeFloat(mScreenY[p]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTo(OutputStream)}.
+     *
+     * @param in stream to read from; not closed
+     * @return the trace
+     * @throws IOException if reading fails or the stream is not a trace
+     */
+    public static TouchTrace readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a touch trace");
+        }
+        short version = data.readShort();
+        if (version == VERSION_PARTIAL_CONFIG) {
+            throw new IOException("Touch trace version 1 lacks the detent, motion and movement "
+                    + "configuration and replays against the wrong physics; record it again");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported touch trace version: " + version);
+        }
+        TouchTrace trace = new TouchTrace();
+        trace.mWidth = data.readInt();
+        int configLength = data.readInt();
+        if (configLength < 0 || configLength > MAX_CONFIG_BYTES) {
+            throw new IOException("Corrupt touch trace configuration");
+        }
+        byte[] config = new byte[configLength];
+        data.readFully(config);
+        try {
+            trace.mConfig = SheetSavedState.fromByteArray(config);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt touch trace configuration", e);
+        }
+        long baseTime = data.readLong();
+        int eventCount = data.readInt();
+        for (int i = 0; i < eventCount; i++) {
+            int action = data.readByte();
+            int index = data.readByte();
+            int pointerCount = data.readByte();
+            trace.appendEvent(action, index, baseTime + data.readInt(), pointerCount);
+            for (int p = 0; p < pointerCount; p++) {
+                trace.appendPointer(data.readInt(), data.readFloat(), data.readFloat(),
+                        data.readFloat(), data.readFloat());
+            }
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,134 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+/**
+ * Pointer velocity from a least squares line fit over the recent samples.
+ *
+ * <p>Samples go into a fixed ring buffer; only those within {@link #HORIZON_MILLIS} of the newest
+ * one take part in the fit, and a pause longer than {@link #ASSUME_STOPPED_MILLIS} before the
+ * newest sample means the pointer had stopped. The estimate is computed lazily, so it can be
+ * queried at any point of a gesture. One instance is meant to be reused across gestures through
+ * {@link #clear()}; nothing is allocated after construction.</p>
+ */
+public final class VelocityEstimator {
+
+    /**
+     * Samples older than this, relative to the newest, are ignored.
+     */
+    public static final long HORIZON_MILLIS = 100;
+
+    /**
+     * A gap this long between two samples means the pointer stopped in between.
+     */
+    public static final long ASSUME_STOPPED_MILLIS = 40;
+
+    private static final int HISTORY = 20;
+
+    private final long[] mTimes = new long[HISTORY];
+
+    private final float[] mX = new float[HISTORY];
+
+    private final float[] mY = new float[HISTORY];
+
+    private int mHead = -1;
+
+    private int mCount;
+
+    private boolean mDirty;
+
+    private float mXVelocity;
+
+    private float mYVelocity;
+
+    /**
+     * Adds a sample of the tracked pointer.
+     *
+     * @param timeMillis time of the sample in milliseconds
+     * @param x          x of the pointer
+     * @param y          y of the pointer
+     */
+    public void addSample(long timeMillis, float x, float y) {
+        if (mCount > 0 && timeMillis - mTimes[mHead] > ASSUME_STOPPED_MILLIS) {
+            mCount = 0;
+        }
+        mHead = (mHead + 1) % HISTORY;
+        mTimes[mHead] = timeMillis;
+        mX[mHead] = x;
+        mY[mHead] = y;
+        if (mCount < HISTORY) {
+            mCount++;
+        }
+        mDirty = true;
+    }
+
+    /**
+     * Forgets every sample, for instance at the start of a gesture.
+     */
+    public void clear() {
+        mHead = -1;
+        mCount = 0;
+        mDirty = false;
+        mXVelocity = 0;
+        mYVelocity = 0;
+    }
+
+    /**
+     * @return Horizontal velocity in px/s, 0 without enough samples.
+     */
+    public float getXVelocity() {
+        compute();
+        return mXVelocity;
+    }
+
+    /**
+     * @return Vertical velocity in px/s, 0 without enough samples.
+     */
+    public float getYVelocity() {
+        compute();
+        return mYVelocity;
+    }
+
+    private void compute() {
+        if (!mDirty) {
+            return;
+        }
+        mDirty = false;
+        mXVelocity = 0;
+        mYVelocity = 0;
+        long newest = mTimes[mHead];
+        int n = 0;
+        float sumT = 0;
+        float sumX = 0;
+        float sumY = 0;
+        for (int i = 0; i < mCount; i++) {
+            int index = (mHead - i + HISTORY) % HISTORY;
+            if (newest - mTimes[index] > HORIZON_MILLIS) {
+                break;
+            }
+            sumT += mTimes[index] - newest;
+            sumX += mX[index];
+            sumY += mY[index];
+            n++;
+        }
+        if (n < 2) {
+            return;
+        }
+        float meanT = sumT / n;
+        float meanX = sumX / n;
+        float meanY = sumY / n;
+        float stt = 0;
+        float stx = 0;
+        float sty = 0;
+        for (int i = 0; i < n; i++) {
+            int index = (mHead - i + HISTORY) % HISTORY;
+            float dt = mTimes[index] - newest - meanT;
+            stt += dt * dt;
+            stx += dt * (mX[index] - meanX);
+            sty += dt * (mY[index] - meanY);
+        }
+        if (stt <= 0) {
+            return;
+        }
+        mXVelocity = stx / stt * 1000f;
+        mYVelocity = sty / stt * 1000f;
+    }
+}
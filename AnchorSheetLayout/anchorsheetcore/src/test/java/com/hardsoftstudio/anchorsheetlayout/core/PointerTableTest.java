@@ -0,0 +1,62 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PointerTableTest {
+
+    @Test
+    public void largeIdsDoNotAlias() {
+        PointerTable table = new PointerTable();
+        table.down(1, 10, 20);
+        table.down(33, 30, 40);
+        assertTrue(table.isDown(1));
+        assertTrue(table.isDown(33));
+        table.up(33);
+        assertTrue(table.isDown(1));
+        assertFalse(table.isDown(33));
+        assertEquals(10f, table.getInitialX(table.slotOf(1)), 0f);
+    }
+
+    @Test
+    public void fullTableDropsNewPointers() {
+        PointerTable table = new PointerTable(2);
+        table.down(5, 0, 0);
+        table.down(Integer.MAX_VALUE, 0, 0);
+        assertEquals(PointerTable.NO_SLOT, table.down(7, 0, 0));
+        table.up(5);
+        assertTrue(table.down(7, 1, 2) != PointerTable.NO_SLOT);
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void matchesReferenceUnderRandomChurn() {
+        PointerTable table = new PointerTable();
+        Map<Integer, Float> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(200) - 20;
+            if (random.nextBoolean() && (reference.size() < table.getCapacity() || reference.containsKey(id))) {
+                table.down(id, i, 0);
+                reference.put(id, (float) i);
+            } else {
+                table.up(id);
+                reference.remove(id);
+            }
+            assertEquals(reference.size(), table.size());
+            int probe = random.nextInt(200) - 20;
+            int slot = table.slotOf(probe);
+            assertEquals(reference.containsKey(probe), slot != PointerTable.NO_SLOT);
+            if (slot != PointerTable.NO_SLOT) {
+                assertEquals(reference.get(probe), table.getInitialX(slot), 0f);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SheetMetricsTest {
+
+    private static final long FRAME = 16_666_667L;
+
+    @Test
+    public void histogramBuckets() {
+        SheetMetrics.Histogram histogram = new SheetMetrics.Histogram(10, 20, 30);
+        for (long value : new long[]{-5, 9, 10, 25, 29, 31, 1000}) {
+            histogram.record(value);
+        }
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(2, histogram.getBucket(0));
+        assertEquals(1, histogram.getBucket(1));
+        assertEquals(2, histogram.getBucket(2));
+        assertEquals(2, histogram.getBucket(3));
+        assertEquals(Long.MAX_VALUE, histogram.getUpperBound(3));
+        assertEquals(7, histogram.getCount());
+        assertEquals(-5, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(30, histogram.getPercentile(50));
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void framesAndDroppedFrames() {
+        SheetMetrics metrics = new SheetMetrics();
+        metrics.setRefreshRate(60);
+        metrics.beginFrames(SheetMetrics.PHASE_DRAG);
+        long now = 0;
+        metrics.recordFrame(now);
+        for (int i = 0; i < 10; i++) {
+            now += FRAME;
+            metrics.recordFrame(now);
+        }
+        // Two frames missed.
+        now += 3 * FRAME;
+        metrics.recordFrame(now);
+        metrics.beginFrames(SheetMetrics.PHASE_SETTLE);
+        // The gap to the drag is not an interval of the settle.
+        now += 100 * FRAME;
+        metrics.recordFrame(now);
+        now += FRAME;
+        metrics.recordFrame(now);
+
+        SheetMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(11, snapshot.getDragFrameIntervals().getCount());
+        assertEquals(2, snapshot.getDragDroppedFrames());
+        assertEquals(1, snapshot.getSettleFrameIntervals().getCount());
+        assertEquals(0, snapshot.getSettleDroppedFrames());
+        assertEquals(16_700, snapshot.getDragFrameIntervals().getPercentile(50));
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        SheetMetrics metrics = new SheetMetrics();
+        metrics.recordGesture(true, false);
+        metrics.recordGesture(true, true);
+        metrics.recordGesture(false, false);
+        metrics.recordSettle(200, 230);
+        metrics.recordTouchLatency(5_000);
+        metrics.recordTouchLatency(-1);
+
+        SheetMetrics.Snapshot snapshot = new SheetMetrics.Snapshot();
+        metrics.snapshot(snapshot);
+        metrics.reset();
+        assertEquals(2, snapshot.getSheetGestures());
+        assertEquals(1, snapshot.getNestedGestures());
+        assertEquals(30, snapshot.getSettleError().getMax());
+        assertEquals(1, snapshot.getTouchLatency().getCount());
+
+        metrics.snapshot(snapshot);
+        assertEquals(0, snapshot.getSheetGestures());
+        assertEquals(0, snapshot.getSettleError().getCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SheetMotionTest {
+    private static final float FRAME = 1 / 60f;
+
+    @Test
+    public void springFromRestDoesNotOvershoot() {
+        SheetMotion motion = new SheetMotion();
+        motion.start(SheetMotion.MODE_SPRING, 1700, 0, 975);
+        int frames = 0;
+        while (motion.step(FRAME)) {
+            assertTrue(motion.getPosition() >= 975);
+            frames++;
+            assertTrue(frames < 120);
+        }
+        assertEquals(975f, motion.getPosition(), 0f);
+    }
+
+    @Test
+    public void springKeepsReleaseVelocity() {
+        SheetMotion motion = new SheetMotion();
+        motion.start(SheetMotion.MODE_SPRING, 1450, -2000, 975);
+        motion.step(0.001f);
+        assertTrue(motion.getVelocity() < -1900);
+    }
+
+    @Test
+    public void flingDecaysThenSettles() {
+        SheetMotion motion = new SheetMotion();
+        motion.start(SheetMotion.MODE_FLING, 1450, -2000, 0);
+        motion.step(FRAME);
+        float firstStep = 1450 - motion.getPosition();
+        assertEquals(2000 * FRAME, firstStep, 2f);
+        int frames = 0;
+        while (motion.step(FRAME)) {
+            frames++;
+            assertTrue(frames < 240);
+        }
+        assertEquals(0f, motion.getPosition(), 0f);
+    }
+
+    @Test
+    public void cancelStopsInPlace() {
+        SheetMotion motion = new SheetMotion();
+        motion.start(SheetMotion.MODE_FLING, 1700, -1500, 975);
+        motion.step(FRAME);
+        float position = motion.getPosition();
+        motion.cancel();
+        assertFalse(motion.step(FRAME));
+        assertEquals(position, motion.getPosition(), 0f);
+    }
+}
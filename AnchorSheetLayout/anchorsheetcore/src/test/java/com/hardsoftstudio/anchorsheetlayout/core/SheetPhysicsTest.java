@@ -0,0 +1,210 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SheetPhysicsTest {
+    private static final int PARENT_HEIGHT = 1950;
+
+    private static final int PEEK_HEIGHT = 250;
+
+    private SheetPhysics mPhysics;
+
+    @Before
+    public void setUp() {
+        mPhysics = new SheetPhysics(PARENT_HEIGHT, 75, 2000);
+        mPhysics.setPeekHeight(PEEK_HEIGHT);
+        mPhysics.setHideable(true);
+        mPhysics.setWidth(1080);
+    }
+
+    @Test
+    public void offsets() {
+        assertEquals(0, mPhysics.offsetForState(SheetPhysics.STATE_EXPANDED));
+        assertEquals(975, mPhysics.offsetForState(SheetPhysics.STATE_ANCHOR));
+        assertEquals(1700, mPhysics.offsetForState(SheetPhysics.STATE_COLLAPSED));
+        assertEquals(PARENT_HEIGHT, mPhysics.offsetForState(SheetPhysics.STATE_HIDDEN));
+        assertEquals(SheetPhysics.NO_OFFSET, mPhysics.offsetForState(SheetPhysics.STATE_DRAGGING));
+
+        mPhysics.setHideable(false);
+        assertEquals(SheetPhysics.NO_OFFSET, mPhysics.offsetForState(SheetPhysics.STATE_HIDDEN));
+        assertEquals(PARENT_HEIGHT, mPhysics.offsetForState(SheetPhysics.STATE_FORCE_HIDDEN));
+        assertEquals(1700, mPhysics.clampTop(PARENT_HEIGHT));
+    }
+
+    @Test
+    public void sizeChange() {
+        assertFalse(mPhysics.setSize(1080, PARENT_HEIGHT));
+        assertTrue(mPhysics.setSize(2400, 1080));
+        assertEquals(540, mPhysics.getAnchorOffset());
+        assertEquals(830, mPhysics.getMaxOffset());
+        assertEquals(1080, mPhysics.clampTop(5000));
+    }
+
+    @Test
+    public void releaseUpward() {
+        assertEquals(SheetPhysics.STATE_EXPANDED,
+                mPhysics.resolveReleaseState(300, 0, -5, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_ANCHOR,
+                mPhysics.resolveReleaseState(1100, 0, -5, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_COLLAPSED,
+                mPhysics.resolveReleaseState(1600, 0, -5, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_ANCHOR,
+                mPhysics.resolveReleaseState(1600, -800, -5, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_EXPANDED,
+                mPhysics.resolveReleaseState(900, -800, -5, SheetPhysics.STATE_DRAGGING));
+    }
+
+    @Test
+    public void releaseDownward() {
+        assertEquals(SheetPhysics.STATE_COLLAPSED,
+                mPhysics.resolveReleaseState(1200, 800, 5, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_HIDDEN,
+                mPhysics.resolveReleaseState(1750, 1500, 5, SheetPhysics.STATE_DRAGGING));
+        assertFalse(mPhysics.shouldHide(1710, 0));
+
+        mPhysics.setHideable(false);
+        assertEquals(SheetPhysics.STATE_COLLAPSED,
+                mPhysics.resolveReleaseState(1750, 1500, 5, SheetPhysics.STATE_DRAGGING));
+    }
+
+    @Test
+    public void slideOffset() {
+        assertEquals(1f, mPhysics.slideOffset(0), 0.0001f);
+        assertEquals(0f, mPhysics.slideOffset(1700), 0.0001f);
+        assertEquals(-1f, mPhysics.slideOffset(PARENT_HEIGHT), 0.0001f);
+    }
+
+    @Test
+    public void slideOffsetWithoutRange() {
+        // A peek covering the whole range leaves the expanded and collapsed offsets equal.
+        mPhysics.setPeekHeight(PARENT_HEIGHT - mPhysics.getMinOffset());
+        assertEquals(mPhysics.getMinOffset(), mPhysics.getMaxOffset());
+        assertEquals(0f, mPhysics.slideOffset(mPhysics.getMaxOffset()), 0f);
+        assertTrue(Float.isFinite(mPhysics.slideOffset(mPhysics.getMinOffset() - 10)));
+        assertTrue(Float.isFinite(mPhysics.slideOffset(PARENT_HEIGHT)));
+    }
+
+    @Test
+    public void settleDuration() {
+        assertEquals(0, mPhysics.computeSettleDuration(0, 0, 0, 0, 0, PARENT_HEIGHT));
+        int duration = mPhysics.computeSettleDuration(0, 725, 0, 0, 0, PARENT_HEIGHT);
+        assertTrue(duration > 0 && duration <= 200);
+    }
+
+    @Test
+    public void customDetents() {
+        mPhysics.setDetents(new float[]{0.1f, 1f, 0.5f, 0.75f, 0.25f}, SheetPhysics.UNIT_FRACTION);
+        assertEquals(5, mPhysics.getDetentCount());
+        assertEquals(0, mPhysics.detentOffset(0));
+        assertEquals(488, mPhysics.detentOffset(1));
+        assertEquals(1755, mPhysics.detentOffset(4));
+        assertEquals(PARENT_HEIGHT, mPhysics.detentOffset(5));
+        assertEquals(975, mPhysics.getAnchorOffset());
+        assertEquals(1755, mPhysics.offsetForState(SheetPhysics.STATE_COLLAPSED));
+        assertEquals(SheetPhysics.STATE_ANCHOR, mPhysics.stateForDetent(3));
+        assertEquals(SheetPhysics.STATE_HIDDEN, mPhysics.stateForDetent(5));
+
+        assertEquals(2, mPhysics.findNearestDetent(1000));
+        assertEquals(3, mPhysics.findNearestDetent(1300));
+        assertEquals(5, mPhysics.findNearestDetent(5000));
+        mPhysics.setHideable(false);
+        assertEquals(4, mPhysics.findNearestDetent(5000));
+
+        assertEquals(0, mPhysics.detentAbove(0));
+        assertEquals(1, mPhysics.detentAbove(974));
+        assertEquals(2, mPhysics.detentAbove(975));
+        assertEquals(5, mPhysics.detentAbove(PARENT_HEIGHT));
+
+        mPhysics.setAnchorDetent(3);
+        assertEquals(1463, mPhysics.offsetForState(SheetPhysics.STATE_ANCHOR));
+
+        // Two detents leave no anchor.
+        mPhysics.setDetents(new float[]{0.9f, 0.2f}, SheetPhysics.UNIT_FRACTION);
+        assertFalse(mPhysics.hasAnchor());
+        assertEquals(195, mPhysics.getMinOffset());
+        assertEquals(1560, mPhysics.getMaxOffset());
+        assertEquals(SheetPhysics.NO_OFFSET, mPhysics.offsetForState(SheetPhysics.STATE_ANCHOR));
+        assertEquals(1560, mPhysics.panelOffset(SheetPhysics.STATE_ANCHOR));
+        assertEquals(SheetPhysics.STATE_EXPANDED, mPhysics.nearestRestingState(800));
+        assertEquals(SheetPhysics.STATE_COLLAPSED, mPhysics.nearestRestingState(1000));
+        assertEquals(SheetPhysics.STATE_COLLAPSED, mPhysics.resolveReleaseState(1400, 0, -10, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_EXPANDED, mPhysics.resolveReleaseState(1400, -500, -10, SheetPhysics.STATE_DRAGGING));
+        assertEquals(SheetPhysics.STATE_EXPANDED, mPhysics.resolveReleaseState(400, 0, 0, SheetPhysics.STATE_DRAGGING));
+        assertEquals(1, mPhysics.findNearestDetent(1000));
+
+        mPhysics.setDetents(null, SheetPhysics.UNIT_FRACTION);
+        assertTrue(mPhysics.hasAnchor());
+        assertEquals(1700, mPhysics.offsetForState(SheetPhysics.STATE_COLLAPSED));
+        assertEquals(975, mPhysics.offsetForState(SheetPhysics.STATE_ANCHOR));
+    }
+
+    @Test
+    public void releaseToProjectedDetent() {
+        mPhysics.setDetents(new float[]{1950, 1462, 975, 487, 195}, SheetPhysics.UNIT_PIXELS);
+        // Resting release snaps to the nearest detent.
+        assertEquals(2, mPhysics.resolveReleaseDetent(1000, 0));
+        // A fast fling coasts past several detents.
+        assertEquals(0, mPhysics.resolveReleaseDetent(800, -2000));
+        // A slow fling still reaches the next detent in its direction.
+        assertEquals(1, mPhysics.resolveReleaseDetent(960, -100));
+        assertEquals(3, mPhysics.resolveReleaseDetent(990, 100));
+        assertEquals(5, mPhysics.resolveReleaseDetent(1700, 2000));
+
+        mPhysics.setHideDetent(0.05f, SheetPhysics.UNIT_FRACTION);
+        assertEquals(1853, mPhysics.offsetForState(SheetPhysics.STATE_HIDDEN));
+        assertEquals(1853, mPhysics.clampTop(PARENT_HEIGHT));
+        assertEquals(PARENT_HEIGHT, mPhysics.offsetForState(SheetPhysics.STATE_FORCE_HIDDEN));
+    }
+
+    @Test
+    public void decisionPathDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int sink = run(10_000);
+        long before = bean.getThreadAllocatedBytes(threadId);
+        sink += run(100_000);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertTrue(sink != 0);
+
+        mPhysics.setDetents(new float[]{1f, 0.75f, 0.5f, 0.25f, 0.1f}, SheetPhysics.UNIT_FRACTION);
+        sink = runDetents(10_000);
+        before = bean.getThreadAllocatedBytes(threadId);
+        sink += runDetents(100_000);
+        allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertTrue(sink != 0);
+    }
+
+    private int run(int iterations) {
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            int top = mPhysics.clampTop(i % PARENT_HEIGHT);
+            float yvel = (i & 1) == 0 ? -900 : 900;
+            int state = mPhysics.resolveReleaseState(top, yvel, yvel, SheetPhysics.STATE_DRAGGING);
+            int target = mPhysics.offsetForState(state);
+            sink += state + (int) (mPhysics.slideOffset(top) * 100)
+                    + mPhysics.computeSettleDuration(0, top - target, 0, (int) yvel, 0, mPhysics.verticalDragRange());
+        }
+        return sink;
+    }
+
+    private int runDetents(int iterations) {
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            int top = mPhysics.clampTop(i % PARENT_HEIGHT);
+            float yvel = (i % 3 - 1) * 900;
+            int detent = mPhysics.resolveReleaseDetent(top, yvel);
+            sink += mPhysics.stateForDetent(detent) + mPhysics.detentOffset(detent);
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,169 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SheetSavedStateTest {
+
+    /**
+     * Position of the detent count in the binary form.
+     */
+    private static final int DETENT_COUNT_OFFSET = 29;
+
+    /**
+     * Position of the state in the binary form.
+     */
+    private static final int STATE_OFFSET = 10;
+
+    /**
+     * Positions of the trailing floats, counted back from the end of the binary form.
+     */
+    private static final int FLING_FRICTION_FROM_END = 6;
+
+    private static final int SPRING_STIFFNESS_FROM_END = 10;
+
+    private static final int DECELERATION_FROM_END = 16;
+
+    private static final int HIDE_VALUE_FROM_END = 21;
+
+    @Test
+    public void roundTrip() {
+        SheetPhysics physics = new SheetPhysics(1950, 75, 2000);
+        physics.setPeekHeight(300);
+        physics.setSkipCollapsed(true);
+        physics.setDetents(new float[]{1f, 0.75f, 0.5f, 0.25f, 0.1f}, SheetPhysics.UNIT_FRACTION);
+        physics.setAnchorDetent(3);
+        physics.setHideDetent(40, SheetPhysics.UNIT_PIXELS);
+        physics.setDeceleration(2000);
+
+        SheetSavedState saved = new SheetSavedState();
+        saved.capture(physics, SheetPhysics.STATE_ANCHOR, physics.detentOffset(3));
+        saved.setSettleMode(1);
+        saved.setMovementMode(1);
+        saved.setSpringStiffness(20);
+        saved.setInputCoalescing(true);
+
+        SheetSavedState restored = SheetSavedState.fromByteArray(saved.toByteArray());
+        assertEquals(1950, restored.getParentHeight());
+        assertEquals(SheetPhysics.STATE_ANCHOR, restored.getState());
+        assertEquals(physics.detentOffset(3), restored.getTop(), 0f);
+        assertEquals(1, restored.getSettleMode());
+        assertEquals(1, restored.getMovementMode());
+        assertEquals(20f, restored.getSpringStiffness(), 0f);
+        assertTrue(restored.isInputCoalescing());
+        assertFalse(restored.isTouchResampling());
+
+        SheetPhysics fresh = new SheetPhysics(1950, 75, 2000);
+        restored.applyTo(fresh);
+        assertEquals(300, fresh.getPeekHeight());
+        assertTrue(fresh.getSkipCollapsed());
+        assertEquals(5, fresh.getDetentCount());
+        assertEquals(physics.getAnchorOffset(), fresh.getAnchorOffset());
+        assertEquals(physics.getHideOffset(), fresh.getHideOffset());
+        assertEquals(2000f, fresh.getDeceleration(), 0f);
+        assertTrue(Arrays.equals(physics.getDetentValues(), fresh.getDetentValues()));
+    }
+
+    @Test
+    public void defaultDetents() {
+        SheetPhysics physics = new SheetPhysics(1950, 75, 2000);
+        physics.setAnchorThreshold(0.3f);
+        SheetSavedState saved = new SheetSavedState();
+        saved.capture(physics, SheetPhysics.STATE_COLLAPSED, Float.NaN);
+
+        SheetSavedState restored = SheetSavedState.fromByteArray(saved.toByteArray());
+        assertTrue(Float.isNaN(restored.getTop()));
+        assertEquals(-1, restored.getAnchorDetent());
+        SheetPhysics fresh = new SheetPhysics(1950, 75, 2000);
+        fresh.setDetents(new float[]{1f, 0.5f}, SheetPhysics.UNIT_FRACTION);
+        restored.applyTo(fresh);
+        assertNull(fresh.getDetentValues());
+        assertEquals(physics.getAnchorOffset(), fresh.getAnchorOffset());
+    }
+
+    @Test
+    public void rejectsOtherBytes() {
+        byte[] bytes = new SheetSavedState().toByteArray();
+        for (byte[] bad : new byte[][]{new byte[0], Arrays.copyOf(bytes, 20), "not a state".getBytes()}) {
+            try {
+                SheetSavedState.fromByteArray(bad);
+                fail("accepted " + Arrays.toString(bad));
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void rejectsCorruptValues() {
+        byte[] bytes = new SheetSavedState().toByteArray();
+        assertEquals(-1, ByteBuffer.wrap(bytes).getInt(DETENT_COUNT_OFFSET));
+        for (int count : new int[]{-2, 0, 1}) {
+            byte[] bad = bytes.clone();
+            ByteBuffer.wrap(bad).putInt(DETENT_COUNT_OFFSET, count);
+            assertRejected(bad);
+        }
+
+        SheetSavedState settleMode = new SheetSavedState();
+        settleMode.setSettleMode(SheetMotion.MODE_FLING + 1);
+        assertRejected(settleMode.toByteArray());
+        SheetSavedState movementMode = new SheetSavedState();
+        movementMode.setMovementMode(-1);
+        assertRejected(movementMode.toByteArray());
+
+        SheetPhysics physics = new SheetPhysics(1950, 75, 2000);
+        physics.setHideDetent(40, SheetPhysics.UNIT_PIXELS + 1);
+        SheetSavedState hideUnit = new SheetSavedState();
+        hideUnit.capture(physics, SheetPhysics.STATE_COLLAPSED, Float.NaN);
+        assertRejected(hideUnit.toByteArray());
+
+        assertEquals(SheetPhysics.STATE_COLLAPSED, bytes[STATE_OFFSET]);
+        for (int state : new int[]{0, SheetPhysics.STATE_DRAGGING, SheetPhysics.STATE_SETTLING, 77}) {
+            byte[] bad = bytes.clone();
+            bad[STATE_OFFSET] = (byte) state;
+            assertRejected(bad);
+        }
+
+        for (float value : new float[]{0f, -1f, Float.NaN, Float.POSITIVE_INFINITY}) {
+            assertRejected(withFloat(bytes, FLING_FRICTION_FROM_END, value));
+            assertRejected(withFloat(bytes, SPRING_STIFFNESS_FROM_END, value));
+            assertRejected(withFloat(bytes, DECELERATION_FROM_END, value));
+        }
+        for (float value : new float[]{Float.NaN, Float.NEGATIVE_INFINITY}) {
+            assertRejected(withFloat(bytes, HIDE_VALUE_FROM_END, value));
+        }
+        assertEquals(2f, SheetSavedState.fromByteArray(withFloat(bytes, FLING_FRICTION_FROM_END, 2f)).getFlingFriction(), 0f);
+        assertEquals(2f, SheetSavedState.fromByteArray(withFloat(bytes, SPRING_STIFFNESS_FROM_END, 2f)).getSpringStiffness(), 0f);
+
+        SheetPhysics detents = new SheetPhysics(1950, 75, 2000);
+        detents.setDetents(new float[]{1f, 0.5f, 0.1f}, SheetPhysics.UNIT_FRACTION);
+        SheetSavedState detent = new SheetSavedState();
+        detent.capture(detents, SheetPhysics.STATE_COLLAPSED, Float.NaN);
+        byte[] detentBytes = detent.toByteArray();
+        ByteBuffer.wrap(detentBytes).putFloat(DETENT_COUNT_OFFSET + 8, Float.NaN);
+        assertRejected(detentBytes);
+    }
+
+    private static byte[] withFloat(byte[] bytes, int fromEnd, float value) {
+        byte[] bad = bytes.clone();
+        ByteBuffer.wrap(bad).putFloat(bytes.length - fromEnd, value);
+        return bad;
+    }
+
+    private static void assertRejected(byte[] bytes) {
+        try {
+            SheetSavedState.fromByteArray(bytes);
+            fail("accepted " + Arrays.toString(bytes));
+        } catch (IllegalArgumentException expected) {
+            assertEquals("Corrupt saved sheet state", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SheetTraceTest {
+
+    @Test
+    public void ringKeepsNewestEvents() {
+        SheetTrace trace = new SheetTrace(4);
+        for (int i = 0; i < 6; i++) {
+            trace.record(i * 1000L, SheetTrace.EVENT_MOVE, 100 - i, -1, 0);
+        }
+        assertEquals(4, trace.size());
+        assertEquals(2000L, trace.getTime(0));
+        assertEquals(98f, trace.getA(0), 0f);
+        assertEquals(5000L, trace.getTime(3));
+        trace.clear();
+        assertEquals(0, trace.size());
+    }
+
+    @Test
+    public void chromeTrace() throws IOException {
+        SheetTrace trace = new SheetTrace(8);
+        // The drag start is overwritten, so its release is left out.
+        trace.record(0, SheetTrace.EVENT_DRAG_START, 1700, 0, 0);
+        trace.record(16_000_000L, SheetTrace.EVENT_MOVE, 1680, -20, 0);
+        trace.record(32_000_000L, SheetTrace.EVENT_MOVE, 1660, -20, 0);
+        trace.record(33_000_000L, SheetTrace.EVENT_RELEASE, 0, -1200, 0);
+        trace.record(33_000_000L, SheetTrace.EVENT_TARGET, 975, 0, SheetPhysics.STATE_ANCHOR);
+        trace.record(33_500_000L, SheetTrace.EVENT_SETTLE_START, 1660, 975, SheetPhysics.STATE_ANCHOR);
+        trace.record(233_500_000L, SheetTrace.EVENT_SETTLE_END, 975, 0, SheetPhysics.STATE_ANCHOR);
+        trace.record(300_000_000L, SheetTrace.EVENT_DRAG_START, 975, 0, 0);
+        trace.record(316_000_000L, SheetTrace.EVENT_MOVE, 960, -15, 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeChromeTrace(out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(json, json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+        assertTrue(json, json.contains("{\"name\":\"top\",\"ph\":\"C\",\"ts\":0.0,\"pid\":1,\"tid\":1,\"args\":{\"top\":1680.0}}"));
+        assertFalse(json, json.contains("\"name\":\"drag\",\"ph\":\"E\""));
+        assertTrue(json, json.contains("\"name\":\"target anchor\",\"ph\":\"i\""));
+        assertTrue(json, json.contains("\"name\":\"settle\",\"ph\":\"B\",\"ts\":17500.0"));
+        assertTrue(json, json.contains("\"name\":\"settle\",\"ph\":\"E\",\"ts\":217500.0"));
+        assertTrue(json, json.contains("\"name\":\"drag\",\"ph\":\"B\",\"ts\":284000.0"));
+        assertTrue(json, json.endsWith("]}\n"));
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        SheetTrace trace = new SheetTrace();
+        run(trace, 10_000);
+        long before = bean.getThreadAllocatedBytes(threadId);
+        run(trace, 100_000);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void run(SheetTrace trace, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            trace.record(i, SheetTrace.EVENT_MOVE, i, 1, 0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TouchResamplerTest {
+
+    @Test
+    public void interpolatesBetweenSamples() {
+        TouchResampler resampler = new TouchResampler();
+        assertFalse(resampler.resample(0));
+        resampler.addSample(0, 100, 1700);
+        resampler.addSample(4, 104, 1680);
+        resampler.addSample(8, 108, 1660);
+        assertTrue(resampler.resample(6));
+        assertEquals(106f, resampler.getX(), 0.001f);
+        assertEquals(1670f, resampler.getY(), 0.001f);
+        // Before the oldest sample held.
+        resampler.resample(-10);
+        assertEquals(1700f, resampler.getY(), 0f);
+    }
+
+    @Test
+    public void predictionIsBounded() {
+        TouchResampler resampler = new TouchResampler();
+        resampler.addSample(0, 0, 1700);
+        resampler.addSample(16, 0, 1620);
+        // Half the sample interval at most.
+        resampler.resample(32);
+        assertEquals(1580f, resampler.getY(), 0.001f);
+        resampler.resample(19);
+        assertEquals(1605f, resampler.getY(), 0.001f);
+
+        resampler.addSample(20, 0, 1600);
+        resampler.addSample(40, 0, 1500);
+        resampler.resample(56);
+        assertEquals(1500f - 100f * TouchResampler.MAX_PREDICTION_MILLIS / 20, resampler.getY(), 0.001f);
+    }
+
+    @Test
+    public void noPredictionAfterPause() {
+        TouchResampler resampler = new TouchResampler();
+        resampler.addSample(0, 0, 1700);
+        resampler.resample(16);
+        assertEquals(1700f, resampler.getY(), 0f);
+        resampler.addSample(TouchResampler.MAX_DELTA_MILLIS + 1, 0, 1600);
+        resampler.resample(40);
+        assertEquals(1600f, resampler.getY(), 0f);
+        resampler.clear();
+        assertEquals(0, resampler.size());
+    }
+
+    @Test
+    public void duplicateTimestamps() {
+        TouchResampler resampler = new TouchResampler();
+        resampler.addSample(0, 0, 1700);
+        resampler.addSample(8, 0, 1680);
+        resampler.addSample(8, 0, 1660);
+        resampler.addSample(16, 0, 1640);
+        resampler.addSample(16, 0, 1620);
+        for (long time = -4; time <= 24; time++) {
+            assertTrue(resampler.resample(time));
+            assertFalse("y at " + time, Float.isNaN(resampler.getY()) || Float.isInfinite(resampler.getY()));
+        }
+        // Between the last sample at 8 and the first at 16.
+        resampler.resample(12);
+        assertEquals(1650f, resampler.getY(), 0.001f);
+        // No prediction from two samples at the same time.
+        resampler.resample(20);
+        assertEquals(1620f, resampler.getY(), 0f);
+    }
+}
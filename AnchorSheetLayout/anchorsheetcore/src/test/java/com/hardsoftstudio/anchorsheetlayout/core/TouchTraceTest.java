@@ -0,0 +1,103 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TouchTraceTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        SheetPhysics physics = new SheetPhysics(2200, 75, 2000);
+        physics.setPeekHeight(300);
+        physics.setHideable(true);
+        physics.setAnchorThreshold(0.4f);
+
+        TouchTrace trace = new TouchTrace();
+        trace.begin(physics, SheetPhysics.STATE_COLLAPSED, 1900);
+        for (int i = 0; i < 300; i++) {
+            trace.appendEvent(5, 0, 1_000_000L + i * 8, 2);
+            trace.appendPointer(0, 10, 1900 - i, 10, 1950 - i);
+            trace.appendPointer(40, 20, 1800, 20, 1850);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        TouchTrace read = TouchTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(300, read.getEventCount());
+        assertEquals(SheetPhysics.STATE_COLLAPSED, read.getInitialState());
+        assertEquals(1900f, read.getInitialTop(), 0f);
+        assertEquals(1_000_000L + 299 * 8, read.getTime(299));
+        int pointer = read.getPointerStart(299);
+        assertEquals(2, read.getPointerCount(299));
+        assertEquals(1601f, read.getY(pointer), 0f);
+        assertEquals(1651f, read.getScreenY(pointer), 0f);
+        assertEquals(40, read.getPointerId(pointer + 1));
+
+        SheetPhysics replayed = new SheetPhysics(0, 75, 2000);
+        read.applyTo(replayed);
+        assertEquals(physics.getMaxOffset(), replayed.getMaxOffset());
+        assertEquals(physics.getAnchorOffset(), replayed.getAnchorOffset());
+        assertTrue(replayed.isHideable());
+    }
+
+    @Test
+    public void configuredSheet() throws IOException {
+        SheetPhysics physics = new SheetPhysics(2200, 75, 2000);
+        physics.setDetents(new float[]{1f, 0.75f, 0.5f, 0.25f, 0.1f}, SheetPhysics.UNIT_FRACTION);
+        physics.setAnchorDetent(3);
+        physics.setHideable(true);
+        physics.setHideDetent(40, SheetPhysics.UNIT_PIXELS);
+        physics.setDeceleration(3000);
+        SheetSavedState config = new SheetSavedState();
+        config.capture(physics, SheetPhysics.STATE_ANCHOR, physics.detentOffset(3));
+        config.setSettleMode(SheetMotion.MODE_FLING);
+        config.setMovementMode(1);
+        config.setSpringStiffness(25);
+        config.setFlingFriction(3);
+
+        TouchTrace trace = new TouchTrace();
+        trace.begin(config, 1080);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        TouchTrace read = TouchTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(1080, read.getWidth());
+        assertEquals(2200, read.getParentHeight());
+        assertEquals(SheetPhysics.STATE_ANCHOR, read.getInitialState());
+        assertEquals(SheetMotion.MODE_FLING, read.getConfig().getSettleMode());
+        assertEquals(1, read.getConfig().getMovementMode());
+        assertEquals(25f, read.getConfig().getSpringStiffness(), 0f);
+        assertEquals(3f, read.getConfig().getFlingFriction(), 0f);
+
+        SheetPhysics replayed = new SheetPhysics(0, 75, 2000);
+        read.applyTo(replayed);
+        assertEquals(5, replayed.getDetentCount());
+        assertEquals(physics.getAnchorOffset(), replayed.getAnchorOffset());
+        assertEquals(physics.getHideOffset(), replayed.getHideOffset());
+        assertEquals(3000f, replayed.getDeceleration(), 0f);
+    }
+
+    @Test
+    public void rejectsVersionOne() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(0x41535452);
+        data.writeShort(1);
+        data.write(new byte[64]);
+        try {
+            TouchTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+            fail("read a version 1 trace");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("version 1"));
+        }
+    }
+}
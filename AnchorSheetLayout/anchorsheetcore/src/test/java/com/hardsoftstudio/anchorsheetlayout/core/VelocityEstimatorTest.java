@@ -0,0 +1,42 @@
+package com.hardsoftstudio.anchorsheetlayout.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VelocityEstimatorTest {
+
+    @Test
+    public void constantMotion() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        for (int i = 0; i < 30; i++) {
+            estimator.addSample(i * 8, 100 + i * 4, 1700 - i * 12);
+            if (i > 0) {
+                assertEquals(500f, estimator.getXVelocity(), 0.5f);
+                assertEquals(-1500f, estimator.getYVelocity(), 0.5f);
+            }
+        }
+    }
+
+    @Test
+    public void pauseMeansStopped() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        for (int i = 0; i < 10; i++) {
+            estimator.addSample(i * 8, 0, 1700 - i * 12);
+        }
+        estimator.addSample(72 + VelocityEstimator.ASSUME_STOPPED_MILLIS + 1, 0, 1592);
+        assertEquals(0f, estimator.getYVelocity(), 0f);
+    }
+
+    @Test
+    public void clearIsReusable() {
+        VelocityEstimator estimator = new VelocityEstimator();
+        estimator.addSample(0, 0, 0);
+        estimator.addSample(10, 0, 100);
+        estimator.clear();
+        assertEquals(0f, estimator.getYVelocity(), 0f);
+        estimator.addSample(1000, 0, 0);
+        estimator.addSample(1010, 0, -50);
+        assertEquals(-5000f, estimator.getYVelocity(), 0.5f);
+    }
+}
@@ -0,0 +1,138 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.components.AttrSet;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+
+/**
+ * Stacks several {@link AnchorSheetLayout}s over the same content, e.g. results, details and
+ * filters over a map.
+ *
+ * <p>Every child must be an {@link AnchorSheetLayout}; later children are on top. The sheets share
+ * one {@link DragHelper}, and with it one pointer table and one velocity estimate. A gesture goes
+ * to the topmost sheet whose visible part is under its first pointer, found through
+ * {@link DragHelper#findTopChildUnder(int, int)}; the sheets below never see its events. A
+ * gesture that starts outside every sheet is not consumed.</p>
+ */
+public class AnchorSheetHost extends ComponentContainer {
+
+    private final DragHelper mDragHelper;
+
+    /**
+     * Hit tests the sheets for {@link DragHelper#findTopChildUnder(int, int)}; the helper is
+     * pointed back at it at the start of every gesture.
+     */
+    private final DragHelper.Callback mHitTestCallback = new DragHelper.Callback() {
+        @Override
+        public boolean tryCaptureView(Component child, int pointerId) {
+            return false;
+        }
+
+        @Override
+        public boolean isChildUnder(Component child, int x, int y) {
+            return ((AnchorSheetLayout) child).isSheetUnder(x, y);
+        }
+    };
+
+    /**
+     * The sheet handling the current gesture, or {@code null}.
+     */
+    private AnchorSheetLayout mActiveSheet;
+
+    /**
+     * Constructor
+     *
+     * @param context The {@link Context}.
+     * @param attrs   The {@link AttrSet}.
+     */
+    public AnchorSheetHost(Context context, AttrSet attrs) {
+        super(context, attrs);
+        mDragHelper = DragHelper.create(this, mHitTestCallback);
+        setTouchEventListener((component, event) -> onHostTouchEvent(event));
+    }
+
+    /**
+     * Adds a sheet on top of the others.
+     *
+     * @param comChild An {@link AnchorSheetLayout}
+     */
+    @Override
+    public void addComponent(Component comChild) {
+        if (!(comChild instanceof AnchorSheetLayout)) {
+            throw new IllegalArgumentException("Children of an AnchorSheetHost must be AnchorSheetLayouts");
+        }
+        super.addComponent(comChild);
+        ((AnchorSheetLayout) comChild).attachToHost(mDragHelper);
+    }
+
+    @Override
+    public void removeComponent(Component comChild) {
+        if (comChild.getComponentParent() != this) {
+            return;
+        }
+        releaseIfActive(comChild);
+        super.removeComponent(comChild);
+        ((AnchorSheetLayout) comChild).detachFromHost();
+    }
+
+    @Override
+    public void removeAllComponents() {
+        int childCount = getChildCount();
+        AnchorSheetLayout[] sheets = new AnchorSheetLayout[childCount];
+        for (int i = 0; i < childCount; i++) {
+            sheets[i] = (AnchorSheetLayout) getComponentAt(i);
+            releaseIfActive(sheets[i]);
+        }
+        super.removeAllComponents();
+        for (AnchorSheetLayout sheet : sheets) {
+            sheet.detachFromHost();
+        }
+    }
+
+    /**
+     * @return The sheet handling the current gesture, or {@code null} between gestures.
+     */
+    public AnchorSheetLayout getActiveSheet() {
+        return mActiveSheet;
+    }
+
+    /**
+     * @param x X in the coordinates of the host
+     * @param y Y in the coordinates of the host
+     * @return The topmost sheet whose visible part is under the point, or {@code null}.
+     */
+    private AnchorSheetLayout findSheetUnder(int x, int y) {
+        mDragHelper.setTarget(this, mHitTestCallback);
+        return (AnchorSheetLayout) mDragHelper.findTopChildUnder(x, y);
+    }
+
+    private boolean onHostTouchEvent(TouchEvent event) {
+        int action = event.getAction();
+        if (action == TouchEvent.PRIMARY_POINT_DOWN) {
+            mActiveSheet = findSheetUnder((int) AnchorSheetLayout.getTouchX(event, 0),
+                    (int) AnchorSheetLayout.getTouchY(event, 0));
+        }
+        AnchorSheetLayout sheet = mActiveSheet;
+        if (sheet == null) {
+            return false;
+        }
+        if (action == TouchEvent.PRIMARY_POINT_UP || action == TouchEvent.CANCEL) {
+            mActiveSheet = null;
+        }
+        return sheet.onHostedTouchEvent(event);
+    }
+
+    /**
+     * Ends the gesture of a sheet that is being removed: the sheet aborts it while it is still
+     * the target of the helper and comes to rest, then the helper is pointed back at the host.
+     */
+    private void releaseIfActive(Component sheet) {
+        if (sheet == mActiveSheet) {
+            mActiveSheet = null;
+            ((AnchorSheetLayout) sheet).abortHostedGesture();
+            mDragHelper.setTarget(this, mHitTestCallback);
+        }
+    }
+}
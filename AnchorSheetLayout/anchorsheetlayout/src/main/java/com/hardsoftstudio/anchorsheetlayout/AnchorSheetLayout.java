@@ -1,18 +1,20 @@
 package com.hardsoftstudio.anchorsheetlayout;
 
-import ohos.agp.animation.Animator;
-import ohos.agp.animation.AnimatorValue;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetMetrics;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetMotion;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetPhysics;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetSavedState;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetTrace;
 import ohos.agp.components.*;
+import ohos.agp.window.service.DisplayManager;
 import ohos.app.Context;
-import ohos.hiviewdfx.HiLog;
-import ohos.hiviewdfx.HiLogLabel;
+import ohos.miscservices.timeutility.Time;
 import ohos.multimodalinput.event.TouchEvent;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class AnchorSheetLayout extends ComponentContainer
 {
@@ -40,9 +42,89 @@ public class AnchorSheetLayout extends ComponentContainer
          *                    between hidden and collapsed states.
          */
         public abstract void onSlide(Component bottomSheet, float slideOffset);
+
+        /**
+         * Called once at the end of every settle animation, after the terminal
+         * {@link #onStateChanged(Component, int)} if the settle completed.
+         *
+         * @param bottomSheet The bottom sheet view.
+         * @param targetState The state the settle was heading to.
+         * @param outcome     One of {@link #SETTLE_COMPLETED}, {@link #SETTLE_SUPERSEDED} or
+         *                    {@link #SETTLE_CANCELLED}.
+         */
+        public void onSettleEnded(Component bottomSheet, @State int targetState, @SettleOutcome int outcome) {
+        }
+
+        /**
+         * Called once a state saved through {@link #saveState()} was restored and the sheet placed
+         * at it, instead of any state change or slide offset.
+         *
+         * @param bottomSheet The bottom sheet view.
+         * @param state       The restored state.
+         */
+        public void onStateRestored(Component bottomSheet, @State int state) {
+        }
+
+        /**
+         * How {@link #onSlide(Component, float)} is delivered to this callback. Override and
+         * return {@link #SLIDE_DISPATCH_PER_FRAME} to receive at most one, always the latest,
+         * slide offset per display frame. State changes are delivered immediately either way,
+         * after any pending slide offset. Read once, when the callback is added.
+         *
+         * @return {@link #SLIDE_DISPATCH_EVERY_UPDATE} by default.
+         */
+        @SlideDispatch
+        public int getSlideDispatchMode() {
+            return SLIDE_DISPATCH_EVERY_UPDATE;
+        }
+    }
+
+    /**
+     * Creates content of a sheet on demand, see {@link #setContentFactory(ContentFactory)} and
+     * {@link #setContentTiers(ContentFactory, ContentFactory, ContentFactory)}.
+     */
+    public interface ContentFactory {
+        /**
+         * Creates content for the sheet. Called at most once per factory, on the main thread.
+         *
+         * @param context The context of the sheet.
+         * @return The content, which the sheet attaches to its child.
+         */
+        Component createContent(Context context);
     }
 
-    private static final HiLogLabel LABEL = new HiLogLabel(HiLog.LOG_APP, 0x00201, "MY_TAG");
+    /**
+     * Listener for the part of the sheet's content that is on screen, see
+     * {@link #addViewportListener(ViewportListener)}.
+     */
+    public interface ViewportListener {
+        /**
+         * Called when the visible part of the content changed. The content is always visible
+         * across its whole width.
+         *
+         * @param bottomSheet   The bottom sheet view.
+         * @param visibleTop    Top of the visible part, in the coordinates of the bottom sheet view.
+         * @param visibleBottom Bottom of the visible part, in the coordinates of the bottom sheet
+         *                      view; equal to {@code visibleTop} while nothing is visible.
+         */
+        void onViewportChanged(Component bottomSheet, int visibleTop, int visibleBottom);
+    }
+
+    /**
+     * Implemented by components inside a sheet that want to stop their work while the sheet is
+     * hidden, e.g. data subscriptions or animations.
+     */
+    public interface PausableContent {
+        /**
+         * Called once a hide settle completed. The content is not drawn until resumed.
+         */
+        void onSheetPaused();
+
+        /**
+         * Called right before the sheet starts to reveal itself again.
+         */
+        void onSheetResumed();
+    }
 
     /**
      * There can be only one child component
@@ -54,37 +136,37 @@ public class AnchorSheetLayout extends ComponentContainer
     /**
      * The bottom sheet is dragging.
      */
-    public static final int STATE_DRAGGING = 1;
+    public static final int STATE_DRAGGING = SheetPhysics.STATE_DRAGGING;
 
     /**
      * The bottom sheet is settling.
      */
-    public static final int STATE_SETTLING = 2;
+    public static final int STATE_SETTLING = SheetPhysics.STATE_SETTLING;
 
     /**
      * The bottom sheet is expanded.
      */
-    public static final int STATE_EXPANDED = 3;
+    public static final int STATE_EXPANDED = SheetPhysics.STATE_EXPANDED;
 
     /**
      * The bottom sheet is collapsed.
      */
-    public static final int STATE_COLLAPSED = 4;
+    public static final int STATE_COLLAPSED = SheetPhysics.STATE_COLLAPSED;
 
     /**
      * The bottom sheet is hidden.
      */
-    public static final int STATE_HIDDEN = 5;
+    public static final int STATE_HIDDEN = SheetPhysics.STATE_HIDDEN;
 
     /**
      * The bottom sheet is anchor.
      */
-    public static final int STATE_ANCHOR = 6;
+    public static final int STATE_ANCHOR = SheetPhysics.STATE_ANCHOR;
 
     /**
      * The bottom sheet is forced to be hidden programmatically.
      */
-    public static final int STATE_FORCE_HIDDEN = 7;
+    public static final int STATE_FORCE_HIDDEN = SheetPhysics.STATE_FORCE_HIDDEN;
 
     @IntDef({
             STATE_EXPANDED,
@@ -99,40 +181,300 @@ public class AnchorSheetLayout extends ComponentContainer
     public @interface State {
     }
 
-    private static final float HIDE_THRESHOLD = 0.25f;
+    /**
+     * Settle with a linear curve whose duration is derived from distance and release velocity.
+     */
+    public static final int SETTLE_MODE_LINEAR = 0;
+
+    /**
+     * Settle with a critically damped spring that starts from the release velocity.
+     */
+    public static final int SETTLE_MODE_SPRING = SheetMotion.MODE_SPRING;
+
+    /**
+     * Let the release velocity decay like a free fling, then finish with the spring.
+     */
+    public static final int SETTLE_MODE_FLING = SheetMotion.MODE_FLING;
+
+    @IntDef({
+            SETTLE_MODE_LINEAR,
+            SETTLE_MODE_SPRING,
+            SETTLE_MODE_FLING
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SettleMode {
+    }
+
+    /**
+     * The sheet moves by setting the content position of its child, which lays the child out
+     * again on every frame.
+     */
+    public static final int MOVEMENT_MODE_POSITION = 0;
+
+    /**
+     * The sheet moves by translating its child. The child is only laid out again when the sheet
+     * crosses a detent, so the content keeps its layout while it is dragged or settles between two.
+     */
+    public static final int MOVEMENT_MODE_TRANSLATION = 1;
+
+    @IntDef({
+            MOVEMENT_MODE_POSITION,
+            MOVEMENT_MODE_TRANSLATION
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface MovementMode {
+    }
+
+    /**
+     * The settle reached its target state.
+     */
+    public static final int SETTLE_COMPLETED = 0;
+
+    /**
+     * The settle was replaced by a settle towards another target before it completed.
+     */
+    public static final int SETTLE_SUPERSEDED = 1;
+
+    /**
+     * The settle was stopped before it completed, e.g. because the sheet was grabbed.
+     */
+    public static final int SETTLE_CANCELLED = 2;
+
+    @IntDef({
+            SETTLE_COMPLETED,
+            SETTLE_SUPERSEDED,
+            SETTLE_CANCELLED
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SettleOutcome {
+    }
+
+    /**
+     * {@link AnchorSheetCallback#onSlide(Component, float)} is called for every position update.
+     */
+    public static final int SLIDE_DISPATCH_EVERY_UPDATE = 0;
+
+    /**
+     * {@link AnchorSheetCallback#onSlide(Component, float)} is called at most once per display frame.
+     */
+    public static final int SLIDE_DISPATCH_PER_FRAME = 1;
+
+    @IntDef({
+            SLIDE_DISPATCH_EVERY_UPDATE,
+            SLIDE_DISPATCH_PER_FRAME
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SlideDispatch {
+    }
+
+    /**
+     * Content shown while the sheet is collapsed or hidden.
+     */
+    public static final int CONTENT_TIER_PEEK = 0;
+
+    /**
+     * Content shown while the sheet is between collapsed and anchored.
+     */
+    public static final int CONTENT_TIER_ANCHOR = 1;
+
+    /**
+     * Content shown while the sheet is above the anchor point.
+     */
+    public static final int CONTENT_TIER_FULL = 2;
+
+    @IntDef({
+            CONTENT_TIER_PEEK,
+            CONTENT_TIER_ANCHOR,
+            CONTENT_TIER_FULL
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface ContentTier {
+    }
+
+    /**
+     * Detent values are fractions 0..1 of the parent height left visible.
+     */
+    public static final int DETENT_UNIT_FRACTION = SheetPhysics.UNIT_FRACTION;
 
-    private static final float HIDE_FRICTION = 0.1f;
+    /**
+     * Detent values are heights in pixels left visible.
+     */
+    public static final int DETENT_UNIT_PIXELS = SheetPhysics.UNIT_PIXELS;
 
-    private static final float ANCHOR_THRESHOLD = 0.50f;
+    @IntDef({
+            DETENT_UNIT_FRACTION,
+            DETENT_UNIT_PIXELS
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface DetentUnit {
+    }
 
-    private float mAnchorThreshold = ANCHOR_THRESHOLD;
+    /**
+     * The callback is told about {@link #STATE_COLLAPSED}, {@link #STATE_ANCHOR},
+     * {@link #STATE_EXPANDED}, {@link #STATE_HIDDEN} and {@link #STATE_FORCE_HIDDEN}, and about
+     * the end of every settle.
+     */
+    public static final int INTEREST_TERMINAL_STATES = 1;
 
-    private int mPeekHeight;
+    /**
+     * The callback is told about {@link #STATE_DRAGGING} and {@link #STATE_SETTLING}.
+     */
+    public static final int INTEREST_TRANSIENT_STATES = 1 << 1;
 
-    private int mMinOffset;
+    /**
+     * The callback is told about slide offsets.
+     */
+    public static final int INTEREST_SLIDE = 1 << 2;
 
-    private int mMaxOffset;
+    /**
+     * The callback is told about every state.
+     */
+    public static final int INTEREST_ALL_STATES = INTEREST_TERMINAL_STATES | INTEREST_TRANSIENT_STATES;
 
-    private int mAnchorOffset;
+    /**
+     * The callback is told about everything.
+     */
+    public static final int INTEREST_ALL = INTEREST_ALL_STATES | INTEREST_SLIDE;
+
+    @IntDef(flag = true, value = {
+            INTEREST_TERMINAL_STATES,
+            INTEREST_TRANSIENT_STATES,
+            INTEREST_SLIDE,
+            INTEREST_ALL_STATES,
+            INTEREST_ALL
+    })
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Interest {
+    }
 
-    private boolean mHideable;
+    /**
+     * Upper bound for a physics based settle; whatever is left is snapped.
+     */
+    private static final int MAX_PHYSICS_SETTLE_DURATION = 2000;
 
-    private boolean mSkipCollapsed;
+    private static final long NO_EVENT_TIME = Long.MIN_VALUE;
 
     @State
     private int mState = STATE_COLLAPSED;
 
+    @SettleMode
+    private int mSettleMode = SETTLE_MODE_LINEAR;
+
+    @MovementMode
+    private int mMovementMode = MOVEMENT_MODE_POSITION;
+
+    /**
+     * Layout passes of the child since the last drag started.
+     */
+    private int mDragLayoutPasses;
+
+    private final SettleAnimator mSettleAnimator;
+
+    private final FrameCoalescer mSlideCoalescer;
+
+    /**
+     * The helper of the host while hosted, otherwise the sheet's own one, created lazily through
+     * {@link #dragHelper()}.
+     */
     private DragHelper mDragHelper;
 
-    private final int mParentHeight;
+    private DragHelper.Callback mDragCallback;
+
+    /**
+     * Whether an {@link AnchorSheetHost} owns the drag helper and routes the touches.
+     */
+    private boolean mHosted;
+
+    private final SheetPhysics mPhysics;
 
     private WeakReference<ComponentContainer> mViewRef;
 
+    private final CallbackRegistry mCallbacks = new CallbackRegistry();
+
+    /**
+     * The callback set through {@link #setAnchorSheetCallback(AnchorSheetCallback)}.
+     */
     private AnchorSheetCallback mCallback;
 
-    private VelocityDetector mVelocityTracker;
+    private final ScrollableIndex mScrollables = new ScrollableIndex();
+
+    /**
+     * Scrollable descendant under the pointer of the current gesture, or {@code null}.
+     */
+    private Component mNestedScrollTarget;
+
+    /**
+     * Whether the scroll target took part of the last drag delta.
+     */
+    private boolean mNestedScrolled;
+
+    private TouchTraceRecorder mTraceRecorder;
+
+    private SheetMetrics mMetrics;
+
+    private SheetTrace mSheetTrace;
+
+    private boolean mTouchResampling;
+
+    private boolean mInputCoalescing;
+
+    /**
+     * State passed to {@link #restoreState(SheetSavedState)} until the sheet is placed at it.
+     */
+    private SheetSavedState mPendingRestore;
+
+    private float mRefreshRate;
+
+    private long mSettleStartNanos;
+
+    private int mSettlePredictedMillis;
+
+    /**
+     * Time of the touch event being handled, or {@link #NO_EVENT_TIME}.
+     */
+    private long mEventTimeMillis = NO_EVENT_TIME;
+
+    /**
+     * Records the display frames of a drag while metrics are collected.
+     */
+    private final FrameTicker mDragFrameTicker = new FrameTicker(() -> {
+        if (mMetrics != null) {
+            mMetrics.recordFrame(System.nanoTime());
+        }
+    });
+
+    private boolean mGestureMovedSheet;
+
+    private boolean mGestureScrolledNested;
+
+    private ContentTiers mContentTiers;
+
+    /**
+     * Whether the content is culled because the sheet is hidden.
+     */
+    private boolean mContentPaused;
+
+    private ViewportListener[] mViewportListeners = new ViewportListener[0];
+
+    private int mVisibleTop;
+
+    private int mVisibleBottom;
+
+    /**
+     * Set when the content was replaced, so the next touch down looks for scrollables again.
+     */
+    private boolean mScrollablesStale;
+
+    /**
+     * Set by a layout pass, so the next touch down re-reads the bounds of the indexed
+     * scrollables.
+     */
+    private boolean mScrollablesMoved;
 
-    private final List<WeakReference<Component>> mChildrenList;
+    /**
+     * Listener set through {@link #setLayoutRefreshedListener(LayoutRefreshedListener)}.
+     */
+    private LayoutRefreshedListener mLayoutRefreshedListener;
 
     /**
      * Constructor
@@ -142,20 +484,144 @@ public class AnchorSheetLayout extends ComponentContainer
      */
     public AnchorSheetLayout(Context context, AttrSet attrs) {
         super(context, attrs);
-        this.mParentHeight = 1950;
-        this.mMinOffset = 0;
-        mAnchorOffset = (int) Math.max(mParentHeight * mAnchorThreshold, mMinOffset);
+        initDragCallback();
+        // The parent height is only known after the first layout pass, see onLayoutRefreshed()
+        mPhysics = new SheetPhysics(0, DragHelper.MIN_VELOCITY, DragHelper.MAX_VELOCITY);
         setPeekHeight(250);
         setHideable(true);
         setSkipCollapsed(false);
-        if (mDragHelper == null) {
-            initDragHelper();
+        mSettleAnimator = new SettleAnimator(new SettleAnimator.Listener() {
+            @Override
+            public void onSettleFrame(float top) {
+                ComponentContainer child = mViewRef != null ? mViewRef.get() : null;
+                if (child == null) {
+                    return;
+                }
+                moveSheet(child, top);
+                if (mMetrics != null) {
+                    mMetrics.recordFrame(System.nanoTime());
+                }
+                onSheetMoved((int) top);
+                dispatchOnSlide((int) top);
+                setStateInternal(STATE_SETTLING);
+            }
+
+            @Override
+            public void onSettleEnd(int targetState, float top, int outcome) {
+                ComponentContainer child = mViewRef != null ? mViewRef.get() : null;
+                if (child == null) {
+                    return;
+                }
+                if (outcome == SETTLE_COMPLETED) {
+                    moveSheet(child, top);
+                }
+                if (mSheetTrace != null) {
+                    mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_SETTLE_END, getSheetTop(), outcome, targetState);
+                }
+                onSheetMoved((int) getSheetTop());
+                if (outcome == SETTLE_COMPLETED) {
+                    if (mMetrics != null) {
+                        mMetrics.recordSettle(mSettlePredictedMillis, (System.nanoTime() - mSettleStartNanos) / 1_000_000);
+                    }
+                    dispatchOnSlide((int) top);
+                    setStateInternal(targetState);
+                    if (top >= mPhysics.getParentHeight()) {
+                        pauseContent();
+                    }
+                }
+                mCallbacks.dispatchSettleEnded(child, targetState, outcome);
+            }
+        });
+        mSlideCoalescer = new FrameCoalescer(slideOffset -> {
+            Component bottomSheet = mViewRef != null ? mViewRef.get() : null;
+            if (bottomSheet != null) {
+                mCallbacks.dispatchSlide(bottomSheet, slideOffset, true);
+            }
+        });
+        super.setLayoutRefreshedListener(component -> onLayoutRefreshed());
+    }
+
+    /**
+     * Sets a listener for the layout passes of the sheet. The sheet measures itself in its own
+     * layout pass, so the listener does not replace that: it is called after the sheet picked up
+     * its new size and offsets.
+     *
+     * @param listener The listener, or {@code null}.
+     */
+    @Override
+    public void setLayoutRefreshedListener(LayoutRefreshedListener listener) {
+        mLayoutRefreshedListener = listener;
+    }
+
+    /**
+     * Picks up the measured size after every layout pass. The offset table is only rebuilt when
+     * the size actually changed (first layout, rotation, fold/unfold, window resize), in which
+     * case a resting sheet is moved to the new offset of its state.
+     */
+    private void onLayoutRefreshed() {
+        if (mPhysics.setSize(getWidth(), getHeight()) && mChild != null) {
+            if (mState == STATE_DRAGGING || mState == STATE_SETTLING) {
+                moveSheet(mChild, mPhysics.clampTop((int) getSheetTop()));
+            } else {
+                placeChild();
+            }
+        }
+        // A layout pass of the content lays out the sheet too. Moving the sheet leaves the
+        // scrollables where they are in the content, so their bounds wait for the next down.
+        mScrollablesMoved = true;
+        updateViewport((int) getSheetTop());
+        if (mLayoutRefreshedListener != null) {
+            mLayoutRefreshedListener.onRefreshed(this);
+        }
+    }
+
+    /**
+     * Moves the child to the resting offset of the current state.
+     */
+    private void placeChild() {
+        switch (mState){
+            case STATE_EXPANDED:
+            case STATE_COLLAPSED:
+            case STATE_ANCHOR:
+                resumeContent();
+                moveSheet(this.mChild, restingTop(mPhysics.panelOffset(mState)));
+                break;
+            case STATE_FORCE_HIDDEN:
+            case STATE_HIDDEN:
+                int hiddenTop = mPhysics.offsetForState(mState);
+                moveSheet(this.mChild, restingTop(hiddenTop != SheetPhysics.NO_OFFSET ? hiddenTop : mPhysics.getParentHeight()));
+                if (getSheetTop() >= mPhysics.getParentHeight()) {
+                    pauseContent();
+                } else {
+                    resumeContent();
+                }
+                break;
+            default:
+                break;
+        }
+        onSheetMoved((int) getSheetTop());
+        if (mPendingRestore != null) {
+            mPendingRestore = null;
+            mCallbacks.dispatchStateRestored(this.mChild, mState);
         }
-        mChildrenList = new ArrayList<>();
     }
 
-    private void initDragHelper(){
-        DragHelper.Callback mDragCallback = new DragHelper.Callback() {
+    /**
+     * @param stateTop Offset of the current state.
+     * @return The offset saved with a state being restored, as long as the parent kept its
+     * height, otherwise the offset of the state.
+     */
+    private float restingTop(int stateTop) {
+        SheetSavedState restore = mPendingRestore;
+        if (restore == null || Float.isNaN(restore.getTop())
+                || restore.getParentHeight() != mPhysics.getParentHeight()) {
+            return stateTop;
+        }
+        return mPhysics.clampTop((int) restore.getTop());
+    }
+
+    private void initDragCallback(){
+        mDragCallback = new DragHelper.Callback() {
             @Override
             public boolean tryCaptureView(Component child, int pointerId) {
                 if (mState == STATE_DRAGGING) {
@@ -166,287 +632,1094 @@ public class AnchorSheetLayout extends ComponentContainer
 
             @Override
             public void onViewPositionChanged(Component changedView, int left, int top, int dx, int dy) {
+                if (mMetrics != null) {
+                    // A coalesced move may be applied at a later frame or event than its own.
+                    long eventTimeMillis = dragHelper().isCoalescing()
+                            ? dragHelper().getCoalescedMoveTime() : mEventTimeMillis;
+                    if (eventTimeMillis != NO_EVENT_TIME) {
+                        // Both on the uptime clock of the touch events, in milliseconds.
+                        long latencyMillis = Time.getCurrentTime() - eventTimeMillis;
+                        if (latencyMillis >= 0) {
+                            mMetrics.recordTouchLatency(latencyMillis * 1000);
+                        }
+                    }
+                    mGestureMovedSheet = true;
+                }
+                if (mSheetTrace != null) {
+                    mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_MOVE, top, dy, mState);
+                }
+                onSheetMoved(top);
                 dispatchOnSlide(top);
             }
 
             @Override
             public void onViewDragStateChanged(int state) {
-                if (state == DragHelper.STATE_DRAGGING) {
+                if (state != DragHelper.STATE_DRAGGING) {
+                    mDragFrameTicker.stop();
+                } else {
+                    mDragLayoutPasses = 0;
+                    if (mMetrics != null) {
+                        mMetrics.beginFrames(SheetMetrics.PHASE_DRAG);
+                        mDragFrameTicker.start();
+                    }
+                    if (mSheetTrace != null) {
+                        mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_DRAG_START, getSheetTop(), 0, mState);
+                    }
                     setStateInternal(STATE_DRAGGING);
                 }
             }
 
             @Override
             public void onViewReleased(Component releasedChild, float xvel, float yvel, float dx, float dy) {
-                int currentTop = (int) releasedChild.getContentPositionY();
-                HiLog.info(LABEL, String.valueOf(dy));
-                HiLog.info(LABEL, String.valueOf(yvel));
-                @State int targetState;
-                if (dy < 0) { // moving up
-                    if (yvel == 0.f) {
-                        if (Math.abs(currentTop - mMinOffset) < Math.abs(currentTop - mAnchorOffset)) {
-                            targetState = STATE_EXPANDED;
-                        } else if (Math.abs(currentTop - mAnchorOffset) < Math.abs(currentTop - mMaxOffset)) {
-                            targetState = STATE_ANCHOR;
-                        } else {
-                            targetState = STATE_COLLAPSED;
-                        }
-                    } else {
-                        if (currentTop < mAnchorOffset) {
-                            targetState = STATE_EXPANDED;
-                        } else {
-                            targetState = STATE_ANCHOR;
-                        }
+                int currentTop = (int) getSheetTop();
+                if (mSheetTrace != null) {
+                    mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_RELEASE, xvel, yvel, mState);
+                }
+                if (mNestedScrolled) {
+                    // The fling belongs to the content, the sheet just rests where it is.
+                    yvel = 0;
+                }
+                if (mPhysics.hasCustomDetents()) {
+                    int detent = mPhysics.resolveReleaseDetent(currentTop, yvel);
+                    if (mSheetTrace != null) {
+                        mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_TARGET,
+                                mPhysics.detentOffset(detent), 0, mPhysics.stateForDetent(detent));
                     }
-                } else if (dy > 0) {
-                    if (mHideable && shouldHide(releasedChild, yvel)) {
-                        targetState = STATE_HIDDEN;
-                    } else {
-                        targetState = STATE_COLLAPSED;
+                    if (mPhysics.stateForDetent(detent) != mState || mPhysics.detentOffset(detent) != currentTop) {
+                        startSettlingToDetent(releasedChild, detent, (int) yvel);
                     }
-                } else {
-                    targetState = mState;
+                    return;
+                }
+                @State int targetState = mPhysics.resolveReleaseState(currentTop, yvel, dy, mState);
+                if (mSheetTrace != null) {
+                    int targetTop = mPhysics.offsetForState(targetState);
+                    mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_TARGET,
+                            targetTop != SheetPhysics.NO_OFFSET ? targetTop : currentTop, 0, targetState);
                 }
                 if (targetState != mState) startSettlingAnimation(releasedChild, targetState, (int) yvel);
             }
 
-            @Override
-            public int clampViewPositionVertical(Component child, int top, int dy) {
+            @Override
+            public int clampViewPositionVertical(Component child, int top, int dy) {
+                return dispatchNestedDrag(top, dy);
+            }
+
+            @Override
+            public void moveViewVertical(Component child, int top) {
+                moveSheet(child, top);
+            }
+
+            @Override
+            public int clampViewPositionHorizontal(Component child, int left, int dx) {
+                return child.getLeft();
+            }
+
+            @Override
+            public int getViewVerticalDragRange(Component child) {
+                return mPhysics.verticalDragRange();
+            }
+        };
+    }
+
+    /**
+     * @return The helper of the host the sheet belongs to, otherwise the sheet's own one, which
+     * is only created once it is needed.
+     */
+    private DragHelper dragHelper() {
+        if (mDragHelper == null) {
+            mDragHelper = DragHelper.create(this, mDragCallback);
+        }
+        return mDragHelper;
+    }
+
+    /**
+     * Called When parent is trying to lay out the child
+     *
+     * @param comChild One and Only Child
+     */
+    @Override
+    public void addComponent(Component comChild) {
+        if (getChildCount() > 0) {
+            throw new IllegalArgumentException("You may not declare more then one child, stack sheets in an AnchorSheetHost instead");
+        }
+        super.addComponent(comChild);
+        this.mChild = (ComponentContainer) comChild;
+        if (mPhysics.isMeasured()) {
+            placeChild();
+        }
+        if (!mHosted) {
+            initTouchEventListener();
+        }
+        mViewRef = new WeakReference<>(this.mChild);
+        mChild.setBindStateChangedListener(new BindStateChangedListener() {
+            @Override
+            public void onComponentBoundToWindow(Component component) {
+                mScrollables.clear();
+                findScrollingChild(mChild);
+                DisplayManager.getInstance().getDefaultDisplay(getContext())
+                        .ifPresent(display -> {
+                            mRefreshRate = display.getRefreshRate();
+                            if (mMetrics != null) {
+                                mMetrics.setRefreshRate(mRefreshRate);
+                            }
+                        });
+            }
+
+            @Override
+            public void onComponentUnboundFromWindow(Component component) {
+                mScrollables.clear();
+            }
+        });
+    }
+
+    private void initTouchEventListener(){
+        TouchEventListener touchEventListener = (component, event) -> onSheetTouchEvent(event, 0, 0);
+        this.mChild.setTouchEventListener(touchEventListener);
+    }
+
+    /**
+     * Handles a touch event of the child.
+     *
+     * @param offsetX added to the x of the event to get the x in the coordinates of the child
+     * @param offsetY added to the y of the event to get the y in the coordinates of the child
+     * @return Whether the event was consumed
+     */
+    private boolean onSheetTouchEvent(TouchEvent event, float offsetX, float offsetY) {
+        if (mTraceRecorder != null) {
+            mTraceRecorder.record(event);
+        }
+        int action = event.getAction();
+        if (action == TouchEvent.PRIMARY_POINT_DOWN) {
+            // Grab a settling sheet where it is; the drag continues from that position.
+            cancelSettling();
+            mNestedScrollTarget = findScrollTarget(getTouchX(event, 0) + offsetX,
+                    getTouchY(event, 0) + offsetY);
+            mNestedScrolled = false;
+            mGestureMovedSheet = false;
+            mGestureScrolledNested = false;
+            // The helper may be shared with other sheets of a host.
+            dragHelper().setResampling(mTouchResampling);
+            dragHelper().setCoalescing(mInputCoalescing);
+            dragHelper().setRefreshRate(mRefreshRate);
+        }
+        if (mMetrics != null) {
+            mEventTimeMillis = event.getOccurredTime();
+        }
+        dragHelper().captureChildView(mChild,event.getPointerId(event.getIndex()));
+        dragHelper().processTouchEvent(event);
+        mEventTimeMillis = NO_EVENT_TIME;
+        if (action == TouchEvent.PRIMARY_POINT_UP || action == TouchEvent.CANCEL) {
+            if (mMetrics != null) {
+                mMetrics.recordGesture(mGestureMovedSheet, mGestureScrolledNested);
+            }
+            mNestedScrollTarget = null;
+            mNestedScrolled = false;
+        }
+        return true;
+    }
+
+    /**
+     * Handles a touch event routed by the {@link AnchorSheetHost} this sheet belongs to, in the
+     * coordinates of the host.
+     *
+     * @return Whether the event was consumed
+     */
+    boolean onHostedTouchEvent(TouchEvent event) {
+        if (mChild == null) {
+            return false;
+        }
+        mDragHelper.setTarget(this, mDragCallback);
+        return onSheetTouchEvent(event, -(getContentPositionX() + mChild.getContentPositionX()),
+                -(getContentPositionY() + getSheetTop()));
+    }
+
+    /**
+     * Ends the gesture routed by the host while the shared helper still targets this sheet, for
+     * a sheet being removed from its host. The gesture is not released, so nothing settles; a
+     * dragged sheet is put straight at the resting state nearest to where it was left.
+     */
+    void abortHostedGesture() {
+        mDragHelper.setTarget(this, mDragCallback);
+        mDragHelper.abort();
+        mNestedScrollTarget = null;
+        mNestedScrolled = false;
+        if (mState != STATE_DRAGGING) {
+            return;
+        }
+        int top = (int) getSheetTop();
+        int state;
+        if (mPhysics.hasCustomDetents()) {
+            int detent = mPhysics.findNearestDetent(top);
+            state = mPhysics.stateForDetent(detent);
+            if (state == STATE_ANCHOR) {
+                mPhysics.setAnchorDetent(detent);
+            }
+        } else {
+            state = mPhysics.nearestRestingState(top);
+        }
+        setStateInternal(state);
+        if (mChild != null && mPhysics.isMeasured()) {
+            placeChild();
+        }
+    }
+
+    /**
+     * Hands touch handling over to a host: the sheet drops its own drag helper, uses the shared
+     * one and stops listening to the touches of its child.
+     *
+     * @param dragHelper the helper of the host
+     */
+    void attachToHost(DragHelper dragHelper) {
+        mHosted = true;
+        mDragHelper = dragHelper;
+        if (mChild != null) {
+            mChild.setTouchEventListener(null);
+        }
+    }
+
+    /**
+     * Takes touch handling back after the sheet was removed from its host.
+     */
+    void detachFromHost() {
+        mHosted = false;
+        // Created again on the next touch.
+        mDragHelper = null;
+        if (mChild != null) {
+            initTouchEventListener();
+        }
+    }
+
+    /**
+     * @param x X in the coordinates of the parent
+     * @param y Y in the coordinates of the parent
+     * @return Whether the visible part of the sheet is under the point
+     */
+    boolean isSheetUnder(int x, int y) {
+        if (mChild == null || mContentPaused) {
+            return false;
+        }
+        float left = getContentPositionX() + mChild.getContentPositionX();
+        float top = getContentPositionY() + getSheetTop();
+        return x >= left && x < left + mChild.getWidth()
+                && y >= top && y < Math.min(top + mChild.getHeight(), getContentPositionY() + getHeight());
+    }
+
+    /**
+     * Finds the scrollable descendant under a point.
+     *
+     * @param x X in the coordinates of the child
+     * @param y Y in the coordinates of the child
+     * @return The scrollable component, or {@code null}.
+     */
+    private Component findScrollTarget(float x, float y) {
+        if (mScrollablesStale) {
+            mScrollablesStale = false;
+            mScrollables.clear();
+            findScrollingChild(mChild);
+        } else if (mScrollablesMoved) {
+            mScrollables.refresh(mChild);
+        }
+        mScrollablesMoved = false;
+        return mScrollables.find(x, y);
+    }
+
+    /**
+     * Makes the sheet hand drags over to a scrollable component added to its content after the
+     * sheet was attached. Scrollables present when the sheet is attached, or when content tiers
+     * are swapped, are found on their own; the Java UI reports no added components, so others
+     * have to be registered here.
+     *
+     * @param component A scrollable descendant of the sheet's child.
+     */
+    public void addScrollingChild(Component component) {
+        if (mChild != null) {
+            mScrollables.add(component, mChild);
+        }
+    }
+
+    /**
+     * Stops handing drags over to a scrollable component. Components removed from the content
+     * are dropped on their own at the next touch down.
+     *
+     * @param component A component passed to {@link #addScrollingChild(Component)} or found
+     *                  when the sheet was attached.
+     */
+    public void removeScrollingChild(Component component) {
+        mScrollables.remove(component);
+    }
+
+    /**
+     * Splits a vertical drag between the sheet and the scroll target of the gesture, so a single
+     * gesture can move both. Dragging down, the target scrolls back to its start first and the
+     * sheet takes the rest; dragging up, the sheet moves up to its limit first and the target
+     * scrolls with the rest.
+     *
+     * @param top Offset the drag would move the sheet to.
+     * @param dy  Drag delta.
+     * @return The offset to move the sheet to.
+     */
+    private int dispatchNestedDrag(int top, int dy) {
+        Component target = mNestedScrollTarget;
+        if (target == null) {
+            return mPhysics.clampTop(top);
+        }
+        int consumed = 0;
+        if (dy > 0 && target.canScroll(DRAG_DOWN)) {
+            consumed = Math.min(dy, target.getScrollValue(AXIS_Y));
+            target.scrollBy(0, -consumed);
+        }
+        int wanted = top - consumed;
+        int clamped = mPhysics.clampTop(wanted);
+        int overflow = wanted - clamped;
+        if (overflow < 0 && target.canScroll(DRAG_UP)) {
+            target.scrollBy(0, -overflow);
+            consumed += overflow;
+        }
+        mNestedScrolled = consumed != 0;
+        if (mNestedScrolled && mMetrics != null) {
+            mGestureScrolledNested = true;
+        }
+        return clamped;
+    }
+
+    /**
+     * Stores references of all the scrollable components present in the child
+     *
+     * @param component One and Only Child
+     */
+    private void findScrollingChild(Component component) {
+        if (component.canScroll(DRAG_DOWN) || component.canScroll(DRAG_UP)) {
+            mScrollables.add(component, mChild);
+            return;
+        }
+        if (component instanceof ComponentContainer) {
+            ComponentContainer group = (ComponentContainer) component;
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                Component scrollingChild = group.getComponentAt(i);
+                findScrollingChild(scrollingChild);
+            }
+        }
+    }
+
+    /**
+     * Sets the height of the bottom sheet when it is collapsed.
+     *
+     * @param peekHeight The height of the collapsed bottom sheet in pixels.
+     */
+    public final void setPeekHeight(int peekHeight) {
+        mPhysics.setPeekHeight(peekHeight);
+    }
+
+    /**
+     * Gets the height of the bottom sheet when it is collapsed.
+     *
+     * @return The height of the collapsed bottom sheet in pixels.
+     */
+    public final int getPeekHeight() {
+        return mPhysics.getPeekHeight();
+    }
+
+    /**
+     * Gets the offset from the panel till the top
+     *
+     * @return the offset in pixel size
+     */
+    public final int getPanelOffset() {
+        return mPhysics.panelOffset(mState);
+    }
+
+    public int getMinOffset() {
+        return mPhysics.getMinOffset();
+    }
+
+    public void setMinOffset(int mMinOffset) {
+        mPhysics.setMinOffset(mMinOffset);
+    }
+
+    /**
+     * Get the size in pixels from the anchor state to the top of the parent (Expanded state)
+     *
+     * @return pixel size of the anchor state; the expanded offset if only two detents are set
+     */
+    public int getAnchorOffset() {
+        return mPhysics.hasAnchor() ? mPhysics.getAnchorOffset() : mPhysics.getMinOffset();
+    }
+
+    /**
+     * The multiplier between 0..1 to calculate the Anchor offset
+     *
+     * @return float between 0..1
+     */
+    public float getAnchorThreshold() {
+        return mPhysics.getAnchorThreshold();
+    }
+
+    /**
+     * Set the offset for the anchor state. Number between 0..1
+     * i.e: Anchor the panel at 1/3 of the screen: setAnchorOffset(0.25)
+     *
+     * @param threshold {@link Float} from 0..1
+     */
+    public void setAnchorOffset(float threshold) {
+        mPhysics.setAnchorThreshold(threshold);
+    }
+
+    /**
+     * Replaces the expanded, anchor and collapsed detents with any number of stops, e.g.
+     * {@code setDetents(new float[]{1f, 0.75f, 0.5f, 0.25f, 0.1f}, DETENT_UNIT_FRACTION)}. The
+     * highest stop is the expanded state, the lowest the collapsed state, and the sheet rests at
+     * any stop in between as {@link #STATE_ANCHOR}. A released sheet snaps to the stop nearest to
+     * where its velocity would carry it.
+     *
+     * @param values Heights left visible at each stop, in any order, at least two; {@code null}
+     *               restores the default detents.
+     * @param unit   Unit of the values.
+     */
+    public void setDetents(float[] values, @DetentUnit int unit) {
+        mPhysics.setDetents(values, unit);
+    }
+
+    /**
+     * @return The number of detents, not counting the hide detent.
+     */
+    public int getDetentCount() {
+        return mPhysics.getDetentCount();
+    }
+
+    /**
+     * Animates the sheet to a detent.
+     *
+     * @param index Index of the detent from the top; {@link #getDetentCount()} hides the sheet.
+     */
+    public void setDetent(int index) {
+        if (index < 0 || index > getDetentCount() || (index == getDetentCount() && !isHideable())) {
+            throw new IllegalArgumentException("Illegal detent: " + index);
+        }
+        ComponentContainer child = mViewRef != null ? mViewRef.get() : null;
+        if (child == null || !mPhysics.isMeasured()) {
+            if (mPhysics.stateForDetent(index) == STATE_ANCHOR) {
+                mPhysics.setAnchorDetent(index);
+            }
+            setState(mPhysics.stateForDetent(index));
+            return;
+        }
+        startSettlingToDetent(child, index, 0);
+    }
+
+    /**
+     * Sets the height left visible while the sheet is hidden, 0 by default.
+     *
+     * @param value Visible height.
+     * @param unit  Unit of the value.
+     */
+    public void setHideDetent(float value, @DetentUnit int unit) {
+        mPhysics.setHideDetent(value, unit);
+    }
+
+    /**
+     * Sets the deceleration used to project where a released sheet would come to rest when
+     * picking among the detents set through {@link #setDetents(float[], int)}. Lower values let
+     * a fling travel across more detents.
+     *
+     * @param deceleration Deceleration in pixels per second squared.
+     */
+    public void setSnapDeceleration(float deceleration) {
+        mPhysics.setDeceleration(deceleration);
+    }
+
+    /**
+     * Sets whether this bottom sheet can hide when it is swiped down.
+     *
+     * @param hideable {@code true} to make this bottom sheet hideable.
+     */
+    public void setHideable(boolean hideable) {
+        mPhysics.setHideable(hideable);
+    }
+
+    /**
+     * Gets whether this bottom sheet can hide when it is swiped down.
+     *
+     * @return {@code true} if this bottom sheet can hide.
+     */
+    public boolean isHideable() {
+        return mPhysics.isHideable();
+    }
+
+    /**
+     * Sets whether this bottom sheet should skip the collapsed state when it is being hidden
+     * after it is expanded once. Setting this to true has no effect unless the sheet is hideable.
+     *
+     * @param skipCollapsed True if the bottom sheet should skip the collapsed state.
+     */
+    public void setSkipCollapsed(boolean skipCollapsed) {
+        mPhysics.setSkipCollapsed(skipCollapsed);
+    }
+
+    /**
+     * Sets whether this bottom sheet should skip the collapsed state when it is being hidden
+     * after it is expanded once.
+     *
+     * @return Whether the bottom sheet should skip the collapsed state.
+     */
+    public boolean getSkipCollapsed() {
+        return mPhysics.getSkipCollapsed();
+    }
+
+    /**
+     * Sets a callback to be notified of bottom sheet events, replacing the callback previously set
+     * through this method. Callbacks added through {@link #addAnchorSheetCallback} are kept.
+     *
+     * @param callback The callback to notify when bottom sheet events occur.
+     */
+    public void setAnchorSheetCallback(AnchorSheetCallback callback) {
+        if (mCallback != null) {
+            removeAnchorSheetCallback(mCallback);
+        }
+        mCallback = callback;
+        if (callback != null) {
+            addAnchorSheetCallback(callback);
+        }
+    }
+
+    /**
+     * Adds a callback to be notified of every bottom sheet event.
+     *
+     * @param callback The callback to notify when bottom sheet events occur.
+     */
+    public void addAnchorSheetCallback(AnchorSheetCallback callback) {
+        addAnchorSheetCallback(callback, INTEREST_ALL);
+    }
+
+    /**
+     * Adds a callback to be notified of the given kinds of bottom sheet events only. Adding a
+     * callback that is already registered does nothing.
+     *
+     * @param callback The callback to notify when bottom sheet events occur.
+     * @param interest One or more of the {@code INTEREST_*} flags.
+     */
+    public void addAnchorSheetCallback(AnchorSheetCallback callback, @Interest int interest) {
+        addAnchorSheetCallback(callback, interest, -1f, 1f);
+    }
+
+    /**
+     * Adds a callback to be notified of the given kinds of bottom sheet events, and of slide
+     * offsets within {@code [minSlideOffset, maxSlideOffset]} only. The first offset outside the
+     * band is still delivered, so the callback always sees the sheet leave it.
+     *
+     * @param callback       The callback to notify when bottom sheet events occur.
+     * @param interest       One or more of the {@code INTEREST_*} flags.
+     * @param minSlideOffset Lower bound of the band, within [-1,1].
+     * @param maxSlideOffset Upper bound of the band, within [-1,1].
+     */
+    public void addAnchorSheetCallback(AnchorSheetCallback callback, @Interest int interest,
+                                       float minSlideOffset, float maxSlideOffset) {
+        mCallbacks.add(callback, interest, minSlideOffset, maxSlideOffset);
+    }
+
+    /**
+     * Removes a previously added callback.
+     *
+     * @param callback The callback to remove.
+     */
+    public void removeAnchorSheetCallback(AnchorSheetCallback callback) {
+        mCallbacks.remove(callback);
+        if (callback == mCallback) {
+            mCallback = null;
+        }
+        if (!mCallbacks.hasCoalescedSlide()) {
+            mSlideCoalescer.cancel();
+        }
+    }
+
+    /**
+     * Defers creating the content of the sheet until it is first needed: when the sheet heads
+     * for {@link #STATE_ANCHOR} or {@link #STATE_EXPANDED}, or is dragged up by more than the
+     * touch slop. Until then the child declared for the sheet is shown as a placeholder, so it
+     * should be light, e.g. just the peek header; its children are replaced by the created
+     * content. Same as {@code setContentTiers(null, null, factory)}.
+     *
+     * @param factory The factory, or {@code null} to stop deferring.
+     */
+    public void setContentFactory(ContentFactory factory) {
+        setContentTiers(null, null, factory);
+    }
+
+    /**
+     * Lets the sheet show content matching how much of it is visible. Each tier is created on
+     * first use and swapped into the sheet's child as the sheet moves between detents; only the
+     * visible tier is attached. A missing anchor or full tier falls back to the other one, and
+     * without a peek tier the sheet keeps showing whatever it showed last, starting with the
+     * child declared for it.
+     *
+     * @param peek   Content while collapsed or hidden, or {@code null}.
+     * @param anchor Content up to the anchor point, or {@code null}.
+     * @param full   Content above the anchor point, or {@code null}.
+     */
+    public void setContentTiers(ContentFactory peek, ContentFactory anchor, ContentFactory full) {
+        mContentTiers = peek == null && anchor == null && full == null ? null : new ContentTiers(peek, anchor, full);
+        if (mChild != null) {
+            updateContentTier((int) getSheetTop());
+        }
+    }
+
+    /**
+     * @return The content tier for the current offset of the sheet.
+     */
+    @ContentTier
+    public int getContentTier() {
+        return mContentTiers != null ? mContentTiers.getTier() : CONTENT_TIER_FULL;
+    }
 
-                return Math.min(mHideable ? mParentHeight : mMaxOffset, Math.max(mMinOffset, top));
-            }
+    /**
+     * @return Whether content from a {@link ContentFactory} replaced the child declared for the
+     * sheet; always {@code true} without factories.
+     */
+    public boolean isContentInflated() {
+        return mContentTiers == null || mContentTiers.getAttachedTier() >= 0;
+    }
 
-            @Override
-            public int clampViewPositionHorizontal(Component child, int left, int dx) {
-                return child.getLeft();
+    /**
+     * Adds a listener for the part of the content that is on screen. The listener is told the
+     * current part right away.
+     *
+     * @param listener The listener.
+     */
+    public void addViewportListener(ViewportListener listener) {
+        for (ViewportListener registered : mViewportListeners) {
+            if (registered == listener) {
+                return;
             }
+        }
+        ViewportListener[] listeners = Arrays.copyOf(mViewportListeners, mViewportListeners.length + 1);
+        listeners[mViewportListeners.length] = listener;
+        mViewportListeners = listeners;
+        if (mChild != null) {
+            listener.onViewportChanged(mChild, mVisibleTop, mVisibleBottom);
+        }
+    }
 
-            @Override
-            public int getViewVerticalDragRange(Component child) {
-                if (mHideable) {
-                    return mParentHeight - mMinOffset;
-                } else {
-                    return mMaxOffset - mMinOffset;
-                }
+    /**
+     * Removes a listener added with {@link #addViewportListener(ViewportListener)}.
+     *
+     * @param listener The listener.
+     */
+    public void removeViewportListener(ViewportListener listener) {
+        ViewportListener[] listeners = mViewportListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                ViewportListener[] copy = new ViewportListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+                mViewportListeners = copy;
+                return;
             }
-        };
-        mDragHelper = DragHelper.create(this, mDragCallback);
+        }
     }
 
     /**
-     * Called When parent is trying to lay out the child
+     * @return Top of the visible part of the content, in the coordinates of the bottom sheet view.
+     */
+    public int getVisibleTop() {
+        return mVisibleTop;
+    }
+
+    /**
+     * @return Bottom of the visible part of the content, in the coordinates of the bottom sheet
+     * view.
+     */
+    public int getVisibleBottom() {
+        return mVisibleBottom;
+    }
+
+    /**
+     * Brings everything that follows the offset of the sheet up to date.
      *
-     * @param comChild One and Only Child
+     * @param top Offset of the sheet.
      */
-    @Override
-    public void addComponent(Component comChild) {
-        if (getChildCount() > 0) {
-            throw new IllegalArgumentException("You may not declare more then one child");
-        }
-        super.addComponent(comChild);
-        this.mChild = (ComponentContainer) comChild;
+    private void onSheetMoved(int top) {
+        updateContentTier(top);
+        updateViewport(top);
+    }
 
-        switch (mState){
-            case STATE_EXPANDED:
-                this.mChild.setContentPositionY(mMinOffset);
-                break;
-            case STATE_COLLAPSED:
-                this.mChild.setContentPositionY(mMaxOffset);
-                break;
-            case STATE_ANCHOR:
-                this.mChild.setContentPositionY(mAnchorOffset);
-                break;
-            case STATE_HIDDEN:
-            case STATE_FORCE_HIDDEN:
-                this.mChild.setContentPositionY(mParentHeight);
-                break;
-            default:
-                break;
+    /**
+     * Recomputes the visible part of the content and tells the listeners if it changed.
+     *
+     * @param top Offset of the sheet.
+     */
+    private void updateViewport(int top) {
+        if (mChild == null || !mPhysics.isMeasured()) {
+            return;
         }
-        initTouchEventListener();
-        mViewRef = new WeakReference<>(this.mChild);
-        mChild.setBindStateChangedListener(new BindStateChangedListener() {
-            @Override
-            public void onComponentBoundToWindow(Component component) {
-                if(mChildrenList!=null) mChildrenList.clear();
-                findScrollingChild(mChild);
-            }
-
-            @Override
-            public void onComponentUnboundFromWindow(Component component) {
+        int visibleTop = Math.max(0, -top);
+        int visibleBottom = Math.max(visibleTop, Math.min(mChild.getHeight(), mPhysics.getParentHeight() - top));
+        if (visibleTop == mVisibleTop && visibleBottom == mVisibleBottom) {
+            return;
+        }
+        mVisibleTop = visibleTop;
+        mVisibleBottom = visibleBottom;
+        ViewportListener[] listeners = mViewportListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onViewportChanged(mChild, visibleTop, visibleBottom);
+        }
+    }
 
-            }
-        });
+    /**
+     * @return Whether the content is culled and paused because the sheet is hidden.
+     */
+    public boolean isContentPaused() {
+        return mContentPaused;
     }
 
-    private void initTouchEventListener(){
-        TouchEventListener touchEventListener = (component, event) -> {
-            int action = event.getAction();
-            if (action == TouchEvent.PRIMARY_POINT_DOWN) {
-                reset();
-                if(mState == STATE_EXPANDED){
-                    for (WeakReference<Component> componentWeakReference : mChildrenList) {
-                        float x = getTouchX(event,0);
-                        float y = getTouchY(event,0);
-                        Component mListView = componentWeakReference.get();
-                        float listX1 = mListView.getContentPositionX();
-                        float listX2 = mListView.getContentPositionX()+mListView.getWidth();
-                        float listY1 = mListView.getContentPositionY();
-                        float listY2 = mListView.getContentPositionY() + mListView.getHeight();
-                        if(listX1<= x && listX2>=x && listY1<=y && listY2 >= y && mListView.canScroll(DRAG_DOWN)) return true;
-                    }
-                }
-            }
-            if (mVelocityTracker == null) {
-                mVelocityTracker = VelocityDetector.obtainInstance();
-            }
-            mVelocityTracker.addEvent(event);
-            mDragHelper.captureChildView(mChild,event.getPointerId(event.getIndex()));
-            mDragHelper.processTouchEvent(event);
-            if(mDragHelper == null){
-                HiLog.info(LABEL,"null view drag");
-            }
-            return true;
-        };
-        this.mChild.setTouchEventListener(touchEventListener);
+    /**
+     * Stops drawing and laying out the content of a hidden sheet and tells its
+     * {@link PausableContent} descendants.
+     */
+    private void pauseContent() {
+        if (mContentPaused || mChild == null) {
+            return;
+        }
+        mContentPaused = true;
+        mChild.setVisibility(HIDE);
+        dispatchContentPaused(mChild, true);
     }
 
     /**
-     * Stores references of all the scrollable components present in the child
-     *
-     * @param component One and Only Child
+     * Undoes {@link #pauseContent()}.
      */
-    private void findScrollingChild(Component component) {
-        if (component.canScroll(DRAG_DOWN) || component.canScroll(DRAG_UP)) {
-            mChildrenList.add(new WeakReference<>(component));
+    private void resumeContent() {
+        if (!mContentPaused || mChild == null) {
             return;
         }
+        mContentPaused = false;
+        mChild.setVisibility(VISIBLE);
+        dispatchContentPaused(mChild, false);
+    }
+
+    private static void dispatchContentPaused(Component component, boolean paused) {
+        if (component instanceof PausableContent) {
+            if (paused) {
+                ((PausableContent) component).onSheetPaused();
+            } else {
+                ((PausableContent) component).onSheetResumed();
+            }
+        }
         if (component instanceof ComponentContainer) {
             ComponentContainer group = (ComponentContainer) component;
             for (int i = 0, count = group.getChildCount(); i < count; i++) {
-                Component scrollingChild = group.getComponentAt(i);
-                findScrollingChild(scrollingChild);
+                dispatchContentPaused(group.getComponentAt(i), paused);
             }
         }
     }
 
     /**
-     * Sets the height of the bottom sheet when it is collapsed.
+     * Swaps the content tier if the sheet moved across a detent. A running settle keeps at least
+     * the tier of its target, so the content is ready before the sheet gets there.
      *
-     * @param peekHeight The height of the collapsed bottom sheet in pixels.
+     * @param top Offset of the sheet.
      */
-    public final void setPeekHeight(int peekHeight) {
-        mPeekHeight = Math.max(0, peekHeight);
-        mMaxOffset = mParentHeight - peekHeight;
+    private void updateContentTier(int top) {
+        ContentTiers tiers = mContentTiers;
+        if (tiers == null || mChild == null || !mPhysics.isMeasured()) {
+            return;
+        }
+        int minTier = CONTENT_TIER_PEEK;
+        if (mSettleAnimator.isRunning()) {
+            int target = mSettleAnimator.getTargetState();
+            minTier = target == STATE_EXPANDED ? CONTENT_TIER_FULL
+                    : target == STATE_ANCHOR ? CONTENT_TIER_ANCHOR : CONTENT_TIER_PEEK;
+        }
+        int anchorTop = mPhysics.offsetForState(STATE_ANCHOR);
+        if (anchorTop == SheetPhysics.NO_OFFSET) {
+            // Two detents only; there is no anchor tier to go through.
+            anchorTop = mPhysics.offsetForState(STATE_EXPANDED);
+        }
+        tiers.update(top, mPhysics.offsetForState(STATE_COLLAPSED), anchorTop, DragHelper.TOUCH_SLOP, minTier);
+        if (tiers.apply(mChild, getContext())) {
+            mScrollablesStale = true;
+            mChild.postLayout();
+        }
     }
 
     /**
-     * Gets the height of the bottom sheet when it is collapsed.
+     * Starts recording every touch event reaching the sheet into the given recorder, replacing
+     * any previous recorder. Pass {@code null} to stop recording.
      *
-     * @return The height of the collapsed bottom sheet in pixels.
+     * @param recorder The recorder, or {@code null}.
      */
-    public final int getPeekHeight() {
-        return mPeekHeight;
+    public void setTouchTraceRecorder(TouchTraceRecorder recorder) {
+        mTraceRecorder = recorder;
+        if (recorder != null) {
+            recorder.begin(this);
+        }
     }
 
     /**
-     * Gets the offset from the panel till the top
+     * Starts collecting performance metrics into the given collector, replacing any previous
+     * one. Pass {@code null} to stop; without a collector nothing is measured.
      *
-     * @return the offset in pixel size
+     * <p>Frames are the display frames of drags and settles, taken from animator updates. Touch
+     * latency is measured from {@link TouchEvent#getOccurredTime()} to the sheet moving, both on
+     * the uptime clock of the touch events, so it has millisecond resolution.</p>
+     *
+     * @param metrics The collector, or {@code null}.
      */
-    public final int getPanelOffset() {
-        if (mState == STATE_EXPANDED) {
-            return mMinOffset;
-        } else if (mState == STATE_ANCHOR) {
-            return mAnchorOffset;
-        } else if (mHideable && mState == STATE_HIDDEN) {
-            return mParentHeight;
+    public void setMetrics(SheetMetrics metrics) {
+        mMetrics = metrics;
+        if (metrics != null) {
+            metrics.setRefreshRate(mRefreshRate);
+        } else {
+            mDragFrameTicker.stop();
         }
-        return mMaxOffset;
     }
 
-    public int getMinOffset() {
-        return mMinOffset;
+    /**
+     * @return The collector set through {@link #setMetrics(SheetMetrics)}, or {@code null}.
+     */
+    public SheetMetrics getMetrics() {
+        return mMetrics;
     }
 
-    public void setMinOffset(int mMinOffset) {
-        this.mMinOffset = mMinOffset;
+    /**
+     * Starts recording drags, releases and settles into the given trace, replacing any previous
+     * one. Pass {@code null} to stop; without a trace nothing is recorded. Export the trace with
+     * {@link SheetTrace#writeChromeTrace(java.io.OutputStream)}.
+     *
+     * @param trace The trace, or {@code null}.
+     */
+    public void setSheetTrace(SheetTrace trace) {
+        mSheetTrace = trace;
     }
 
     /**
-     * Get the size in pixels from the anchor state to the top of the parent (Expanded state)
+     * @return The trace set through {@link #setSheetTrace(SheetTrace)}, or {@code null}.
+     */
+    public SheetTrace getSheetTrace() {
+        return mSheetTrace;
+    }
+
+    SheetPhysics getPhysics() {
+        return mPhysics;
+    }
+
+    /**
+     * @return Current offset of the sheet from the top, or its resting offset if there is no child yet
+     */
+    float getSheetTop() {
+        ComponentContainer child = mViewRef != null ? mViewRef.get() : null;
+        return child != null ? child.getContentPositionY() + child.getTranslationY() : getPanelOffset();
+    }
+
+    /**
+     * Saves the state, offset and configuration of the sheet, e.g. from
+     * {@code AbilitySlice#onSaveAbilityState}, so that a recreated sheet can be put straight back
+     * through {@link #restoreState(SheetSavedState)}. A sheet being dragged or settling is saved
+     * at the state it is heading to.
      *
-     * @return pixel size of the anchor state
+     * @return The saved state; {@link SheetSavedState#toByteArray()} turns it into bytes to store.
      */
-    public int getAnchorOffset() {
-        return mAnchorOffset;
+    public SheetSavedState saveState() {
+        int state = mState;
+        int anchorDetent = -1;
+        boolean placed = mPhysics.isMeasured() && mViewRef != null && mViewRef.get() != null;
+        float top = placed ? getSheetTop() : Float.NaN;
+        if (state == STATE_SETTLING) {
+            state = mSettleAnimator.getTargetState();
+            top = Float.NaN;
+        } else if (state == STATE_DRAGGING) {
+            if (mPhysics.hasCustomDetents()) {
+                int detent = mPhysics.findNearestDetent((int) top);
+                state = mPhysics.stateForDetent(detent);
+                anchorDetent = state == STATE_ANCHOR ? detent : -1;
+            } else {
+                state = mPhysics.nearestRestingState((int) top);
+            }
+            top = Float.NaN;
+        }
+        SheetSavedState saved = new SheetSavedState();
+        saved.capture(mPhysics, state, top);
+        if (anchorDetent >= 0) {
+            saved.setAnchorDetent(anchorDetent);
+        }
+        saved.setSettleMode(mSettleMode);
+        saved.setMovementMode(mMovementMode);
+        saved.setSpringStiffness(mSettleAnimator.getMotion().getStiffness());
+        saved.setFlingFriction(mSettleAnimator.getMotion().getFriction());
+        saved.setTouchResampling(mTouchResampling);
+        saved.setInputCoalescing(mInputCoalescing);
+        return saved;
     }
 
     /**
-     * The multiplier between 0..1 to calculate the Anchor offset
+     * Puts the sheet back into a state saved through {@link #saveState()}, e.g. from
+     * {@code AbilitySlice#onRestoreAbilityState}. The configuration is applied and the sheet is
+     * placed straight at the saved offset, or at the offset of the saved state if the parent
+     * changed height since, without any animation. Callbacks get a single
+     * {@link AnchorSheetCallback#onStateRestored(Component, int)} once the sheet is placed,
+     * right away if it is laid out, otherwise after its first layout.
      *
-     * @return float between 0..1
+     * @param saved The saved state.
+     * @throws IllegalArgumentException if the saved state is not a resting state
      */
-    public float getAnchorThreshold() {
-        return mAnchorThreshold;
+    public void restoreState(SheetSavedState saved) {
+        if (!SheetPhysics.isRestingState(saved.getState())) {
+            throw new IllegalArgumentException("Illegal state argument: " + saved.getState());
+        }
+        cancelSettling();
+        saved.applyTo(mPhysics);
+        mSettleMode = saved.getSettleMode();
+        setMovementMode(saved.getMovementMode());
+        mSettleAnimator.getMotion().setStiffness(saved.getSpringStiffness());
+        mSettleAnimator.getMotion().setFriction(saved.getFlingFriction());
+        mTouchResampling = saved.isTouchResampling();
+        mInputCoalescing = saved.isInputCoalescing();
+        mState = saved.getState();
+        mPendingRestore = saved;
+        if (mChild != null && mPhysics.isMeasured()) {
+            placeChild();
+        }
     }
 
     /**
-     * Set the offset for the anchor state. Number between 0..1
-     * i.e: Anchor the panel at 1/3 of the screen: setAnchorOffset(0.25)
+     * Sets how the sheet moves to its resting position after a release or {@link #setState(int)}.
      *
-     * @param threshold {@link Float} from 0..1
+     * @param settleMode One of {@link #SETTLE_MODE_LINEAR}, {@link #SETTLE_MODE_SPRING} or
+     *                   {@link #SETTLE_MODE_FLING}.
      */
-    public void setAnchorOffset(float threshold) {
-        this.mAnchorThreshold = threshold;
-        this.mAnchorOffset = (int) Math.max(mParentHeight * mAnchorThreshold, mMinOffset);
+    public void setSettleMode(@SettleMode int settleMode) {
+        mSettleMode = settleMode;
     }
 
     /**
-     * Sets whether this bottom sheet can hide when it is swiped down.
+     * @return How the sheet moves to its resting position.
+     */
+    @SettleMode
+    public int getSettleMode() {
+        return mSettleMode;
+    }
+
+    /**
+     * Enables or disables touch resampling. When enabled, a dragged sheet follows where the
+     * finger is expected to be when the next frame is shown, interpolated or extrapolated from
+     * the recent touch samples, instead of the position of the last touch event. The prediction
+     * is bounded, so the sheet lags the finger less without overshooting it noticeably. Takes
+     * effect with the next gesture.
      *
-     * @param hideable {@code true} to make this bottom sheet hideable.
+     * @param enabled Whether to resample touch positions.
      */
-    public void setHideable(boolean hideable) {
-        mHideable = hideable;
+    public void setTouchResampling(boolean enabled) {
+        mTouchResampling = enabled;
     }
 
     /**
-     * Gets whether this bottom sheet can hide when it is swiped down.
+     * @return Whether touch positions are resampled.
+     */
+    public boolean isTouchResampling() {
+        return mTouchResampling;
+    }
+
+    /**
+     * Enables or disables input coalescing. When enabled, a drag moves the sheet, and calls the
+     * slide callbacks, at most once per display frame, however often the touch panel reports;
+     * every touch sample still counts towards the fling velocity. Takes effect with the next
+     * gesture.
      *
-     * @return {@code true} if this bottom sheet can hide.
+     * @param enabled Whether to coalesce the moves of a drag.
      */
-    public boolean isHideable() {
-        return mHideable;
+    public void setInputCoalescing(boolean enabled) {
+        mInputCoalescing = enabled;
     }
 
     /**
-     * Sets whether this bottom sheet should skip the collapsed state when it is being hidden
-     * after it is expanded once. Setting this to true has no effect unless the sheet is hideable.
+     * @return Whether the moves of a drag are coalesced.
+     */
+    public boolean isInputCoalescing() {
+        return mInputCoalescing;
+    }
+
+    /**
+     * @return Number of drag moves skipped by input coalescing so far. A hosted sheet reports
+     * the count of its {@link AnchorSheetHost}, shared by all of its sheets.
+     */
+    public int getSkippedMoveCount() {
+        return mDragHelper != null ? mDragHelper.getSkippedMoveCount() : 0;
+    }
+
+    /**
+     * Sets how the sheet moves while it is dragged or settles.
      *
-     * @param skipCollapsed True if the bottom sheet should skip the collapsed state.
+     * @param movementMode One of {@link #MOVEMENT_MODE_POSITION} or {@link #MOVEMENT_MODE_TRANSLATION}.
      */
-    public void setSkipCollapsed(boolean skipCollapsed) {
-        mSkipCollapsed = skipCollapsed;
+    public void setMovementMode(@MovementMode int movementMode) {
+        if (mMovementMode == movementMode) {
+            return;
+        }
+        mMovementMode = movementMode;
+        ComponentContainer child = mViewRef != null ? mViewRef.get() : null;
+        if (child != null) {
+            float top = getSheetTop();
+            child.setTranslationY(0);
+            moveSheet(child, top);
+        }
     }
 
     /**
-     * Sets whether this bottom sheet should skip the collapsed state when it is being hidden
-     * after it is expanded once.
+     * @return How the sheet moves while it is dragged or settles.
+     */
+    @MovementMode
+    public int getMovementMode() {
+        return mMovementMode;
+    }
+
+    /**
+     * Number of layout passes of the content since the last drag started, including the settle
+     * that followed it, counted as the moves of the content's position that cause them. Compare
+     * it between movement modes to see what {@link #MOVEMENT_MODE_TRANSLATION} saves.
      *
-     * @return Whether the bottom sheet should skip the collapsed state.
+     * @return number of layout passes
      */
-    public boolean getSkipCollapsed() {
-        return mSkipCollapsed;
+    public int getDragLayoutPassCount() {
+        return mDragLayoutPasses;
+    }
+
+    /**
+     * Moves the child to an offset according to the movement mode. In
+     * {@link #MOVEMENT_MODE_TRANSLATION} the child is laid out at the detent above the offset and
+     * translated the rest of the way.
+     */
+    private void moveSheet(Component child, float top) {
+        if (mMovementMode == MOVEMENT_MODE_POSITION) {
+            if (child.getContentPositionY() != top) {
+                child.setContentPositionY(top);
+                mDragLayoutPasses++;
+            }
+            return;
+        }
+        float layoutTop = mPhysics.isMeasured() ? mPhysics.detentOffset(mPhysics.detentAbove((int) top)) : top;
+        if (child.getContentPositionY() != layoutTop) {
+            child.setContentPositionY(layoutTop);
+            mDragLayoutPasses++;
+        }
+        child.setTranslationY(top - layoutTop);
     }
 
     /**
-     * Sets a callback to be notified of bottom sheet events.
+     * Sets the natural frequency of the spring used by {@link #SETTLE_MODE_SPRING} and
+     * {@link #SETTLE_MODE_FLING}. Higher values settle faster.
      *
-     * @param callback The callback to notify when bottom sheet events occur.
+     * @param stiffness frequency in rad/s
      */
-    public void setAnchorSheetCallback(AnchorSheetCallback callback) {
-        mCallback = callback;
+    public void setSpringStiffness(float stiffness) {
+        mSettleAnimator.getMotion().setStiffness(stiffness);
+    }
+
+    /**
+     * Sets how fast the fling of {@link #SETTLE_MODE_FLING} loses its velocity. Higher values stop
+     * sooner.
+     *
+     * @param friction decay rate in 1/s
+     */
+    public void setFlingFriction(float friction) {
+        mSettleAnimator.getMotion().setFriction(friction);
     }
 
     /**
@@ -457,6 +1730,16 @@ public class AnchorSheetLayout extends ComponentContainer
         return mState;
     }
 
+    /**
+     * Gets the current vertical velocity of the finger dragging the sheet. Can be queried at any
+     * point of a drag, for instance to predict where the sheet is heading.
+     *
+     * @return Velocity in pixels per second, negative when moving up, 0 without a gesture.
+     */
+    public float getDragVelocity() {
+        return mDragHelper != null ? mDragHelper.getYVelocity() : 0;
+    }
+
     /**
      * Provides callback
      *
@@ -468,18 +1751,10 @@ public class AnchorSheetLayout extends ComponentContainer
         }
         mState = state;
         Component bottomSheet = mViewRef.get();
-        if (bottomSheet != null && mCallback != null) {
-            mCallback.onStateChanged(bottomSheet, state);
-        }
-    }
-
-    /**
-     * resets the velocityTracker
-     */
-    private void reset() {
-        if (mVelocityTracker != null) {
-            mVelocityTracker.clear();
-            mVelocityTracker = null;
+        if (bottomSheet != null) {
+            // A coalesced callback sees the latest offset before the state that follows it.
+            mSlideCoalescer.flush();
+            mCallbacks.dispatchStateChanged(bottomSheet, state);
         }
     }
 
@@ -492,27 +1767,18 @@ public class AnchorSheetLayout extends ComponentContainer
      * @return Whether to hide the sheet or not
      */
     boolean shouldHide(Component child, float yvel) {
-        if (mSkipCollapsed) {
-            return true;
-        }
-        if (child.getContentPositionY() < mMaxOffset) {
-            // It should not hide, but collapse.
-            return false;
-        }
-        final float newTop = child.getContentPositionY() + yvel * HIDE_FRICTION;
-        return Math.abs(newTop - mMaxOffset) / (float) mPeekHeight > HIDE_THRESHOLD;
+        return mPhysics.shouldHide(child.getContentPositionY() + child.getTranslationY(), yvel);
     }
 
     void dispatchOnSlide(int top) {
         Component bottomSheet = mViewRef.get();
-        if (bottomSheet != null && mCallback != null) {
-            if (top > mMaxOffset) {
-                mCallback.onSlide(bottomSheet, (float) (mMaxOffset - top) /
-                        (mParentHeight - mMaxOffset));
-            } else {
-                mCallback.onSlide(bottomSheet,
-                        (float) (mMaxOffset - top) / ((mMaxOffset - mMinOffset)));
-            }
+        if (bottomSheet == null || !mCallbacks.wants(INTEREST_SLIDE)) {
+            return;
+        }
+        float slideOffset = mPhysics.slideOffset(top);
+        mCallbacks.dispatchSlide(bottomSheet, slideOffset, false);
+        if (mCallbacks.hasCoalescedSlide()) {
+            mSlideCoalescer.offer(slideOffset);
         }
     }
 
@@ -538,19 +1804,27 @@ public class AnchorSheetLayout extends ComponentContainer
      *
      * @param state One of {@link #STATE_COLLAPSED}, {@link #STATE_EXPANDED}, or
      *              {@link #STATE_HIDDEN}.
+     * @throws IllegalArgumentException for {@link #STATE_ANCHOR} if only two detents are set
      */
     public final void setState(@State int state) {
+        if (state == STATE_ANCHOR && !mPhysics.hasAnchor()) {
+            throw new IllegalArgumentException("Illegal state argument: " + state);
+        }
         if(mState == state){
             return;
         }
-        if (mViewRef == null) {
-            // The view is not laid out yet; modify mState and let onLayoutChild handle it later
+        if (mViewRef == null || !mPhysics.isMeasured()) {
+            // The view is not laid out yet; modify mState and let onLayoutRefreshed handle it later
             if (state == STATE_COLLAPSED || state == STATE_EXPANDED || state == STATE_ANCHOR ||
-                    ((mHideable && state == STATE_HIDDEN) || state == STATE_FORCE_HIDDEN)) {
+                    ((isHideable() && state == STATE_HIDDEN) || state == STATE_FORCE_HIDDEN)) {
                 mState = state;
             }
             return;
         }
+        if (mSettleAnimator.isRunning() && mSettleAnimator.getTargetState() == state) {
+            // Already on its way there.
+            return;
+        }
         ComponentContainer child = mViewRef.get();
         if (child == null) {
             return;
@@ -559,34 +1833,48 @@ public class AnchorSheetLayout extends ComponentContainer
     }
 
 
-    void startSettlingAnimation(Component child, int state, int yvel) {
-        int top;
-        int currentTop = (int) child.getContentPositionY();
+    /**
+     * Settles to a detent; an intermediate one becomes the offset of {@link #STATE_ANCHOR}.
+     */
+    private void startSettlingToDetent(Component child, int detent, int yvel) {
+        int state = mPhysics.stateForDetent(detent);
         if (state == STATE_ANCHOR) {
-            top = mAnchorOffset;
-        } else if (state == STATE_COLLAPSED) {
-            top = mMaxOffset;
-        } else if (state == STATE_EXPANDED) {
-            top = mMinOffset;
-        } else if ((mHideable && state == STATE_HIDDEN) || state == STATE_FORCE_HIDDEN) {
-            top = mParentHeight;
-        } else {
+            mPhysics.setAnchorDetent(detent);
+        }
+        startSettlingAnimation(child, state, yvel);
+    }
+
+    void startSettlingAnimation(Component child, int state, int yvel) {
+        float currentTop = child.getContentPositionY() + child.getTranslationY();
+        int top = mPhysics.offsetForState(state);
+        if (top == SheetPhysics.NO_OFFSET) {
             throw new IllegalArgumentException("Illegal state argument: " + state);
         }
-        AnimatorValue animatorValue = new AnimatorValue();
-        animatorValue.setDuration(computeSettleDuration(child,0,currentTop-top,0,yvel));
-        animatorValue.setLoopedCount(0);
-        animatorValue.setCurveType(Animator.CurveType.LINEAR);
-        animatorValue.setValueUpdateListener((animatorValue1, v) -> {
-            child.setContentPositionY(v*(top-currentTop)+currentTop);
-            if(v > 0.999999f){
-                setStateInternal(state);
-            }
-            else{
-                setStateInternal(STATE_SETTLING);
-            }
-        });
-        animatorValue.start();
+        if (state != STATE_HIDDEN && state != STATE_FORCE_HIDDEN) {
+            resumeContent();
+        }
+        int duration = mSettleMode == SETTLE_MODE_LINEAR
+                ? computeSettleDuration(child, 0, (int) currentTop - top, 0, yvel)
+                : MAX_PHYSICS_SETTLE_DURATION;
+        if (mMetrics != null) {
+            mSettlePredictedMillis = mSettleMode == SETTLE_MODE_LINEAR
+                    ? duration : computeSettleDuration(child, 0, (int) currentTop - top, 0, yvel);
+            mSettleStartNanos = System.nanoTime();
+            mMetrics.beginFrames(SheetMetrics.PHASE_SETTLE);
+        }
+        mSettleAnimator.settle(mSettleMode, currentTop, top, yvel, state, duration);
+        if (mSheetTrace != null) {
+            // After settle(), so the end of a superseded settle comes first.
+            mSheetTrace.record(System.nanoTime(), SheetTrace.EVENT_SETTLE_START, currentTop, top, state);
+        }
+        updateContentTier((int) currentTop);
+    }
+
+    /**
+     * Stops a running settle animation, leaving the sheet where it currently is.
+     */
+    private void cancelSettling() {
+        mSettleAnimator.cancel();
     }
 
     /**
@@ -601,66 +1889,9 @@ public class AnchorSheetLayout extends ComponentContainer
      * @return time in milliseconds
      */
     private int computeSettleDuration(Component child, int dx, int dy, int xvel, int yvel) {
-        xvel = this.clampMag(xvel, (int)mDragHelper.getMinVelocity(), (int)mDragHelper.getMaxVelocity());
-        yvel = this.clampMag(yvel, (int)mDragHelper.getMinVelocity(), (int)mDragHelper.getMaxVelocity());
-        int absDx = Math.abs(dx);
-        int absDy = Math.abs(dy);
-        int absXVel = Math.abs(xvel);
-        int absYVel = Math.abs(yvel);
-        int addedVel = absXVel + absYVel;
-        int addedDistance = absDx + absDy;
-        float xweight = xvel != 0 ? (float)absXVel / (float)addedVel : (float)absDx / (float)addedDistance;
-        float yweight = yvel != 0 ? (float)absYVel / (float)addedVel : (float)absDy / (float)addedDistance;
-        int xduration = this.computeAxisDuration(dx, xvel, mDragHelper.getCallback().getViewHorizontalDragRange(child));
-        int yduration = this.computeAxisDuration(dy, yvel, mDragHelper.getCallback().getViewVerticalDragRange(child));
-        return (int)((float)xduration * xweight + (float)yduration * yweight);
-    }
-
-    private int computeAxisDuration(int delta, int velocity, int motionRange) {
-        if (delta == 0) {
-            return 0;
-        } else {
-            int width = this.getWidth();
-            int halfWidth = width / 2;
-            float distanceRatio = Math.min(1.0F, (float)Math.abs(delta) / (float)width);
-            float distance = (float)halfWidth + (float)halfWidth * this.distanceInfluenceForSnapDuration(distanceRatio);
-            velocity = Math.abs(velocity);
-            int duration;
-            if (velocity > 0) {
-                duration = 4 * Math.round(1000.0F * Math.abs(distance / (float)velocity));
-            } else {
-                float range = (float)Math.abs(delta) / (float)motionRange;
-                duration = (int)((range + 1.0F) * 256.0F);
-            }
-            return Math.min(duration, 200);
-        }
-    }
-
-    /**
-     * Clamp the magnitude of value for absMin and absMax.
-     * If the value is below the minimum, it will be clamped to zero.
-     * If the value is above the maximum, it will be clamped to the maximum.
-     *
-     * @param value Value to clamp
-     * @param absMin Absolute value of the minimum significant value to return
-     * @param absMax Absolute value of the maximum value to return
-     * @return The clamped value with the same sign as <code>value</code>
-     */
-    private int clampMag(int value, int absMin, int absMax) {
-        int absValue = Math.abs(value);
-        if (absValue < absMin) {
-            return 0;
-        } else if (absValue > absMax) {
-            return value > 0 ? absMax : -absMax;
-        } else {
-            return value;
-        }
-    }
-
-    private float distanceInfluenceForSnapDuration(float f) {
-        f -= 0.5F; // center the values about 0.
-        f *= 0.47123894F;
-        return (float)Math.sin(f);
+        return mPhysics.computeSettleDuration(dx, dy, xvel, yvel,
+                mDragCallback.getViewHorizontalDragRange(child),
+                mDragCallback.getViewVerticalDragRange(child));
     }
 
 }
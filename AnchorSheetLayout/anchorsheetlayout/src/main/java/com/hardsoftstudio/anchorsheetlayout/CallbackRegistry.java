@@ -0,0 +1,159 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.components.Component;
+
+import java.util.Arrays;
+
+/**
+ * The {@link AnchorSheetLayout.AnchorSheetCallback}s of a sheet together with what each of them is
+ * interested in.
+ *
+ * <p>Registrations are kept in a copy-on-write array: adding or removing a callback copies it,
+ * dispatching only iterates the current snapshot. Dispatch therefore allocates nothing and a
+ * callback may add or remove callbacks while being notified. Like the sheet itself, the registry
+ * is only used on the UI thread.</p>
+ */
+final class CallbackRegistry {
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    /**
+     * A registered callback.
+     */
+    private static final class Entry {
+        final AnchorSheetLayout.AnchorSheetCallback callback;
+
+        final int interest;
+
+        final float minSlideOffset;
+
+        final float maxSlideOffset;
+
+        final boolean coalesced;
+
+        /**
+         * Whether the last slide offset seen by this entry was inside its band.
+         */
+        boolean inBand;
+
+        Entry(AnchorSheetLayout.AnchorSheetCallback callback, int interest, float minSlideOffset,
+              float maxSlideOffset) {
+            this.callback = callback;
+            this.interest = interest;
+            this.minSlideOffset = minSlideOffset;
+            this.maxSlideOffset = maxSlideOffset;
+            this.coalesced = callback.getSlideDispatchMode() == AnchorSheetLayout.SLIDE_DISPATCH_PER_FRAME;
+        }
+    }
+
+    private Entry[] mEntries = EMPTY;
+
+    private int mCombinedInterest;
+
+    private boolean mHasCoalesced;
+
+    void add(AnchorSheetLayout.AnchorSheetCallback callback, int interest, float minSlideOffset,
+             float maxSlideOffset) {
+        Entry[] entries = mEntries;
+        for (Entry entry : entries) {
+            if (entry.callback == callback) {
+                return;
+            }
+        }
+        Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+        copy[entries.length] = new Entry(callback, interest, minSlideOffset, maxSlideOffset);
+        publish(copy);
+    }
+
+    void remove(AnchorSheetLayout.AnchorSheetCallback callback) {
+        Entry[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].callback == callback) {
+                Entry[] copy = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, copy, 0, i);
+                System.arraycopy(entries, i + 1, copy, i, entries.length - i - 1);
+                publish(copy);
+                return;
+            }
+        }
+    }
+
+    private void publish(Entry[] entries) {
+        int combined = 0;
+        boolean hasCoalesced = false;
+        for (Entry entry : entries) {
+            combined |= entry.interest;
+            hasCoalesced |= entry.coalesced && (entry.interest & AnchorSheetLayout.INTEREST_SLIDE) != 0;
+        }
+        mCombinedInterest = combined;
+        mHasCoalesced = hasCoalesced;
+        mEntries = entries;
+    }
+
+    /**
+     * @param interest one or more of the {@code INTEREST_*} flags
+     * @return Whether any callback wants one of these events, so the sheet can skip the work
+     * otherwise.
+     */
+    boolean wants(int interest) {
+        return (mCombinedInterest & interest) != 0;
+    }
+
+    boolean hasCoalescedSlide() {
+        return mHasCoalesced;
+    }
+
+    void dispatchStateChanged(Component bottomSheet, int state) {
+        int interest = state == AnchorSheetLayout.STATE_DRAGGING || state == AnchorSheetLayout.STATE_SETTLING
+                ? AnchorSheetLayout.INTEREST_TRANSIENT_STATES
+                : AnchorSheetLayout.INTEREST_TERMINAL_STATES;
+        Entry[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if ((entries[i].interest & interest) != 0) {
+                entries[i].callback.onStateChanged(bottomSheet, state);
+            }
+        }
+    }
+
+    void dispatchSettleEnded(Component bottomSheet, int targetState, int outcome) {
+        Entry[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if ((entries[i].interest & AnchorSheetLayout.INTEREST_TERMINAL_STATES) != 0) {
+                entries[i].callback.onSettleEnded(bottomSheet, targetState, outcome);
+            }
+        }
+    }
+
+    void dispatchStateRestored(Component bottomSheet, int state) {
+        Entry[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            if ((entries[i].interest & AnchorSheetLayout.INTEREST_TERMINAL_STATES) != 0) {
+                entries[i].callback.onStateRestored(bottomSheet, state);
+            }
+        }
+    }
+
+    /**
+     * Delivers a slide offset.
+     *
+     * @param bottomSheet the sheet
+     * @param slideOffset the offset
+     * @param coalesced   {@code true} to deliver to the per-frame callbacks, {@code false} to
+     *                    deliver to the others
+     */
+    void dispatchSlide(Component bottomSheet, float slideOffset, boolean coalesced) {
+        Entry[] entries = mEntries;
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            if (entry.coalesced != coalesced || (entry.interest & AnchorSheetLayout.INTEREST_SLIDE) == 0) {
+                continue;
+            }
+            boolean inBand = slideOffset >= entry.minSlideOffset && slideOffset <= entry.maxSlideOffset;
+            // The first offset outside the band is still delivered so the callback sees it leave.
+            if (inBand || entry.inBand) {
+                entry.callback.onSlide(bottomSheet, slideOffset);
+            }
+            entry.inBand = inBand;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+
+/**
+ * The per detent contents of a sheet: which tier the current offset calls for, and swapping it
+ * into the sheet's child.
+ *
+ * <p>Each tier is created on first use and kept once created; only the tier on screen is
+ * attached, so the others are neither laid out nor drawn. A tier without its own factory falls
+ * back to its neighbour, except the peek tier, which leaves whatever is attached in place.</p>
+ */
+final class ContentTiers {
+
+    private static final int NONE = -1;
+
+    private final AnchorSheetLayout.ContentFactory[] mFactories;
+
+    private final Component[] mContent = new Component[3];
+
+    private int mTier = AnchorSheetLayout.CONTENT_TIER_PEEK;
+
+    private int mAttached = NONE;
+
+    ContentTiers(AnchorSheetLayout.ContentFactory peek, AnchorSheetLayout.ContentFactory anchor,
+                 AnchorSheetLayout.ContentFactory full) {
+        mFactories = new AnchorSheetLayout.ContentFactory[]{peek, anchor, full};
+    }
+
+    /**
+     * @return The tier the sheet's offset calls for.
+     */
+    int getTier() {
+        return mTier;
+    }
+
+    /**
+     * @return The tier whose content is attached, or -1 while the placeholder is shown.
+     */
+    int getAttachedTier() {
+        return mAttached;
+    }
+
+    /**
+     * Picks the tier for an offset. A larger tier is picked once the sheet is {@code hysteresis}
+     * pixels above the detent below it, and dropped once the sheet is back at that detent, so
+     * small movements around a detent never swap contents back and forth.
+     *
+     * @param top          offset of the sheet
+     * @param collapsedTop offset of the collapsed state
+     * @param anchorTop    offset of the anchor state
+     * @param hysteresis   distance in pixels
+     * @param minTier      tier to keep at least, e.g. the one a running settle is heading for
+     */
+    void update(int top, int collapsedTop, int anchorTop, int hysteresis, int minTier) {
+        int tier = mTier;
+        if (top < anchorTop - hysteresis) {
+            tier = AnchorSheetLayout.CONTENT_TIER_FULL;
+        } else if (top < collapsedTop - hysteresis) {
+            tier = Math.max(tier, AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+        }
+        if (top >= collapsedTop) {
+            tier = AnchorSheetLayout.CONTENT_TIER_PEEK;
+        } else if (top >= anchorTop && tier == AnchorSheetLayout.CONTENT_TIER_FULL) {
+            tier = AnchorSheetLayout.CONTENT_TIER_ANCHOR;
+        }
+        mTier = Math.max(tier, minTier);
+    }
+
+    /**
+     * Attaches the content of the current tier to the container, creating it if needed.
+     *
+     * @return Whether the children of the container changed.
+     */
+    boolean apply(ComponentContainer container, Context context) {
+        int resolved = resolve(mTier);
+        if (resolved == NONE || resolved == mAttached) {
+            return false;
+        }
+        Component content = mContent[resolved];
+        if (content == null) {
+            content = mFactories[resolved].createContent(context);
+            mContent[resolved] = content;
+        }
+        container.removeAllComponents();
+        container.addComponent(content);
+        mAttached = resolved;
+        return true;
+    }
+
+    private int resolve(int tier) {
+        if (mFactories[tier] != null) {
+            return tier;
+        }
+        if (tier == AnchorSheetLayout.CONTENT_TIER_ANCHOR && mFactories[AnchorSheetLayout.CONTENT_TIER_FULL] != null) {
+            return AnchorSheetLayout.CONTENT_TIER_FULL;
+        }
+        if (tier == AnchorSheetLayout.CONTENT_TIER_FULL && mFactories[AnchorSheetLayout.CONTENT_TIER_ANCHOR] != null) {
+            return AnchorSheetLayout.CONTENT_TIER_ANCHOR;
+        }
+        return NONE;
+    }
+}
@@ -1,10 +1,12 @@
 package com.hardsoftstudio.anchorsheetlayout;
 
+import com.hardsoftstudio.anchorsheetlayout.core.PointerTable;
+import com.hardsoftstudio.anchorsheetlayout.core.TouchResampler;
+import com.hardsoftstudio.anchorsheetlayout.core.VelocityEstimator;
 import ohos.agp.components.*;
 import ohos.app.Context;
 import ohos.multimodalinput.event.ManipulationEvent;
 import ohos.multimodalinput.event.TouchEvent;
-import java.util.Arrays;
 
 public class DragHelper {
 
@@ -28,6 +30,13 @@ public class DragHelper {
      */
     public static final int STATE_SETTLING = 2;
 
+    /** Distance to travel before a drag may begin, in pixels */
+    static final int TOUCH_SLOP = 24;
+    /** Fastest fling reported, in pixels per second */
+    static final float MAX_VELOCITY = 2000;
+    /** Slowest velocity treated as a fling, in pixels per second */
+    static final float MIN_VELOCITY = 75;
+
     /** Current drag state; idle, dragging or settling */
     private int mDragState;
 
@@ -36,21 +45,32 @@ public class DragHelper {
 
     /** Last known position/pointer tracking */
     private int mActivePointerId = INVALID_POINTER;
-    private float[] mInitialMotionX;
-    private float[] mInitialMotionY;
-    private float[] mLastMotionX;
-    private float[] mLastMotionY;
-    private int mPointersDown;
+    private final PointerTable mPointers = new PointerTable();
     // recent pointer offset values
     private float mDeltaX = 0.0f;
     private float mDeltaY = 0.0f;
 
-    private VelocityDetector mVelocityDetector;
+    private final VelocityEstimator mVelocity = new VelocityEstimator();
+    /** Pointer whose samples feed mVelocity */
+    private int mVelocityPointerId = INVALID_POINTER;
+    /** Recent samples of the same pointer, for resampling */
+    private final TouchResampler mResampler = new TouchResampler();
+    private boolean mResampling;
+    private long mFrameIntervalMillis = 16;
+    /** Pointer whose resampled position was last applied, and that position */
+    private int mAppliedPointerId = INVALID_POINTER;
+    private float mAppliedX;
+    private float mAppliedY;
+    /** Applies the latest move of a coalesced drag, at most once per frame */
+    private final FrameCoalescer mMoveCoalescer = new FrameCoalescer(value -> this.applyMove());
+    private boolean mCoalescing;
+    private long mLastMoveTimeMillis;
+    private int mSkippedMoveCount;
     private final float mMaxVelocity;
     private final float mMinVelocity;
-    private final DragHelper.Callback mCallback;
+    private DragHelper.Callback mCallback;
     private Component mCapturedView;
-    private final ComponentContainer mParentView;
+    private ComponentContainer mParentView;
 
     /**
      * Factory method to create a new ViewDragHelper.
@@ -77,9 +97,9 @@ public class DragHelper {
         } else {
             this.mParentView = forParent;
             this.mCallback = cb;
-            this.mTouchSlop = 24;
-            this.mMaxVelocity = 2000;
-            this.mMinVelocity =75;
+            this.mTouchSlop = TOUCH_SLOP;
+            this.mMaxVelocity = MAX_VELOCITY;
+            this.mMinVelocity = MIN_VELOCITY;
         }
     }
 
@@ -104,6 +124,13 @@ public class DragHelper {
 
     }
 
+    /**
+     * @return the distance in pixels a touch can wander before it is considered a drag
+     */
+    public int getTouchSlop() {
+        return this.mTouchSlop;
+    }
+
     /**
      * @return CallBack object
      */
@@ -111,6 +138,99 @@ public class DragHelper {
         return this.mCallback;
     }
 
+    /**
+     * Enables or disables resampling. When enabled, a drag moves the view to where the pointer is
+     * expected to be when the next frame is shown, one frame interval after the touch event,
+     * instead of to the raw position of the event. The position is interpolated or extrapolated
+     * from the recent samples by a {@link TouchResampler}, which bounds the prediction. A release
+     * first moves the view back to the last known position of the pointer. Callbacks are invoked
+     * exactly as without resampling.
+     *
+     * @param enabled whether to resample the pointer position
+     */
+    public void setResampling(boolean enabled) {
+        this.mResampling = enabled;
+    }
+
+    /**
+     * @return whether the pointer position is resampled
+     */
+    public boolean isResampling() {
+        return this.mResampling;
+    }
+
+    /**
+     * Enables or disables coalescing. When enabled, the moves of a drag are applied at most once
+     * per frame: the first move of a frame right away, later ones only replace the pending
+     * position, which is applied at the start of the next frame. Every sample still feeds the
+     * velocity estimate, and any other event applies the pending position first, so releases
+     * see the final position and velocity. Meant for touch panels that sample faster than the
+     * display refreshes.
+     *
+     * @param enabled whether to coalesce the moves of a drag
+     */
+    public void setCoalescing(boolean enabled) {
+        if (!enabled) {
+            this.mMoveCoalescer.flush();
+        }
+        this.mCoalescing = enabled;
+    }
+
+    /**
+     * @return whether the moves of a drag are coalesced
+     */
+    public boolean isCoalescing() {
+        return this.mCoalescing;
+    }
+
+    /**
+     * @return occurred time of the newest move of a coalesced drag, which is the move the
+     * position applied at the next frame comes from; only meaningful while {@link #isCoalescing()}
+     */
+    public long getCoalescedMoveTime() {
+        return this.mLastMoveTimeMillis;
+    }
+
+    /**
+     * @return number of moves replaced by a later one of the same frame before being applied,
+     * each saving a pass through the clamp and position callbacks, since this helper was created
+     */
+    public int getSkippedMoveCount() {
+        return this.mSkippedMoveCount;
+    }
+
+    /**
+     * @param refreshRate refresh rate of the display in Hz, used to find the time of the next
+     *                    frame when resampling; ignored if not positive
+     */
+    void setRefreshRate(float refreshRate) {
+        if (refreshRate > 0) {
+            this.mFrameIntervalMillis = Math.max(1, Math.round(1000f / refreshRate));
+        }
+    }
+
+    /**
+     * Points this helper at another parent and callback, so several parents can share one
+     * helper, and with it one pointer table and one velocity estimate. A drag in progress is
+     * released first, as on a cancel; pointer tracking is kept.
+     *
+     * @param forParent Parent view to monitor from now on
+     * @param cb Callback of that parent
+     */
+    void setTarget(@NonNull ComponentContainer forParent, @NonNull DragHelper.Callback cb) {
+        if (forParent == this.mParentView && cb == this.mCallback) {
+            return;
+        }
+        this.mMoveCoalescer.flush();
+        if (this.mDragState == STATE_DRAGGING) {
+            this.dispatchViewReleased(0.0F, 0.0F);
+        }
+        this.setDragState(STATE_IDLE);
+        this.mCapturedView = null;
+        this.mParentView = forParent;
+        this.mCallback = cb;
+    }
+
     /**
      * Capture a specific child view for dragging within the parent.
      *
@@ -134,11 +254,21 @@ public class DragHelper {
     public void cancel() {
         this.mActivePointerId = -1;
         this.clearMotionHistory();
-        if (this.mVelocityDetector != null) {
-            this.mVelocityDetector.clear();
-            this.mVelocityDetector = null;
-        }
+        this.saveDeltaXY(0.0F, 0.0F);
+        this.mVelocity.clear();
+        this.mResampler.clear();
+        this.mVelocityPointerId = INVALID_POINTER;
+        this.mAppliedPointerId = INVALID_POINTER;
+        this.mMoveCoalescer.cancel();
+    }
 
+    /**
+     * {@link #cancel()} the current gesture and go back to {@link #STATE_IDLE} without releasing
+     * the captured view, so no settle follows.
+     */
+    void abort() {
+        this.cancel();
+        this.setDragState(STATE_IDLE);
     }
 
     /**
@@ -166,6 +296,7 @@ public class DragHelper {
      * Invokes Callback and sets the Drag State to Idle.
      */
     private void dispatchViewReleased(float xvel, float yvel) {
+        this.applyLastSample();
         this.mCallback.onViewReleased(this.mCapturedView, xvel, yvel,this.mDeltaX,this.mDeltaY);
         if (this.mDragState == 1) {
             this.setDragState(0);
@@ -173,65 +304,40 @@ public class DragHelper {
     }
 
     private void clearMotionHistory() {
-        if (this.mInitialMotionX != null) {
-            Arrays.fill(this.mInitialMotionX, 0.0F);
-            Arrays.fill(this.mInitialMotionY, 0.0F);
-            Arrays.fill(this.mLastMotionX, 0.0F);
-            Arrays.fill(this.mLastMotionY, 0.0F);
-            this.mPointersDown = 0;
-        }
+        this.mPointers.clear();
     }
 
     private void clearMotionHistory(int pointerId) {
-        if (mInitialMotionX == null || !isPointerDown(pointerId)) {
-            return;
-        }
-        mInitialMotionX[pointerId] = 0;
-        mInitialMotionY[pointerId] = 0;
-        mLastMotionX[pointerId] = 0;
-        mLastMotionY[pointerId] = 0;
-        mPointersDown &= ~(1 << pointerId);
-    }
-
-    private void ensureMotionHistorySizeForId(int pointerId) {
-        if (this.mInitialMotionX == null || this.mInitialMotionX.length <= pointerId) {
-            float[] imx = new float[pointerId + 1];
-            float[] imy = new float[pointerId + 1];
-            float[] lmx = new float[pointerId + 1];
-            float[] lmy = new float[pointerId + 1];
-            if (this.mInitialMotionX != null) {
-                System.arraycopy(this.mInitialMotionX, 0, imx, 0, this.mInitialMotionX.length);
-                System.arraycopy(this.mInitialMotionY, 0, imy, 0, this.mInitialMotionY.length);
-                System.arraycopy(this.mLastMotionX, 0, lmx, 0, this.mLastMotionX.length);
-                System.arraycopy(this.mLastMotionY, 0, lmy, 0, this.mLastMotionY.length);
-            }
-            this.mInitialMotionX = imx;
-            this.mInitialMotionY = imy;
-            this.mLastMotionX = lmx;
-            this.mLastMotionY = lmy;
-        }
+        this.mPointers.up(pointerId);
     }
 
     private void saveInitialMotion(float x, float y, int pointerId) {
-        this.ensureMotionHistorySizeForId(pointerId);
-        this.mInitialMotionX[pointerId] = this.mLastMotionX[pointerId] = x;
-        this.mInitialMotionY[pointerId] = this.mLastMotionY[pointerId] = y;
-        this.mPointersDown |= 1 << pointerId;
+        this.mPointers.down(pointerId, x, y);
     }
 
     private void saveLastMotion(ManipulationEvent ev) {
         int pointerCount = ev.getPointerCount();
         for(int i = 0; i < pointerCount; ++i) {
-            int pointerId = ev.getPointerId(i);
-            if (this.isValidPointerForActionMove(pointerId)) {
-                float x = getTouchX((TouchEvent) ev,i);
-                float y = getTouchY((TouchEvent) ev,i);
-                this.mLastMotionX[pointerId] = x;
-                this.mLastMotionY[pointerId] = y;
+            int slot = this.mPointers.slotOf(ev.getPointerId(i));
+            if (slot != PointerTable.NO_SLOT) {
+                this.mPointers.setLast(slot, getTouchX((TouchEvent) ev, i), getTouchY((TouchEvent) ev, i));
             }
         }
     }
 
+    /**
+     * @return the index of the given pointer in the event, or -1 if it is not part of it
+     */
+    private static int findPointerIndex(ManipulationEvent ev, int pointerId) {
+        int pointerCount = ev.getPointerCount();
+        for (int i = 0; i < pointerCount; ++i) {
+            if (ev.getPointerId(i) == pointerId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Check if the given pointer ID represents a pointer that is currently down (to the best
      * of the DragHelper's knowledge).
@@ -245,7 +351,7 @@ public class DragHelper {
      * @return true if the pointer with the given ID is still down
      */
     public boolean isPointerDown(int pointerId) {
-        return (this.mPointersDown & 1 << pointerId) != 0;
+        return this.mPointers.isDown(pointerId);
     }
 
     void setDragState(int state) {
@@ -280,6 +386,53 @@ public class DragHelper {
         }
     }
 
+    /**
+     * Feeds the velocity estimate and the resampler with the pointer driving the drag, or the
+     * first pointer before a capture. Switching to another pointer starts a new estimate, so the
+     * jump between two fingers never reads as a fling.
+     */
+    private void addVelocitySample(TouchEvent ev) {
+        int index = this.mActivePointerId != INVALID_POINTER ? findPointerIndex(ev, this.mActivePointerId) : -1;
+        if (index < 0) {
+            if (ev.getPointerCount() == 0) {
+                return;
+            }
+            index = 0;
+        }
+        int pointerId = ev.getPointerId(index);
+        if (pointerId != this.mVelocityPointerId) {
+            this.mVelocity.clear();
+            this.mResampler.clear();
+            this.mVelocityPointerId = pointerId;
+        }
+        final float x = getTouchX(ev, index);
+        final float y = getTouchY(ev, index);
+        this.mVelocity.addSample(ev.getOccurredTime(), x, y);
+        if (this.mResampling) {
+            this.mResampler.addSample(ev.getOccurredTime(), x, y);
+        }
+    }
+
+    /**
+     * Current horizontal velocity of the pointer driving the drag, unclamped. Can be queried at
+     * any point of a gesture.
+     *
+     * @return velocity in pixels per second, 0 outside of a gesture
+     */
+    public float getXVelocity() {
+        return this.mVelocity.getXVelocity();
+    }
+
+    /**
+     * Current vertical velocity of the pointer driving the drag, unclamped. Can be queried at
+     * any point of a gesture.
+     *
+     * @return velocity in pixels per second, negative upwards, 0 outside of a gesture
+     */
+    public float getYVelocity() {
+        return this.mVelocity.getYVelocity();
+    }
+
     private void saveDeltaXY(float dx ,float dy){
         this.mDeltaX = dx;
         this.mDeltaY = dy;
@@ -296,11 +449,11 @@ public class DragHelper {
         if (action == TouchEvent.PRIMARY_POINT_DOWN) {
             // Reset things for a new event stream
             this.cancel();
+        } else if (action != TouchEvent.POINT_MOVE) {
+            // Apply a coalesced move before anything else looks at the position.
+            this.mMoveCoalescer.flush();
         }
-        if (this.mVelocityDetector == null) {
-            this.mVelocityDetector = VelocityDetector.obtainInstance();
-        }
-        this.mVelocityDetector.addEvent(ev);
+        this.addVelocitySample(ev);
 
         switch(action) {
             case TouchEvent.PRIMARY_POINT_DOWN:{
@@ -321,23 +474,38 @@ public class DragHelper {
             }
             case TouchEvent.POINT_MOVE: {
                 if (this.mDragState == 1) {
-                    if (this.isValidPointerForActionMove(this.mActivePointerId)) {
-                        final float x = getTouchX(ev, 0);
-                        final float y = getTouchY(ev, 0);
-                        final int idx = (int) (x - this.mLastMotionX[this.mActivePointerId]);
-                        final int idy = (int) (y - this.mLastMotionY[this.mActivePointerId]);
-                        this.dragTo((int) (this.mCapturedView.getContentPositionX() + idx), (int) (this.mCapturedView.getContentPositionY() + idy), idx, idy);
+                    final int slot = this.mPointers.slotOf(this.mActivePointerId);
+                    final int index = findPointerIndex(ev, this.mActivePointerId);
+                    if (slot != PointerTable.NO_SLOT && index >= 0 && (this.mResampling || this.mCoalescing)) {
+                        this.trackAppliedPosition(slot);
+                        this.saveLastMotion(ev);
+                        this.mLastMoveTimeMillis = ev.getOccurredTime();
+                        if (!this.mCoalescing) {
+                            this.applyMove();
+                        } else {
+                            if (this.mMoveCoalescer.isPending()) {
+                                this.mSkippedMoveCount++;
+                            }
+                            this.mMoveCoalescer.offer(getTouchY(ev, index));
+                        }
+                    } else if (slot != PointerTable.NO_SLOT && index >= 0) {
+                        final float x = getTouchX(ev, index);
+                        final float y = getTouchY(ev, index);
+                        final int idx = (int) (x - this.mPointers.getLastX(slot));
+                        final int idy = (int) (y - this.mPointers.getLastY(slot));
+                        this.dragTo((int) (this.mCapturedView.getContentPositionX() + idx), (int) (getViewTop(this.mCapturedView) + idy), idx, idy);
                         this.saveLastMotion(ev);
                     }
                 } else {
                     int pointerCount = ev.getPointerCount();
                     for (int i = 0; i < pointerCount; ++i) {
                         final int pointerId = ev.getPointerId(i);
-                        if (this.isValidPointerForActionMove(pointerId)) {
+                        final int slot = this.mPointers.slotOf(pointerId);
+                        if (slot != PointerTable.NO_SLOT) {
                             final float x = getTouchX(ev, i);
                             final float y = getTouchY(ev, i);
-                            final float dx = x - this.mInitialMotionX[pointerId];
-                            final float dy = y - this.mInitialMotionY[pointerId];
+                            final float dx = x - this.mPointers.getInitialX(slot);
+                            final float dy = y - this.mPointers.getInitialY(slot);
                             if (this.mDragState == 1) {
                                 break;
                             }
@@ -439,23 +607,86 @@ public class DragHelper {
     }
 
     private void releaseViewForPointerUp() {
-        this.mVelocityDetector.calculateCurrentVelocity(1000);float xvel = this.clampMag(this.mVelocityDetector.getHorizontalVelocity(), this.mMinVelocity, this.mMaxVelocity);
-        float yvel = this.clampMag(this.mVelocityDetector.getVerticalVelocity(), this.mMinVelocity, this.mMaxVelocity);
+        float xvel = this.clampMag(this.mVelocity.getXVelocity(), this.mMinVelocity, this.mMaxVelocity);
+        float yvel = this.clampMag(this.mVelocity.getYVelocity(), this.mMinVelocity, this.mMaxVelocity);
         this.dispatchViewReleased(xvel, yvel);
     }
 
+    /**
+     * Starts tracking the position applied to the captured view from the last known position of
+     * the active pointer, unless that pointer is already tracked.
+     *
+     * @param slot slot of the active pointer
+     */
+    private void trackAppliedPosition(int slot) {
+        if (this.mAppliedPointerId != this.mActivePointerId) {
+            this.mAppliedPointerId = this.mActivePointerId;
+            this.mAppliedX = this.mPointers.getLastX(slot);
+            this.mAppliedY = this.mPointers.getLastY(slot);
+        }
+    }
+
+    /**
+     * Drags the captured view by the move of the active pointer since the position applied last,
+     * to its last known position or, when resampling, to its resampled position at the next
+     * frame. The fraction of a pixel that is not applied is carried over to the next move.
+     */
+    private void applyMove() {
+        final int slot = this.mPointers.slotOf(this.mActivePointerId);
+        if (slot == PointerTable.NO_SLOT || this.mDragState != STATE_DRAGGING || this.mCapturedView == null) {
+            return;
+        }
+        this.trackAppliedPosition(slot);
+        float x = this.mPointers.getLastX(slot);
+        float y = this.mPointers.getLastY(slot);
+        if (this.mResampling && this.mResampler.resample(this.mLastMoveTimeMillis + this.mFrameIntervalMillis)) {
+            x = this.mResampler.getX();
+            y = this.mResampler.getY();
+        }
+        this.applyPosition(x, y);
+    }
+
+    /**
+     * Moves the captured view from a resampled position back to the last known position of the
+     * active pointer, so a release starts where the pointer was and not where it was predicted
+     * to go. The direction of the drag seen by the release is the one before this correction.
+     */
+    private void applyLastSample() {
+        if (!this.mResampling || this.mAppliedPointerId == INVALID_POINTER
+                || this.mAppliedPointerId != this.mActivePointerId
+                || this.mDragState != STATE_DRAGGING || this.mCapturedView == null) {
+            return;
+        }
+        final int slot = this.mPointers.slotOf(this.mActivePointerId);
+        if (slot == PointerTable.NO_SLOT) {
+            return;
+        }
+        final float deltaX = this.mDeltaX;
+        final float deltaY = this.mDeltaY;
+        this.applyPosition(this.mPointers.getLastX(slot), this.mPointers.getLastY(slot));
+        this.saveDeltaXY(deltaX, deltaY);
+    }
+
+    private void applyPosition(float x, float y) {
+        final int idx = (int) (x - this.mAppliedX);
+        final int idy = (int) (y - this.mAppliedY);
+        this.mAppliedX += idx;
+        this.mAppliedY += idy;
+        this.dragTo((int) (this.mCapturedView.getContentPositionX() + idx), (int) (getViewTop(this.mCapturedView) + idy), idx, idy);
+    }
+
     private void dragTo(int left, int top, int dx, int dy) {
         int clampedX = left;
         int clampedY = top;
         int oldLeft = (int) this.mCapturedView.getContentPositionX();
-        int oldTop = (int) this.mCapturedView.getContentPositionY();
+        int oldTop = (int) getViewTop(this.mCapturedView);
         if (dx != 0) {
             clampedX = this.mCallback.clampViewPositionHorizontal(this.mCapturedView, left, dx);
             this.mCapturedView.setContentPositionX(clampedX);
         }
         if (dy != 0) {
             clampedY = this.mCallback.clampViewPositionVertical(this.mCapturedView, top, dy);
-            this.mCapturedView.setContentPositionY(clampedY);
+            this.mCallback.moveViewVertical(this.mCapturedView, clampedY);
         }
         if (dx != 0 || dy != 0) {
             int clampedDx = clampedX - oldLeft;
@@ -466,6 +697,13 @@ public class DragHelper {
 
     }
 
+    /**
+     * @return the top of a view as drawn, including its translation
+     */
+    private static float getViewTop(Component view) {
+        return view.getContentPositionY() + view.getTranslationY();
+    }
+
     /**
      * Determine if the currently captured view is under the given point in the
      * parent view's coordinate system. If there is no captured view this method
@@ -511,17 +749,13 @@ public class DragHelper {
         int childCount = this.mParentView.getChildCount();
         for(int i = childCount - 1; i >= 0; --i) {
             Component child = this.mParentView.getComponentAt(this.mCallback.getOrderedChildIndex(i));
-            if (x >= child.getContentPositionX() && x < child.getRight() && y >= child.getContentPositionY() && y < child.getBottom()) {
+            if (this.mCallback.isChildUnder(child, x, y)) {
                 return child;
             }
         }
         return null;
     }
 
-    private boolean isValidPointerForActionMove(int pointerId) {
-        return this.isPointerDown(pointerId);
-    }
-
     /**
      * A Callback is used as a communication channel with the ViewDragHelper back to the
      * parent view using it. <code>on*</code>methods are invoked on significant events and several
@@ -581,6 +815,32 @@ public class DragHelper {
             return index;
         }
 
+        /**
+         * Moves the captured view to a new, already clamped, top while it is dragged. The default
+         * sets its content position; override it to move the view some other way, e.g. through
+         * its translation. The drag reads the top back including the translation.
+         *
+         * @param child Child view being dragged
+         * @param top New Y coordinate of the top edge of the view
+         */
+        public void moveViewVertical(@NonNull Component child, int top) {
+            child.setContentPositionY(top);
+        }
+
+        /**
+         * Called by {@link #findTopChildUnder(int, int)} to hit test a child. The default tests
+         * the bounds of the child; override it when only part of the child can be grabbed.
+         *
+         * @param child Child view to hit test
+         * @param x X position in the parent's coordinate system
+         * @param y Y position in the parent's coordinate system
+         * @return true if the child is under the point
+         */
+        public boolean isChildUnder(@NonNull Component child, int x, int y) {
+            return x >= child.getContentPositionX() && x < child.getRight()
+                    && y >= child.getContentPositionY() && y < child.getBottom();
+        }
+
         /**
          * Return the magnitude of a draggable child view's horizontal range of motion in pixels.
          * This method should return 0 for views that cannot move horizontally.
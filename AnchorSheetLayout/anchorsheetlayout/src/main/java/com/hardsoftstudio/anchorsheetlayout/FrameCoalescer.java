@@ -0,0 +1,93 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+/**
+ * Limits a stream of values to at most one delivery per display frame while always delivering
+ * the latest value.
+ *
+ * <p>The first value of a frame is delivered right away. Values offered later in the same frame
+ * only replace the pending value, which is delivered on the next frame, or earlier through
+ * {@link #flush()}. Frames come from a {@link FrameTicker}, which only runs until a frame passes
+ * without a value.</p>
+ */
+final class FrameCoalescer implements FrameTicker.Listener {
+
+    /**
+     * Receives the coalesced values.
+     */
+    interface Sink {
+        void onCoalesced(float value);
+    }
+
+    private final Sink mSink;
+
+    private final FrameTicker mTicker = new FrameTicker(this);
+
+    /**
+     * Whether a value was delivered since the last frame.
+     */
+    private boolean mDelivered;
+
+    private boolean mPending;
+
+    private float mPendingValue;
+
+    FrameCoalescer(Sink sink) {
+        mSink = sink;
+    }
+
+    /**
+     * Offers a value, delivering it now if nothing was delivered during the current frame.
+     *
+     * @param value the latest value
+     */
+    void offer(float value) {
+        if (!mDelivered) {
+            deliver(value);
+        } else {
+            mPendingValue = value;
+            mPending = true;
+        }
+        mTicker.start();
+    }
+
+    /**
+     * @return Whether a value waits for the next frame.
+     */
+    boolean isPending() {
+        return mPending;
+    }
+
+    /**
+     * Delivers the pending value, if any, right away.
+     */
+    void flush() {
+        if (mPending) {
+            deliver(mPendingValue);
+        }
+    }
+
+    /**
+     * Drops the pending value and stops waiting for frames.
+     */
+    void cancel() {
+        mPending = false;
+        mDelivered = false;
+        mTicker.stop();
+    }
+
+    @Override
+    public void onFrame() {
+        if (mPending) {
+            deliver(mPendingValue);
+        } else {
+            mDelivered = false;
+            mTicker.stop();
+        }
+    }
+
+    private void deliver(float value) {
+        mPending = false;
+        mDelivered = true;
+        mSink.onCoalesced(value);
+    }
+}
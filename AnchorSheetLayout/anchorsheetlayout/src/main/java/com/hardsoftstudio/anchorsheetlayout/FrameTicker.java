@@ -0,0 +1,66 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.Animator;
+import ohos.agp.animation.AnimatorValue;
+
+/**
+ * Calls back once per display frame while started.
+ *
+ * <p>The Java UI has no vsync callback, so the frames are taken from an {@link AnimatorValue}:
+ * the animation framework updates running animators once per frame, at the pace of the display.
+ * The animator runs only between {@link #start()} and {@link #stop()}.</p>
+ */
+final class FrameTicker implements AnimatorValue.ValueUpdateListener {
+
+    /**
+     * Receives the frames.
+     */
+    interface Listener {
+        void onFrame();
+    }
+
+    /**
+     * Long enough to outlast a gesture; a ticker that runs out is started again by the next
+     * {@link #start()}.
+     */
+    private static final long DURATION_MILLIS = 60_000;
+
+    private final Listener mListener;
+
+    private AnimatorValue mAnimator;
+
+    FrameTicker(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Starts calling back from the next frame on; does nothing if already started.
+     */
+    void start() {
+        if (mAnimator == null) {
+            mAnimator = new AnimatorValue();
+            mAnimator.setDuration(DURATION_MILLIS);
+            mAnimator.setLoopedCount(0);
+            mAnimator.setCurveType(Animator.CurveType.LINEAR);
+            mAnimator.setValueUpdateListener(this);
+        }
+        if (!mAnimator.isRunning()) {
+            mAnimator.start();
+        }
+    }
+
+    void stop() {
+        if (mAnimator != null && mAnimator.isRunning()) {
+            mAnimator.cancel();
+        }
+    }
+
+    boolean isStarted() {
+        return mAnimator != null && mAnimator.isRunning();
+    }
+
+    @Override
+    public void onUpdate(AnimatorValue animatorValue, float value) {
+        mListener.onFrame();
+    }
+}
@@ -0,0 +1,232 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentParent;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * The scrollable components of a sheet with their bounds in the coordinates of the sheet's
+ * child, sorted by top edge.
+ *
+ * <p>Alongside the sorted tops it keeps the running maximum of the bottoms, so a point lookup is
+ * a binary search followed by a backwards scan that stops as soon as no earlier region can reach
+ * the point: O(log n) for regions stacked down a form. Components are held weakly; entries whose
+ * component was collected or detached from the child are dropped when met.</p>
+ */
+final class ScrollableIndex {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int mSize;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private WeakReference<Component>[] mRefs = new WeakReference[INITIAL_CAPACITY];
+
+    private float[] mLeft = new float[INITIAL_CAPACITY];
+
+    private float[] mTop = new float[INITIAL_CAPACITY];
+
+    private float[] mRight = new float[INITIAL_CAPACITY];
+
+    private float[] mBottom = new float[INITIAL_CAPACITY];
+
+    /**
+     * {@code mMaxBottom[i]} is the largest bottom among entries {@code 0..i}.
+     */
+    private float[] mMaxBottom = new float[INITIAL_CAPACITY];
+
+    private float mBoundsLeft;
+
+    private float mBoundsTop;
+
+    int size() {
+        return mSize;
+    }
+
+    void clear() {
+        Arrays.fill(mRefs, 0, mSize, null);
+        mSize = 0;
+    }
+
+    /**
+     * Indexes a component, or updates its bounds if it is already indexed.
+     *
+     * @param component a descendant of {@code root}
+     * @param root      the sheet's child
+     * @return Whether the component is indexed; {@code false} if it is not under {@code root}.
+     */
+    boolean add(Component component, Component root) {
+        remove(component);
+        if (!computeBounds(component, root)) {
+            return false;
+        }
+        insert(new WeakReference<>(component), mBoundsLeft, mBoundsTop,
+                mBoundsLeft + component.getWidth(), mBoundsTop + component.getHeight());
+        return true;
+    }
+
+    void remove(Component component) {
+        for (int i = 0; i < mSize; i++) {
+            if (mRefs[i].get() == component) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Re-reads the bounds of every entry after the content was laid out again and drops the stale
+     * ones. Only the indexed components and their parents are visited, not the whole tree.
+     *
+     * @param root the sheet's child
+     */
+    void refresh(Component root) {
+        int size = 0;
+        for (int i = 0; i < mSize; i++) {
+            Component component = mRefs[i].get();
+            if (component == null || !computeBounds(component, root)) {
+                continue;
+            }
+            mRefs[size] = mRefs[i];
+            mLeft[size] = mBoundsLeft;
+            mTop[size] = mBoundsTop;
+            mRight[size] = mBoundsLeft + component.getWidth();
+            mBottom[size] = mBoundsTop + component.getHeight();
+            size++;
+        }
+        Arrays.fill(mRefs, size, mSize, null);
+        mSize = size;
+        // Layout passes rarely reorder regions, so this is close to linear.
+        for (int i = 1; i < mSize; i++) {
+            for (int j = i; j > 0 && mTop[j - 1] > mTop[j]; j--) {
+                swap(j - 1, j);
+            }
+        }
+        updateMaxBottom(0);
+    }
+
+    /**
+     * @param x X in the coordinates of the sheet's child
+     * @param y Y in the coordinates of the sheet's child
+     * @return The indexed component under the point, the one whose top edge is closest to it if
+     * several overlap, or {@code null}.
+     */
+    Component find(float x, float y) {
+        int i = upperBound(y) - 1;
+        while (i >= 0 && mMaxBottom[i] > y) {
+            if (y < mBottom[i] && x >= mLeft[i] && x < mRight[i]) {
+                Component component = mRefs[i].get();
+                if (component != null) {
+                    return component;
+                }
+                removeAt(i);
+            }
+            i--;
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of entries whose top is at or above {@code y}.
+     */
+    private int upperBound(float y) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTop[mid] <= y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insert(WeakReference<Component> ref, float left, float top, float right, float bottom) {
+        if (mSize == mRefs.length) {
+            int capacity = mSize * 2;
+            mRefs = Arrays.copyOf(mRefs, capacity);
+            mLeft = Arrays.copyOf(mLeft, capacity);
+            mTop = Arrays.copyOf(mTop, capacity);
+            mRight = Arrays.copyOf(mRight, capacity);
+            mBottom = Arrays.copyOf(mBottom, capacity);
+            mMaxBottom = Arrays.copyOf(mMaxBottom, capacity);
+        }
+        int index = upperBound(top);
+        int tail = mSize - index;
+        System.arraycopy(mRefs, index, mRefs, index + 1, tail);
+        System.arraycopy(mLeft, index, mLeft, index + 1, tail);
+        System.arraycopy(mTop, index, mTop, index + 1, tail);
+        System.arraycopy(mRight, index, mRight, index + 1, tail);
+        System.arraycopy(mBottom, index, mBottom, index + 1, tail);
+        mRefs[index] = ref;
+        mLeft[index] = left;
+        mTop[index] = top;
+        mRight[index] = right;
+        mBottom[index] = bottom;
+        mSize++;
+        updateMaxBottom(index);
+    }
+
+    private void removeAt(int index) {
+        int tail = mSize - index - 1;
+        System.arraycopy(mRefs, index + 1, mRefs, index, tail);
+        System.arraycopy(mLeft, index + 1, mLeft, index, tail);
+        System.arraycopy(mTop, index + 1, mTop, index, tail);
+        System.arraycopy(mRight, index + 1, mRight, index, tail);
+        System.arraycopy(mBottom, index + 1, mBottom, index, tail);
+        mSize--;
+        mRefs[mSize] = null;
+        updateMaxBottom(index);
+    }
+
+    private void updateMaxBottom(int from) {
+        float max = from > 0 ? mMaxBottom[from - 1] : Float.NEGATIVE_INFINITY;
+        for (int i = from; i < mSize; i++) {
+            max = Math.max(max, mBottom[i]);
+            mMaxBottom[i] = max;
+        }
+    }
+
+    private void swap(int a, int b) {
+        WeakReference<Component> ref = mRefs[a];
+        mRefs[a] = mRefs[b];
+        mRefs[b] = ref;
+        float value = mLeft[a];
+        mLeft[a] = mLeft[b];
+        mLeft[b] = value;
+        value = mTop[a];
+        mTop[a] = mTop[b];
+        mTop[b] = value;
+        value = mRight[a];
+        mRight[a] = mRight[b];
+        mRight[b] = value;
+        value = mBottom[a];
+        mBottom[a] = mBottom[b];
+        mBottom[b] = value;
+    }
+
+    /**
+     * Computes the top left corner of a component in the coordinates of {@code root} into
+     * {@link #mBoundsLeft} and {@link #mBoundsTop}.
+     *
+     * @return Whether the component is under {@code root}.
+     */
+    private boolean computeBounds(Component component, Component root) {
+        float left = 0;
+        float top = 0;
+        Component current = component;
+        while (current != null && current != root) {
+            left += current.getContentPositionX();
+            top += current.getContentPositionY();
+            ComponentParent parent = current.getComponentParent();
+            current = parent instanceof Component ? (Component) parent : null;
+        }
+        mBoundsLeft = left;
+        mBoundsTop = top;
+        return current != null;
+    }
+}
@@ -0,0 +1,194 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import com.hardsoftstudio.anchorsheetlayout.core.SheetMotion;
+import ohos.agp.animation.Animator;
+import ohos.agp.animation.AnimatorValue;
+
+/**
+ * The one settle animation of a sheet. The underlying {@link AnimatorValue} and its listeners are
+ * created once and retargeted for every transition, so starting a settle allocates nothing and a
+ * superseded settle can never keep moving the sheet.
+ *
+ * <p>Every settle ends exactly once, with one of {@link AnchorSheetLayout#SETTLE_COMPLETED},
+ * {@link AnchorSheetLayout#SETTLE_SUPERSEDED} or {@link AnchorSheetLayout#SETTLE_CANCELLED}.</p>
+ */
+final class SettleAnimator implements AnimatorValue.ValueUpdateListener, Animator.StateChangedListener {
+
+    /**
+     * Receives the frames and the end of each settle.
+     */
+    interface Listener {
+        /**
+         * Called on every frame of a running settle.
+         *
+         * @param top new offset of the sheet
+         */
+        void onSettleFrame(float top);
+
+        /**
+         * Called once when a settle ends.
+         *
+         * @param targetState state the settle was heading to
+         * @param top         offset of the sheet; the target offset if the settle completed
+         * @param outcome     how the settle ended
+         */
+        void onSettleEnd(int targetState, float top, int outcome);
+    }
+
+    private final AnimatorValue mAnimator = new AnimatorValue();
+
+    private final SheetMotion mMotion = new SheetMotion();
+
+    private final Listener mListener;
+
+    private int mMode;
+
+    private float mFrom;
+
+    private int mTo;
+
+    private int mTargetState;
+
+    private int mDuration;
+
+    private float mLastElapsed;
+
+    private float mPosition;
+
+    private boolean mRunning;
+
+    /**
+     * Set while the animator is stopped on purpose, so its own callbacks are ignored.
+     */
+    private boolean mRestarting;
+
+    SettleAnimator(Listener listener) {
+        mListener = listener;
+        mAnimator.setLoopedCount(0);
+        mAnimator.setCurveType(Animator.CurveType.LINEAR);
+        mAnimator.setValueUpdateListener(this);
+        mAnimator.setStateChangedListener(this);
+    }
+
+    SheetMotion getMotion() {
+        return mMotion;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    int getTargetState() {
+        return mTargetState;
+    }
+
+    /**
+     * Starts settling, superseding the settle in progress if there is one.
+     *
+     * @param mode        {@link AnchorSheetLayout#SETTLE_MODE_LINEAR} or one of the
+     *                    {@link SheetMotion} modes
+     * @param from        current offset
+     * @param to          target offset
+     * @param velocity    current velocity in px/s
+     * @param targetState state to report once settled
+     * @param duration    duration in milliseconds; an upper bound for the physics modes
+     */
+    void settle(int mode, float from, int to, float velocity, int targetState, int duration) {
+        if (mRunning) {
+            stopAnimator();
+            end(AnchorSheetLayout.SETTLE_SUPERSEDED);
+        }
+        mMode = mode;
+        mFrom = from;
+        mTo = to;
+        mPosition = from;
+        mTargetState = targetState;
+        mDuration = duration;
+        mLastElapsed = 0;
+        if (mode != AnchorSheetLayout.SETTLE_MODE_LINEAR) {
+            mMotion.start(mode, from, velocity, to);
+        }
+        mRunning = true;
+        mAnimator.setDuration(duration);
+        mAnimator.start();
+    }
+
+    /**
+     * Stops the settle in progress where it is.
+     */
+    void cancel() {
+        if (!mRunning) {
+            return;
+        }
+        stopAnimator();
+        end(AnchorSheetLayout.SETTLE_CANCELLED);
+    }
+
+    @Override
+    public void onUpdate(AnimatorValue animatorValue, float v) {
+        if (!mRunning || mRestarting) {
+            return;
+        }
+        boolean finished;
+        if (mMode == AnchorSheetLayout.SETTLE_MODE_LINEAR) {
+            mPosition = v * (mTo - mFrom) + mFrom;
+            finished = v > 0.999999f;
+        } else {
+            float elapsed = v * mDuration;
+            finished = !mMotion.step((elapsed - mLastElapsed) / 1000f) || v >= 1f;
+            mLastElapsed = elapsed;
+            mPosition = mMotion.getPosition();
+        }
+        if (finished) {
+            stopAnimator();
+            complete();
+        } else {
+            mListener.onSettleFrame(mPosition);
+        }
+    }
+
+    @Override
+    public void onEnd(Animator animator) {
+        // The last frame is not guaranteed to report exactly 1.
+        if (mRunning && !mRestarting) {
+            complete();
+        }
+    }
+
+    @Override
+    public void onStart(Animator animator) {
+    }
+
+    @Override
+    public void onStop(Animator animator) {
+    }
+
+    @Override
+    public void onCancel(Animator animator) {
+    }
+
+    @Override
+    public void onPause(Animator animator) {
+    }
+
+    @Override
+    public void onResume(Animator animator) {
+    }
+
+    private void complete() {
+        mPosition = mTo;
+        end(AnchorSheetLayout.SETTLE_COMPLETED);
+    }
+
+    private void end(int outcome) {
+        mRunning = false;
+        mMotion.cancel();
+        mListener.onSettleEnd(mTargetState, mPosition, outcome);
+    }
+
+    private void stopAnimator() {
+        mRestarting = true;
+        mAnimator.cancel();
+        mRestarting = false;
+    }
+}
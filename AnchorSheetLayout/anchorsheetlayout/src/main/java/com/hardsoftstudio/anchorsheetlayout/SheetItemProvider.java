@@ -0,0 +1,132 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.components.BaseItemProvider;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.agp.components.ComponentParent;
+import ohos.app.Context;
+
+/**
+ * A {@link BaseItemProvider} for a list inside an {@link AnchorSheetLayout} that only binds the
+ * rows on screen. Rows below the visible part of the sheet get an empty placeholder of the
+ * estimated row height and are bound once the sheet moves up far enough to show them.
+ *
+ * <p>Register it with {@link AnchorSheetLayout#addViewportListener(AnchorSheetLayout.ViewportListener)}.
+ * Row positions are derived from the estimated height, so it suits lists whose rows are about
+ * the same height. The list itself only scrolls once the sheet is expanded, so scrolling never
+ * reveals a placeholder.</p>
+ */
+public abstract class SheetItemProvider extends BaseItemProvider implements AnchorSheetLayout.ViewportListener {
+
+    /**
+     * Stands in for a row that is not bound yet.
+     */
+    private static final class Placeholder extends Component {
+        Placeholder(Context context) {
+            super(context);
+        }
+    }
+
+    private final int mRowHeight;
+
+    private ComponentContainer mList;
+
+    private Component mSheet;
+
+    private int mSheetVisibleBottom = Integer.MAX_VALUE;
+
+    private int mDeferredFrom = Integer.MAX_VALUE;
+
+    private int mDeferredTo = -1;
+
+    /**
+     * @param estimatedRowHeight Height of a row in pixels, also used for the placeholders.
+     */
+    protected SheetItemProvider(int estimatedRowHeight) {
+        if (estimatedRowHeight <= 0) {
+            throw new IllegalArgumentException("estimatedRowHeight must be positive: " + estimatedRowHeight);
+        }
+        mRowHeight = estimatedRowHeight;
+    }
+
+    /**
+     * Creates or rebinds the component of a row on screen, like
+     * {@link BaseItemProvider#getComponent(int, Component, ComponentContainer)}.
+     *
+     * @param position         Position of the row.
+     * @param convertComponent A previously bound component to reuse, or {@code null}.
+     * @param parent           The list.
+     * @return The bound component.
+     */
+    protected abstract Component bindComponent(int position, Component convertComponent, ComponentContainer parent);
+
+    @Override
+    public final Component getComponent(int position, Component convertComponent, ComponentContainer parent) {
+        mList = parent;
+        if ((long) position * mRowHeight < visibleBottomInList()) {
+            return bindComponent(position, convertComponent instanceof Placeholder ? null : convertComponent, parent);
+        }
+        mDeferredFrom = Math.min(mDeferredFrom, position);
+        mDeferredTo = Math.max(mDeferredTo, position);
+        if (convertComponent instanceof Placeholder) {
+            return convertComponent;
+        }
+        Placeholder placeholder = new Placeholder(parent.getContext());
+        placeholder.setHeight(mRowHeight);
+        return placeholder;
+    }
+
+    /**
+     * @return Number of rows currently showing a placeholder.
+     */
+    public int getDeferredCount() {
+        return mDeferredTo < 0 ? 0 : mDeferredTo - mDeferredFrom + 1;
+    }
+
+    @Override
+    public void onViewportChanged(Component bottomSheet, int visibleTop, int visibleBottom) {
+        mSheet = bottomSheet;
+        mSheetVisibleBottom = visibleBottom;
+        if (mDeferredTo < 0) {
+            return;
+        }
+        int bottom = visibleBottomInList();
+        if (bottom <= 0) {
+            return;
+        }
+        int lastVisible = (int) ((bottom - 1L) / mRowHeight);
+        if (lastVisible < mDeferredFrom) {
+            return;
+        }
+        int from = mDeferredFrom;
+        int to = Math.min(lastVisible, mDeferredTo);
+        if (to == mDeferredTo) {
+            mDeferredFrom = Integer.MAX_VALUE;
+            mDeferredTo = -1;
+        } else {
+            mDeferredFrom = to + 1;
+        }
+        notifyDataSetItemRangeChanged(from, to - from + 1);
+    }
+
+    /**
+     * @return Bottom of the visible part of the sheet in the content coordinates of the list,
+     * unbounded until both are known.
+     */
+    private int visibleBottomInList() {
+        if (mList == null || mSheet == null) {
+            return Integer.MAX_VALUE;
+        }
+        float listTop = 0;
+        Component component = mList;
+        while (component != null && component != mSheet) {
+            listTop += component.getContentPositionY();
+            ComponentParent parent = component.getComponentParent();
+            component = parent instanceof Component ? (Component) parent : null;
+        }
+        if (component == null) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) (mSheetVisibleBottom - listTop) + mList.getScrollValue(Component.AXIS_Y);
+    }
+}
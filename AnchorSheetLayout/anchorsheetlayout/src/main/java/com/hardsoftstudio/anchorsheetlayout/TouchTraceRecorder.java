@@ -0,0 +1,62 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import com.hardsoftstudio.anchorsheetlayout.core.TouchTrace;
+import ohos.multimodalinput.event.MmiPoint;
+import ohos.multimodalinput.event.TouchEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Captures the touch events reaching an {@link AnchorSheetLayout} into a {@link TouchTrace}
+ * so the gesture can be replayed off-device.
+ *
+ * @see AnchorSheetLayout#setTouchTraceRecorder(TouchTraceRecorder)
+ */
+public class TouchTraceRecorder {
+    private final TouchTrace mTrace = new TouchTrace();
+
+    /**
+     * Called by the sheet when the recorder is attached. The trace starts from the state
+     * {@link AnchorSheetLayout#saveState()} gives, so it carries the layout options as well as
+     * the physics.
+     *
+     * @param layout sheet being recorded
+     */
+    void begin(AnchorSheetLayout layout) {
+        mTrace.begin(layout.saveState(), layout.getPhysics().getWidth());
+    }
+
+    /**
+     * Appends an event to the trace.
+     *
+     * @param event event received by the sheet
+     */
+    void record(TouchEvent event) {
+        int pointerCount = event.getPointerCount();
+        mTrace.appendEvent(event.getAction(), event.getIndex(), event.getOccurredTime(), pointerCount);
+        for (int i = 0; i < pointerCount; i++) {
+            MmiPoint position = event.getPointerPosition(i);
+            MmiPoint screenPosition = event.getPointerScreenPosition(i);
+            mTrace.appendPointer(event.getPointerId(i), position.getX(), position.getY(),
+                    screenPosition.getX(), screenPosition.getY());
+        }
+    }
+
+    /**
+     * @return The trace recorded so far.
+     */
+    public TouchTrace getTrace() {
+        return mTrace;
+    }
+
+    /**
+     * Writes the trace recorded so far.
+     *
+     * @param out stream to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        mTrace.writeTo(out);
+    }
+}
@@ -0,0 +1,176 @@
+package com.hardsoftstudio.anchorsheetlayout.benchmark;
+
+import ohos.multimodalinput.event.TouchEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of touch events travelling through the sheet's touch listener,
+ * {@code DragHelper.processTouchEvent}, {@code dragTo}, the drag callback and
+ * {@code dispatchOnSlide}.
+ *
+ * <p>Every benchmark is normalised per touch event, so the average time is ns/event and the
+ * gc profiler's {@code gc.alloc.rate.norm} is bytes/event. Gestures that end in a release also
+ * drive the resulting settle animation to completion, so its frames are part of the cost.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DragHelperBenchmark {
+
+    private static final float X = SheetFixture.WIDTH / 2f;
+
+    private static final int STEP = 8;
+
+    private static final int MOVES = 30;
+
+    /**
+     * down, {@link #MOVES} moves, up.
+     */
+    private static final int GESTURE_EVENTS = MOVES + 2;
+
+    /**
+     * down, other down, {@link #MOVES} moves, other up, {@link #MOVES} moves, up.
+     */
+    private static final int MULTI_POINTER_EVENTS = 2 * MOVES + 4;
+
+    private static final int DRAG_MOVES = 32;
+
+    /**
+     * A sheet that is released at the end of every gesture.
+     */
+    @State(Scope.Thread)
+    public static class ReleasedSheet {
+        SheetFixture fixture;
+
+        boolean up = true;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fixture = new SheetFixture();
+        }
+    }
+
+    /**
+     * A sheet that is held in the dragging state for the whole iteration.
+     */
+    @State(Scope.Thread)
+    public static class DraggedSheet {
+        SheetFixture fixture;
+
+        float y;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            fixture = new SheetFixture();
+            y = fixture.top() + 10;
+            fixture.single(TouchEvent.PRIMARY_POINT_DOWN, X, y);
+            for (int i = 0; i < 4; i++) {
+                y -= STEP;
+                fixture.single(TouchEvent.POINT_MOVE, X, y);
+            }
+        }
+    }
+
+    /**
+     * Plain single pointer drag alternating upwards and downwards, released with little
+     * velocity.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GESTURE_EVENTS)
+    public float downMoveUp(ReleasedSheet sheet) {
+        SheetFixture fixture = sheet.fixture;
+        int step = sheet.up ? -STEP : STEP;
+        float y = fixture.top() + 10;
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, X, y);
+        for (int i = 0; i < MOVES; i++) {
+            y += step;
+            fixture.single(TouchEvent.POINT_MOVE, X, y);
+        }
+        // Hold still so the release carries no fling.
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, X, y);
+        fixture.drainSettle();
+        sheet.up = !sheet.up;
+        return fixture.top();
+    }
+
+    /**
+     * Two pointers on the sheet; the second one is lifted half way through.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MULTI_POINTER_EVENTS)
+    public float multiPointer(ReleasedSheet sheet) {
+        SheetFixture fixture = sheet.fixture;
+        int step = sheet.up ? -STEP / 2 : STEP / 2;
+        float y = fixture.top() + 10;
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, X, y);
+        fixture.pair(TouchEvent.OTHER_POINT_DOWN, 1, X, y, X + 100, y + 20);
+        for (int i = 0; i < MOVES; i++) {
+            y += step;
+            fixture.pair(TouchEvent.POINT_MOVE, 0, X, y, X + 100, y + 20);
+        }
+        fixture.pair(TouchEvent.OTHER_POINT_UP, 1, X, y, X + 100, y + 20);
+        for (int i = 0; i < MOVES; i++) {
+            y += step;
+            fixture.single(TouchEvent.POINT_MOVE, X, y);
+        }
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, X, y);
+        fixture.drainSettle();
+        sheet.up = !sheet.up;
+        return fixture.top();
+    }
+
+    /**
+     * Fast flick alternating upwards and downwards, followed by the settle animation.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GESTURE_EVENTS)
+    public float releaseWithFling(ReleasedSheet sheet) {
+        SheetFixture fixture = sheet.fixture;
+        int step = sheet.up ? -3 * STEP : 3 * STEP;
+        float y = fixture.top() + 10;
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, X, y);
+        for (int i = 0; i < MOVES; i++) {
+            y += step;
+            fixture.single(TouchEvent.POINT_MOVE, X, y);
+        }
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, X, y + step);
+        fixture.drainSettle();
+        sheet.up = !sheet.up;
+        return fixture.top();
+    }
+
+    /**
+     * {@code POINT_MOVE} alone while the sheet is being dragged: the per-frame hot path.
+     */
+    @Benchmark
+    @OperationsPerInvocation(DRAG_MOVES)
+    public float dragMove(DraggedSheet sheet) {
+        SheetFixture fixture = sheet.fixture;
+        float y = sheet.y;
+        for (int i = 0; i < DRAG_MOVES / 2; i++) {
+            y -= STEP;
+            fixture.single(TouchEvent.POINT_MOVE, X, y);
+        }
+        for (int i = 0; i < DRAG_MOVES / 2; i++) {
+            y += STEP;
+            fixture.single(TouchEvent.POINT_MOVE, X, y);
+        }
+        sheet.y = y;
+        return fixture.top();
+    }
+}
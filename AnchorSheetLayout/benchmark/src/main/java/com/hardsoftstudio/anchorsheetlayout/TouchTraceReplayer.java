@@ -0,0 +1,183 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import com.hardsoftstudio.anchorsheetlayout.core.TouchTrace;
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Replays a {@link TouchTrace} recorded by {@link TouchTraceRecorder} through a headless
+ * {@link AnchorSheetLayout}, so gestures reported from the field can be reproduced at CI speed.
+ *
+ * <p>Settle animations are advanced frame by frame on the trace's own timeline, so a gesture that
+ * grabs a settling sheet replays the same way it happened.</p>
+ *
+ * <p>Usage: {@code ./gradlew :benchmark:replay -Ptrace=<file>}</p>
+ */
+public final class TouchTraceReplayer {
+
+    private static final long FRAME_INTERVAL_MS = 16;
+
+    private static final int MAX_SETTLE_FRAMES = 256;
+
+    /**
+     * Outcome of a replay.
+     */
+    public static final class Result {
+        private final long[] mLatencies;
+
+        private final int[] mSettledStates;
+
+        private final int mFinalState;
+
+        private final float mFinalTop;
+
+        Result(long[] latencies, int[] settledStates, int finalState, float finalTop) {
+            mLatencies = latencies;
+            mSettledStates = settledStates;
+            mFinalState = finalState;
+            mFinalTop = finalTop;
+        }
+
+        public int getEventCount() {
+            return mLatencies.length;
+        }
+
+        /**
+         * @param percentile value between 0..100
+         * @return Time the sheet spent handling an event at that percentile, in nanoseconds.
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (mLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * mLatencies.length) - 1;
+            return mLatencies[Math.max(0, Math.min(mLatencies.length - 1, index))];
+        }
+
+        /**
+         * @return Every resting state the sheet settled to, in order.
+         */
+        public int[] getSettledStates() {
+            return mSettledStates.clone();
+        }
+
+        public int getFinalState() {
+            return mFinalState;
+        }
+
+        /**
+         * @return Offset of the sheet once the replay ended, translation included.
+         */
+        public float getFinalTop() {
+            return mFinalTop;
+        }
+
+        @Override
+        public String toString() {
+            return "events=" + getEventCount()
+                    + " p50=" + getLatencyPercentile(50) + "ns"
+                    + " p90=" + getLatencyPercentile(90) + "ns"
+                    + " p99=" + getLatencyPercentile(99) + "ns"
+                    + " max=" + getLatencyPercentile(100) + "ns"
+                    + " settled=" + Arrays.toString(mSettledStates)
+                    + " finalState=" + mFinalState
+                    + " finalTop=" + mFinalTop;
+        }
+    }
+
+    private TouchTraceReplayer() {
+    }
+
+    /**
+     * Replays a trace through a freshly configured sheet.
+     *
+     * @param trace trace to replay
+     * @return outcome of the replay
+     */
+    public static Result replay(TouchTrace trace) {
+        Context context = new Context() {
+        };
+        AnimatorClock.reset();
+        AnchorSheetLayout layout = new AnchorSheetLayout(context, null);
+        layout.setSize(trace.getWidth(), trace.getParentHeight());
+        // Configures the sheet as recorded and places it where the recording started.
+        layout.restoreState(trace.getConfig());
+        ComponentContainer child = new ComponentContainer(context);
+        child.setSize(trace.getWidth(), trace.getParentHeight());
+        layout.addComponent(child);
+
+        int[] settled = new int[16];
+        int[] settledCount = new int[1];
+        layout.setAnchorSheetCallback(new AnchorSheetLayout.AnchorSheetCallback() {
+            @Override
+            public void onStateChanged(Component bottomSheet, int newState) {
+                if (newState == AnchorSheetLayout.STATE_DRAGGING || newState == AnchorSheetLayout.STATE_SETTLING) {
+                    return;
+                }
+                if (settledCount[0] == settled.length) {
+                    return;
+                }
+                settled[settledCount[0]++] = newState;
+            }
+
+            @Override
+            public void onSlide(Component bottomSheet, float slideOffset) {
+            }
+        });
+
+        int eventCount = trace.getEventCount();
+        long[] latencies = new long[eventCount];
+        long baseTime = eventCount > 0 ? trace.getTime(0) : 0;
+        TouchEvent event = new TouchEvent();
+        for (int i = 0; i < eventCount; i++) {
+            long time = trace.getTime(i) - baseTime;
+            while (AnimatorClock.now() + FRAME_INTERVAL_MS <= time) {
+                AnimatorClock.advance(FRAME_INTERVAL_MS);
+            }
+            int pointerCount = trace.getPointerCount(i);
+            event.set(trace.getAction(i), trace.getIndex(i), trace.getTime(i), pointerCount);
+            for (int p = 0, start = trace.getPointerStart(i); p < pointerCount; p++) {
+                event.setPointer(p, trace.getPointerId(start + p), trace.getX(start + p), trace.getY(start + p),
+                        trace.getScreenX(start + p), trace.getScreenY(start + p));
+            }
+            long begin = System.nanoTime();
+            child.dispatchTouchEvent(event);
+            latencies[i] = System.nanoTime() - begin;
+        }
+        for (int frames = 0; AnimatorClock.runningCount() > 0 && frames < MAX_SETTLE_FRAMES; frames++) {
+            AnimatorClock.advance(FRAME_INTERVAL_MS);
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, Arrays.copyOf(settled, settledCount[0]), layout.getState(),
+                layout.getSheetTop());
+    }
+
+    /**
+     * Replays every trace file given on the command line and prints one line per trace.
+     *
+     * @param args trace files
+     * @throws IOException if a trace cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: TouchTraceReplayer <trace>...");
+            System.exit(2);
+        }
+        for (String path : args) {
+            TouchTrace trace;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+                trace = TouchTrace.readFrom(in);
+            }
+            System.out.println(path + ": " + replay(trace));
+        }
+    }
+}
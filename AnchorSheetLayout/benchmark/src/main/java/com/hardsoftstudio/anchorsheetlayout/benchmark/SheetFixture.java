@@ -0,0 +1,82 @@
+package com.hardsoftstudio.anchorsheetlayout.benchmark;
+
+import com.hardsoftstudio.anchorsheetlayout.AnchorSheetLayout;
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+
+/**
+ * An {@link AnchorSheetLayout} with a single child, sized like a phone screen, plus one
+ * reusable {@link TouchEvent} so that feeding a gesture allocates nothing on the harness side.
+ */
+final class SheetFixture {
+    static final int WIDTH = 1080;
+
+    static final int HEIGHT = 1950;
+
+    static final long EVENT_INTERVAL_MS = 8;
+
+    static final long FRAME_INTERVAL_MS = 16;
+
+    private static final int MAX_SETTLE_FRAMES = 64;
+
+    final AnchorSheetLayout layout;
+
+    final ComponentContainer child;
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private long mTime;
+
+    SheetFixture() {
+        Context context = new Context() {
+        };
+        AnimatorClock.reset();
+        layout = new AnchorSheetLayout(context, null);
+        layout.setSize(WIDTH, HEIGHT);
+        child = new ComponentContainer(context);
+        child.setSize(WIDTH, HEIGHT);
+        layout.addComponent(child);
+        layout.setAnchorSheetCallback(new AnchorSheetLayout.AnchorSheetCallback() {
+            @Override
+            public void onStateChanged(Component bottomSheet, int newState) {
+            }
+
+            @Override
+            public void onSlide(Component bottomSheet, float slideOffset) {
+            }
+        });
+    }
+
+    float top() {
+        return child.getContentPositionY();
+    }
+
+    void single(int action, float x, float y) {
+        mTime += EVENT_INTERVAL_MS;
+        mEvent.set(action, 0, mTime, 1).setPointer(0, 0, x, y);
+        child.dispatchTouchEvent(mEvent);
+    }
+
+    void pair(int action, int index, float x0, float y0, float x1, float y1) {
+        mTime += EVENT_INTERVAL_MS;
+        mEvent.set(action, index, mTime, 2).setPointer(0, 0, x0, y0).setPointer(1, 1, x1, y1);
+        child.dispatchTouchEvent(mEvent);
+    }
+
+    /**
+     * Ticks the animator clock until every running settle animation has finished.
+     *
+     * @return number of frames ticked
+     */
+    int drainSettle() {
+        int frames = 0;
+        while (AnimatorClock.runningCount() > 0 && frames < MAX_SETTLE_FRAMES) {
+            AnimatorClock.advance(FRAME_INTERVAL_MS);
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,93 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AnchorSheetHostTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private AnchorSheetHost mHost;
+
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mHost = new AnchorSheetHost(mContext, null);
+        mHost.setSize(WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void removeSheetMidDrag() {
+        AnchorSheetLayout below = addSheet();
+        AnchorSheetLayout top = addSheet();
+        int[] states = new int[1];
+        top.addAnchorSheetCallback(new AnchorSheetLayout.AnchorSheetCallback() {
+            @Override
+            public void onStateChanged(Component bottomSheet, int newState) {
+                states[0] = newState;
+            }
+
+            @Override
+            public void onSlide(Component bottomSheet, float slideOffset) {
+            }
+        });
+
+        touch(TouchEvent.PRIMARY_POINT_DOWN, 1800);
+        for (int y = 1780; y >= 1300; y -= 20) {
+            touch(TouchEvent.POINT_MOVE, y);
+        }
+        assertSame(top, mHost.getActiveSheet());
+        assertEquals(AnchorSheetLayout.STATE_DRAGGING, top.getState());
+
+        mHost.removeComponent(top);
+        assertNull(mHost.getActiveSheet());
+        // Left around 1200, closer to the anchor than to the collapsed offset.
+        assertEquals(AnchorSheetLayout.STATE_ANCHOR, top.getState());
+        assertEquals(AnchorSheetLayout.STATE_ANCHOR, states[0]);
+        assertEquals(top.getPhysics().offsetForState(AnchorSheetLayout.STATE_ANCHOR), top.getSheetTop(), 0f);
+        assertEquals(0, AnimatorClock.runningCount());
+
+        // The shared helper is free for the next gesture.
+        touch(TouchEvent.PRIMARY_POINT_DOWN, 1800);
+        assertSame(below, mHost.getActiveSheet());
+        for (int y = 1780; y >= 1300; y -= 20) {
+            touch(TouchEvent.POINT_MOVE, y);
+        }
+        assertEquals(AnchorSheetLayout.STATE_DRAGGING, below.getState());
+        assertTrue(below.getSheetTop() < 1700);
+        touch(TouchEvent.PRIMARY_POINT_UP, 1300);
+    }
+
+    private AnchorSheetLayout addSheet() {
+        AnchorSheetLayout sheet = new AnchorSheetLayout(mContext, null);
+        sheet.setSize(WIDTH, HEIGHT);
+        ComponentContainer child = new ComponentContainer(mContext);
+        child.setSize(WIDTH, HEIGHT);
+        sheet.addComponent(child);
+        mHost.addComponent(sheet);
+        return sheet;
+    }
+
+    private void touch(int action, float y) {
+        mTime += 8;
+        mHost.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y));
+    }
+}
@@ -0,0 +1,74 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AnchorSheetLayoutTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private final Context mContext = new Context() {
+    };
+
+    private AnchorSheetLayout mSheet;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+    }
+
+    @Test
+    public void twoDetentsHaveNoAnchor() {
+        mSheet.setDetents(new float[]{0.9f, 0.2f}, AnchorSheetLayout.DETENT_UNIT_FRACTION);
+        assertAnchorRejected();
+        layOut();
+        assertEquals(AnchorSheetLayout.STATE_COLLAPSED, mSheet.getState());
+        assertEquals(195, mSheet.getAnchorOffset());
+        assertEquals(1560, mSheet.getPanelOffset());
+        assertEquals(1560f, mSheet.getSheetTop(), 0f);
+        assertAnchorRejected();
+        assertEquals(AnchorSheetLayout.STATE_COLLAPSED, mSheet.getState());
+    }
+
+    @Test
+    public void appLayoutListenerKeepsMeasurement() {
+        int[] passes = new int[1];
+        float[] topSeen = new float[1];
+        mSheet.setLayoutRefreshedListener(component -> {
+            passes[0]++;
+            topSeen[0] = mSheet.getSheetTop();
+        });
+        layOut();
+        assertEquals(1, passes[0]);
+        // The sheet was measured before the app's listener ran.
+        assertEquals(1700f, topSeen[0], 0f);
+
+        mSheet.setSize(WIDTH, 2400);
+        assertEquals(2, passes[0]);
+        assertEquals(2150f, mSheet.getSheetTop(), 0f);
+    }
+
+    private void assertAnchorRejected() {
+        try {
+            mSheet.setState(AnchorSheetLayout.STATE_ANCHOR);
+            fail("accepted the anchor state without an anchor detent");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private void layOut() {
+        mSheet.setSize(WIDTH, HEIGHT);
+        ComponentContainer child = new ComponentContainer(mContext);
+        child.setSize(WIDTH, HEIGHT);
+        mSheet.addComponent(child);
+    }
+}
@@ -0,0 +1,155 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ContentTiersTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private static final int COLLAPSED = 1700;
+
+    private static final int ANCHOR = 975;
+
+    private static final int HYSTERESIS = DragHelper.TOUCH_SLOP;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private final Component[] mContent = new Component[3];
+
+    private final int[] mCreated = new int[3];
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mChild;
+
+    private long mTime;
+
+    private float mY;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setSize(WIDTH, HEIGHT);
+        mChild = new ComponentContainer(mContext);
+        mChild.setSize(WIDTH, HEIGHT);
+        mChild.addComponent(new Component(mContext));
+        mSheet.addComponent(mChild);
+        for (int i = 0; i < mContent.length; i++) {
+            mContent[i] = new Component(mContext);
+        }
+        mSheet.setContentTiers(factory(AnchorSheetLayout.CONTENT_TIER_PEEK),
+                factory(AnchorSheetLayout.CONTENT_TIER_ANCHOR), factory(AnchorSheetLayout.CONTENT_TIER_FULL));
+    }
+
+    @Test
+    public void swapsAroundTheCollapsedLine() {
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_PEEK);
+        mY = 1800;
+        touch(TouchEvent.PRIMARY_POINT_DOWN);
+
+        dragSheetTo(COLLAPSED - HYSTERESIS);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_PEEK);
+        dragSheetTo(COLLAPSED - HYSTERESIS - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+
+        // Back within the hysteresis the anchor tier stays until the sheet is collapsed again.
+        dragSheetTo(COLLAPSED - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+        dragSheetTo(COLLAPSED);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_PEEK);
+
+        dragSheetTo(COLLAPSED - HYSTERESIS - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+        assertCreated(1, 1, 0);
+    }
+
+    @Test
+    public void swapsAroundTheAnchorLine() {
+        mY = 1800;
+        touch(TouchEvent.PRIMARY_POINT_DOWN);
+        dragSheetTo(ANCHOR - HYSTERESIS);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+        dragSheetTo(ANCHOR - HYSTERESIS - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_FULL);
+
+        dragSheetTo(ANCHOR - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_FULL);
+        dragSheetTo(ANCHOR);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_ANCHOR);
+
+        // Each tier is created once, however often it is swapped back in.
+        dragSheetTo(ANCHOR - HYSTERESIS - 1);
+        dragSheetTo(COLLAPSED);
+        dragSheetTo(ANCHOR - HYSTERESIS - 1);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_FULL);
+        assertCreated(1, 1, 1);
+    }
+
+    @Test
+    public void settleCarriesTheTierOfItsTarget() {
+        mSheet.setState(AnchorSheetLayout.STATE_EXPANDED);
+        // Still at the collapsed line, already showing what it will show when expanded.
+        assertEquals((float) COLLAPSED, mSheet.getSheetTop(), 0f);
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_FULL);
+        drain();
+        assertEquals(AnchorSheetLayout.STATE_EXPANDED, mSheet.getState());
+        assertAttached(AnchorSheetLayout.CONTENT_TIER_FULL);
+        assertCreated(1, 0, 1);
+    }
+
+    private AnchorSheetLayout.ContentFactory factory(int tier) {
+        return context -> {
+            mCreated[tier]++;
+            return mContent[tier];
+        };
+    }
+
+    private void assertAttached(int tier) {
+        assertEquals(tier, mSheet.getContentTier());
+        assertEquals(1, mChild.getChildCount());
+        assertSame(mContent[tier], mChild.getComponentAt(0));
+    }
+
+    private void assertCreated(int peek, int anchor, int full) {
+        assertEquals(peek, mCreated[AnchorSheetLayout.CONTENT_TIER_PEEK]);
+        assertEquals(anchor, mCreated[AnchorSheetLayout.CONTENT_TIER_ANCHOR]);
+        assertEquals(full, mCreated[AnchorSheetLayout.CONTENT_TIER_FULL]);
+    }
+
+    /**
+     * Moves the pointer a pixel at a time until the sheet's top is at the given offset.
+     */
+    private void dragSheetTo(int top) {
+        for (int i = 0; i < 2 * HEIGHT && mSheet.getSheetTop() != top; i++) {
+            mY += mSheet.getSheetTop() < top ? 1 : -1;
+            touch(TouchEvent.POINT_MOVE);
+        }
+        assertEquals((float) top, mSheet.getSheetTop(), 0f);
+    }
+
+    private void drain() {
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+        }
+    }
+
+    private void touch(int action) {
+        mTime += 8;
+        float y = mY - mChild.getContentPositionY() - mChild.getTranslationY();
+        mChild.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y, 500, mY));
+    }
+}
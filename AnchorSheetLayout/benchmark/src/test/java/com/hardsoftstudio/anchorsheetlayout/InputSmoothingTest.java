@@ -0,0 +1,112 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import com.hardsoftstudio.anchorsheetlayout.core.SheetMetrics;
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InputSmoothingTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private static final int FRAME = 16;
+
+    /**
+     * A touch panel sampling four times per frame.
+     */
+    private static final int SAMPLES_PER_FRAME = 4;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mChild;
+
+    private int mChildLayouts;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setSize(WIDTH, HEIGHT);
+        mChild = new ComponentContainer(mContext);
+        mChild.setSize(WIDTH, HEIGHT);
+        mSheet.addComponent(mChild);
+        mChild.setLayoutRefreshedListener(component -> mChildLayouts++);
+    }
+
+    @Test
+    public void coalescedMovesRecordTheirLatency() {
+        SheetMetrics metrics = new SheetMetrics();
+        mSheet.setMetrics(metrics);
+        mSheet.setInputCoalescing(true);
+        float y = 1800;
+        touch(TouchEvent.PRIMARY_POINT_DOWN, AnimatorClock.now(), y);
+        for (int frame = 0; frame < 20; frame++) {
+            AnimatorClock.advance(FRAME);
+            // The samples of the last frame arrive together at its end.
+            for (int i = SAMPLES_PER_FRAME - 1; i >= 0; i--) {
+                y -= 5;
+                touch(TouchEvent.POINT_MOVE, AnimatorClock.now() - i * FRAME / SAMPLES_PER_FRAME, y);
+            }
+        }
+        AnimatorClock.advance(FRAME);
+        assertTrue(mSheet.getSkippedMoveCount() > 0);
+
+        // One latency per move of the sheet, those applied at the next frame included.
+        SheetMetrics.Histogram latency = metrics.snapshot().getTouchLatency();
+        assertTrue(mChildLayouts > 20);
+        assertEquals(mChildLayouts, latency.getCount());
+        // The first move of a frame waited for the rest of the batch, the newest for a frame.
+        assertEquals(3 * FRAME / SAMPLES_PER_FRAME * 1000, latency.getMin());
+        assertEquals(FRAME * 1000, latency.getMax());
+    }
+
+    @Test
+    public void resampledReleaseStartsFromTheLastSample() {
+        float rawTop = releasedTop(false, TouchEvent.PRIMARY_POINT_UP);
+        setUp();
+        float predictedTop = releasedTop(true, TouchEvent.PRIMARY_POINT_UP);
+        assertEquals(rawTop, predictedTop, 0f);
+        setUp();
+        assertEquals(rawTop, releasedTop(true, TouchEvent.CANCEL), 0f);
+    }
+
+    /**
+     * Drags the sheet up at a steady pace and ends the gesture.
+     *
+     * @return top of the sheet as the settle that follows starts
+     */
+    private float releasedTop(boolean resampling, int endAction) {
+        mSheet.setTouchResampling(resampling);
+        float y = 1800;
+        touch(TouchEvent.PRIMARY_POINT_DOWN, AnimatorClock.now(), y);
+        for (int frame = 0; frame < 20; frame++) {
+            AnimatorClock.advance(FRAME);
+            y -= 20;
+            touch(TouchEvent.POINT_MOVE, AnimatorClock.now(), y);
+        }
+        float lastMoveTop = mSheet.getSheetTop();
+        touch(endAction, AnimatorClock.now(), y);
+        if (resampling) {
+            // The last move showed the sheet ahead of the pointer.
+            assertTrue(lastMoveTop < mSheet.getSheetTop());
+        }
+        return mSheet.getSheetTop();
+    }
+
+    private void touch(int action, long timeMillis, float screenY) {
+        float y = screenY - mChild.getContentPositionY() - mChild.getTranslationY();
+        mChild.dispatchTouchEvent(mEvent.set(action, 0, timeMillis, 1).setPointer(0, 0, 500, y, 500, screenY));
+    }
+}
@@ -0,0 +1,125 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LazyContentTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mChild;
+
+    private Component mPlaceholder;
+
+    private Component mContent;
+
+    private int mCreated;
+
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setHideable(true);
+        mSheet.setSize(WIDTH, HEIGHT);
+        mChild = new ComponentContainer(mContext);
+        mChild.setSize(WIDTH, HEIGHT);
+        mPlaceholder = new Component(mContext);
+        mChild.addComponent(mPlaceholder);
+        mSheet.addComponent(mChild);
+        mContent = new Component(mContext);
+        mSheet.setContentFactory(context -> {
+            mCreated++;
+            return mContent;
+        });
+    }
+
+    @Test
+    public void placeholderUntilDraggedPastTheSlop() {
+        mSheet.setHideable(false);
+        assertPlaceholder();
+
+        touch(TouchEvent.PRIMARY_POINT_DOWN, 1800);
+        touch(TouchEvent.POINT_MOVE, 1790);
+        touch(TouchEvent.POINT_MOVE, 1780);
+        // 20 pixels up, still within the touch slop.
+        assertPlaceholder();
+        touch(TouchEvent.POINT_MOVE, 1770);
+        assertInflated();
+
+        // Back down and collapsed, the content stays.
+        touch(TouchEvent.POINT_MOVE, 1820);
+        touch(TouchEvent.PRIMARY_POINT_UP, 1820);
+        drain();
+        assertEquals(AnchorSheetLayout.STATE_COLLAPSED, mSheet.getState());
+        assertInflated();
+    }
+
+    @Test
+    public void inflatedWhenHeadingForTheAnchor() {
+        mSheet.setState(AnchorSheetLayout.STATE_ANCHOR);
+        // Created as the settle starts, not when it ends.
+        assertEquals(1700f, mSheet.getSheetTop(), 0f);
+        assertInflated();
+        drain();
+        assertEquals(AnchorSheetLayout.STATE_ANCHOR, mSheet.getState());
+        assertEquals(1, mCreated);
+    }
+
+    @Test
+    public void notInflatedForHidingOrADragDown() {
+        touch(TouchEvent.PRIMARY_POINT_DOWN, 1750);
+        touch(TouchEvent.POINT_MOVE, 1800);
+        touch(TouchEvent.POINT_MOVE, 1850);
+        touch(TouchEvent.PRIMARY_POINT_UP, 1850);
+        drain();
+        mSheet.setState(AnchorSheetLayout.STATE_HIDDEN);
+        drain();
+        assertEquals(AnchorSheetLayout.STATE_HIDDEN, mSheet.getState());
+        assertPlaceholder();
+    }
+
+    private void assertPlaceholder() {
+        assertEquals(0, mCreated);
+        assertFalse(mSheet.isContentInflated());
+        assertSame(mPlaceholder, mChild.getComponentAt(0));
+    }
+
+    private void assertInflated() {
+        assertEquals(1, mCreated);
+        assertTrue(mSheet.isContentInflated());
+        assertEquals(1, mChild.getChildCount());
+        assertSame(mContent, mChild.getComponentAt(0));
+    }
+
+    private void drain() {
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+        }
+    }
+
+    private void touch(int action, float screenY) {
+        mTime += 8;
+        float y = screenY - mChild.getContentPositionY() - mChild.getTranslationY();
+        mChild.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y, 500, screenY));
+    }
+}
@@ -0,0 +1,141 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MovementModeTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private static final int STEP = 10;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mChild;
+
+    private int mChildLayouts;
+
+    private long mTime;
+
+    private int mMoves;
+
+    private float mLastTop;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setSize(WIDTH, HEIGHT);
+        mChild = new ComponentContainer(mContext);
+        mChild.setSize(WIDTH, HEIGHT);
+        mSheet.addComponent(mChild);
+        mChild.setLayoutRefreshedListener(component -> mChildLayouts++);
+    }
+
+    @Test
+    public void positionModeLaysOutEveryFrame() {
+        int moves = dragUp(1800, 800);
+        assertTrue(moves > 50);
+        assertEquals(moves, mChildLayouts);
+        assertEquals(moves, mSheet.getDragLayoutPassCount());
+        assertEquals(0f, mChild.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void translationModeLaysOutAtDetentsOnly() {
+        mSheet.setMovementMode(AnchorSheetLayout.MOVEMENT_MODE_TRANSLATION);
+        int moves = dragUp(1800, 800);
+        assertTrue(moves > 50);
+        // Laid out at the anchor when the drag leaves the collapsed line and at the top when
+        // it passes the anchor; the settle to the top lays out nothing more.
+        assertEquals(2, mChildLayouts);
+        assertEquals(2, mSheet.getDragLayoutPassCount());
+        assertEquals(AnchorSheetLayout.STATE_EXPANDED, mSheet.getState());
+        assertEquals(0f, mChild.getContentPositionY(), 0f);
+        assertEquals(0f, mChild.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void switchingModesKeepsTheSheetInPlace() {
+        mSheet.setState(AnchorSheetLayout.STATE_ANCHOR);
+        drain();
+        mSheet.setMovementMode(AnchorSheetLayout.MOVEMENT_MODE_TRANSLATION);
+        touch(TouchEvent.PRIMARY_POINT_DOWN, 1200);
+        for (int y = 1200 + STEP; y <= 1500; y += STEP) {
+            touch(TouchEvent.POINT_MOVE, y);
+        }
+        float top = mSheet.getSheetTop();
+        assertEquals(975f, mChild.getContentPositionY(), 0f);
+        assertEquals(top, mChild.getContentPositionY() + mChild.getTranslationY(), 0f);
+
+        mSheet.setMovementMode(AnchorSheetLayout.MOVEMENT_MODE_POSITION);
+        assertEquals(top, mChild.getContentPositionY(), 0f);
+        assertEquals(0f, mChild.getTranslationY(), 0f);
+        assertEquals(top, mSheet.getSheetTop(), 0f);
+    }
+
+    /**
+     * Drags the sheet up from a point and releases it, checking at every move and frame that the
+     * child is laid out at a detent or at the sheet's top and translated the rest of the way.
+     *
+     * @return number of moves and frames that moved the sheet
+     */
+    private int dragUp(float screenY, int distance) {
+        mMoves = 0;
+        mLastTop = mSheet.getSheetTop();
+        touch(TouchEvent.PRIMARY_POINT_DOWN, screenY);
+        for (int moved = STEP; moved <= distance; moved += STEP) {
+            touch(TouchEvent.POINT_MOVE, screenY - moved);
+            countMove();
+        }
+        touch(TouchEvent.PRIMARY_POINT_UP, screenY - distance);
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+            countMove();
+        }
+        return mMoves;
+    }
+
+    private void countMove() {
+        assertPlaced();
+        float top = mSheet.getSheetTop();
+        if (top != mLastTop) {
+            mMoves++;
+            mLastTop = top;
+        }
+    }
+
+    private void assertPlaced() {
+        float top = mSheet.getSheetTop();
+        float layoutTop = mChild.getContentPositionY();
+        assertEquals(top, layoutTop + mChild.getTranslationY(), 0f);
+        if (mSheet.getMovementMode() == AnchorSheetLayout.MOVEMENT_MODE_TRANSLATION) {
+            assertTrue("laid out at " + layoutTop, layoutTop == 0 || layoutTop == 975 || layoutTop == 1700);
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+        }
+    }
+
+    private void touch(int action, float screenY) {
+        mTime += 8;
+        float y = screenY - mChild.getContentPositionY() - mChild.getTranslationY();
+        mChild.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y, 500, screenY));
+    }
+}
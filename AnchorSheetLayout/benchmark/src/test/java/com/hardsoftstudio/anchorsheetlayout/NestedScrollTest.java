@@ -0,0 +1,124 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NestedScrollTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private static final int STEP = 10;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final TouchEvent mEvent = new TouchEvent();
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mContent;
+
+    private ComponentContainer mList;
+
+    private long mTime;
+
+    private float mY;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setState(AnchorSheetLayout.STATE_ANCHOR);
+        mSheet.setSize(WIDTH, HEIGHT);
+        mContent = new ComponentContainer(mContext);
+        mContent.setSize(WIDTH, HEIGHT);
+        // A header above a list that scrolls by up to 1000 pixels.
+        mList = new ComponentContainer(mContext);
+        mList.setContentPositionY(200);
+        mList.setSize(WIDTH, 1500);
+        mList.setScrollRange(1000);
+        mContent.addComponent(mList);
+        mSheet.addComponent(mContent);
+        mContent.bindToWindow();
+        assertEquals(975f, mSheet.getSheetTop(), 0f);
+    }
+
+    @Test
+    public void handsOverToTheListAndBack() {
+        down(1300);
+        // Up: the sheet expands first and the list scrolls with the rest.
+        move(-1200);
+        assertEquals(0f, mSheet.getSheetTop(), 0f);
+        assertEquals(225, scrollY());
+
+        // Down in the same gesture: the list scrolls back to its start first.
+        move(-200);
+        move(400);
+        assertEquals(0f, mSheet.getSheetTop(), 0f);
+        assertEquals(25, scrollY());
+        move(400);
+        assertEquals(375f, mSheet.getSheetTop(), 0f);
+        assertEquals(0, scrollY());
+        up();
+    }
+
+    @Test
+    public void listAtItsStartLetsTheSheetTakeADragDown() {
+        down(1300);
+        move(300);
+        assertEquals(1275f, mSheet.getSheetTop(), 0f);
+        assertEquals(0, scrollY());
+        up();
+    }
+
+    @Test
+    public void headerOutsideTheListMovesOnlyTheSheet() {
+        mList.scrollTo(0, 500);
+        down(1050);
+        move(-600);
+        assertEquals(375f, mSheet.getSheetTop(), 0f);
+        move(300);
+        assertEquals(675f, mSheet.getSheetTop(), 0f);
+        assertEquals(500, scrollY());
+        up();
+    }
+
+    private int scrollY() {
+        return mList.getScrollValue(Component.AXIS_Y);
+    }
+
+    private void down(float screenY) {
+        mY = screenY;
+        touch(TouchEvent.PRIMARY_POINT_DOWN);
+    }
+
+    private void move(int distance) {
+        int step = distance > 0 ? STEP : -STEP;
+        for (int moved = 0; moved != distance; moved += step) {
+            mY += step;
+            touch(TouchEvent.POINT_MOVE);
+        }
+    }
+
+    private void up() {
+        touch(TouchEvent.PRIMARY_POINT_UP);
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+        }
+    }
+
+    private void touch(int action) {
+        mTime += 8;
+        // The hit test reads the content's coordinates, the drag the screen's.
+        float y = mY - mContent.getContentPositionY() - mContent.getTranslationY();
+        mContent.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y, 500, mY));
+    }
+}
@@ -0,0 +1,182 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScrollableIndexTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final ScrollableIndex mIndex = new ScrollableIndex();
+
+    private ComponentContainer mRoot;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mRoot = new ComponentContainer(mContext);
+        mRoot.setSize(WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void overlappingRegions() {
+        Component tall = add(mRoot, 0, 0, WIDTH, 1000);
+        Component inner = add(mRoot, 0, 200, WIDTH, 200);
+        Component lower = add(mRoot, 0, 600, WIDTH, 200);
+        Component right = add(mRoot, 540, 1200, 540, 100);
+
+        // The region whose top edge is closest wins where several overlap.
+        assertSame(inner, mIndex.find(100, 300));
+        assertSame(lower, mIndex.find(100, 700));
+        // Between the inner regions the scan goes back to the tall one.
+        assertSame(tall, mIndex.find(100, 500));
+        assertSame(tall, mIndex.find(100, 900));
+        assertNull(mIndex.find(100, 1100));
+        assertNull(mIndex.find(100, 1250));
+        assertSame(right, mIndex.find(600, 1250));
+        assertNull(mIndex.find(600, 1300));
+    }
+
+    @Test
+    public void nestedBoundsAndRefresh() {
+        ComponentContainer form = new ComponentContainer(mContext);
+        form.setContentPositionY(300);
+        form.setSize(WIDTH, 1500);
+        mRoot.addComponent(form);
+        Component list = add(form, 0, 100, WIDTH, 400);
+        assertSame(list, mIndex.find(10, 450));
+        assertNull(mIndex.find(10, 300));
+
+        // Moving the parent moves the region once the bounds are re-read.
+        form.setContentPositionY(800);
+        assertSame(list, mIndex.find(10, 450));
+        mIndex.refresh(mRoot);
+        assertNull(mIndex.find(10, 450));
+        assertSame(list, mIndex.find(10, 950));
+
+        // A detached region is dropped by the next refresh.
+        form.removeComponent(list);
+        mIndex.refresh(mRoot);
+        assertEquals(0, mIndex.size());
+        assertFalse(mIndex.add(list, mRoot));
+    }
+
+    @Test
+    public void collectedRegionIsPruned() {
+        Component kept = add(mRoot, 0, 0, WIDTH, 500);
+        WeakReference<Component> probe = addCollectable();
+        assertEquals(2, mIndex.size());
+        for (int i = 0; i < 50 && probe.get() != null; i++) {
+            System.gc();
+        }
+        assertTrue("region was not collected", probe.get() == null);
+
+        assertNull(mIndex.find(10, 700));
+        assertEquals(1, mIndex.size());
+        assertSame(kept, mIndex.find(10, 100));
+    }
+
+    @Test
+    public void sheetRereadsBoundsAtNextDownAfterLayout() {
+        AnchorSheetLayout sheet = new AnchorSheetLayout(mContext, null);
+        sheet.setState(AnchorSheetLayout.STATE_EXPANDED);
+        sheet.setSize(WIDTH, HEIGHT);
+        ComponentContainer content = new ComponentContainer(mContext);
+        content.setSize(WIDTH, HEIGHT);
+        ComponentContainer list = new ComponentContainer(mContext);
+        list.setContentPositionY(100);
+        list.setSize(WIDTH, 800);
+        list.setScrollRange(1000);
+        list.scrollTo(0, 500);
+        content.addComponent(list);
+        sheet.addComponent(content);
+        content.bindToWindow();
+        assertEquals(0f, sheet.getSheetTop(), 0f);
+
+        // The list moves down in the content; the sheet's layout pass marks the bounds stale.
+        list.setContentPositionY(1000);
+        sheet.setSize(WIDTH, HEIGHT);
+
+        Gesture gesture = new Gesture(content);
+        gesture.dragDown(1200, 200);
+        assertEquals(300, list.getScrollValue(Component.AXIS_Y));
+        assertEquals(0f, sheet.getSheetTop(), 0f);
+
+        gesture.dragDown(500, 200);
+        assertEquals(300, list.getScrollValue(Component.AXIS_Y));
+        assertTrue(sheet.getSheetTop() > 0);
+    }
+
+    private Component add(ComponentContainer parent, int left, int top, int width, int height) {
+        Component component = new Component(mContext);
+        component.setContentPosition(left, top);
+        component.setSize(width, height);
+        parent.addComponent(component);
+        assertTrue(mIndex.add(component, mRoot));
+        return component;
+    }
+
+    /**
+     * Indexes a region that nothing but the index and the returned probe refers to.
+     */
+    private WeakReference<Component> addCollectable() {
+        ComponentContainer holder = new ComponentContainer(mContext);
+        holder.setContentPositionY(600);
+        mRoot.addComponent(holder);
+        Component region = new Component(mContext);
+        region.setSize(WIDTH, 200);
+        holder.addComponent(region);
+        assertTrue(mIndex.add(region, mRoot));
+        holder.removeComponent(region);
+        mRoot.removeComponent(holder);
+        return new WeakReference<>(region);
+    }
+
+    /**
+     * Feeds vertical drags to a sheet's content, in screen coordinates for the drag and in the
+     * content's coordinates for the hit test.
+     */
+    static final class Gesture {
+        private final Component mContent;
+
+        private final TouchEvent mEvent = new TouchEvent();
+
+        private long mTime;
+
+        Gesture(Component content) {
+            mContent = content;
+        }
+
+        void dragDown(float screenY, int distance) {
+            touch(TouchEvent.PRIMARY_POINT_DOWN, screenY);
+            for (int moved = 10; moved <= distance; moved += 10) {
+                touch(TouchEvent.POINT_MOVE, screenY + moved);
+            }
+            touch(TouchEvent.PRIMARY_POINT_UP, screenY + distance);
+            AnimatorClock.advance(1000);
+        }
+
+        void touch(int action, float screenY) {
+            mTime += 8;
+            float y = screenY - mContent.getContentPositionY() - mContent.getTranslationY();
+            mContent.dispatchTouchEvent(mEvent.set(action, 0, mTime, 1).setPointer(0, 0, 500, y, 500, screenY));
+        }
+    }
+}
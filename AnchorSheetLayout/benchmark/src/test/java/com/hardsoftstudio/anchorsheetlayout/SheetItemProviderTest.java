@@ -0,0 +1,196 @@
+package com.hardsoftstudio.anchorsheetlayout;
+
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SheetItemProviderTest {
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1950;
+
+    private static final int ROW_HEIGHT = 100;
+
+    private static final int ROWS = 15;
+
+    private final Context mContext = new Context() {
+    };
+
+    private final Component[] mRows = new Component[ROWS];
+
+    private AnchorSheetLayout mSheet;
+
+    private ComponentContainer mList;
+
+    private Rows mProvider;
+
+    @Before
+    public void setUp() {
+        AnimatorClock.reset();
+        mSheet = new AnchorSheetLayout(mContext, null);
+        mSheet.setSize(WIDTH, HEIGHT);
+        ComponentContainer content = new ComponentContainer(mContext);
+        content.setSize(WIDTH, HEIGHT);
+        // A list below a 200 pixel header, tall enough for all the rows.
+        mList = new ComponentContainer(mContext);
+        mList.setContentPositionY(200);
+        mList.setSize(WIDTH, ROWS * ROW_HEIGHT);
+        content.addComponent(mList);
+        mSheet.addComponent(content);
+        mProvider = new Rows();
+        mSheet.addViewportListener(mProvider);
+        // Collapsed: 250 pixels of the sheet and so 50 of the list are on screen.
+        assertEquals(250, mSheet.getVisibleBottom());
+        bindAll();
+    }
+
+    @Test
+    public void defersRowsBelowThePeek() {
+        assertBound(0);
+        assertEquals(ROWS - 1, mProvider.getDeferredCount());
+        for (int i = 1; i < ROWS; i++) {
+            assertEquals(ROW_HEIGHT, mRows[i].getHeight());
+        }
+
+        // Rebinding a deferred row hands back its placeholder instead of a new one.
+        Component placeholder = mRows[5];
+        assertSame(placeholder, mProvider.getComponent(5, placeholder, mList));
+        assertBound(0);
+    }
+
+    @Test
+    public void releasesRowsAsTheSheetMovesUp() {
+        settle(AnchorSheetLayout.STATE_ANCHOR);
+        // 975 pixels of the sheet and 775 of the list are on screen: rows 0 to 7.
+        assertReleased(1, 2, 3, 4, 5, 6, 7);
+        assertEquals(7, mProvider.getDeferredCount());
+        bindReleased();
+        assertBound(0, 1, 2, 3, 4, 5, 6, 7);
+
+        settle(AnchorSheetLayout.STATE_EXPANDED);
+        assertReleased(8, 9, 10, 11, 12, 13, 14);
+        assertEquals(0, mProvider.getDeferredCount());
+        bindReleased();
+        assertEquals(ROWS, mProvider.mBound.length());
+    }
+
+    @Test
+    public void rowAskedForOffScreenIsDeferredAgain() {
+        settle(AnchorSheetLayout.STATE_ANCHOR);
+        bindReleased();
+        settle(AnchorSheetLayout.STATE_COLLAPSED);
+        // Moving down releases nothing and leaves the bound rows alone.
+        assertReleased();
+        assertEquals(7, mProvider.getDeferredCount());
+
+        // Asked for again while off screen, a bound row turns back into a placeholder.
+        Component row = mProvider.getComponent(3, mRows[3], mList);
+        assertEquals(ROW_HEIGHT, row.getHeight());
+        assertTrue(row != mRows[3]);
+        assertEquals(12, mProvider.getDeferredCount());
+        mRows[3] = row;
+        settle(AnchorSheetLayout.STATE_ANCHOR);
+        assertReleased(3, 4, 5, 6, 7);
+        bindReleased();
+        assertBound(0, 1, 2, 3, 3, 4, 5, 6, 7);
+    }
+
+    private void settle(int state) {
+        mProvider.mReleased.setLength(0);
+        mSheet.setState(state);
+        for (int i = 0; i < 100 && AnimatorClock.runningCount() > 0; i++) {
+            AnimatorClock.advance(16);
+        }
+        assertEquals(state, mSheet.getState());
+    }
+
+    private void bindAll() {
+        for (int i = 0; i < ROWS; i++) {
+            mRows[i] = mProvider.getComponent(i, null, mList);
+        }
+    }
+
+    private void bindReleased() {
+        String released = mProvider.mReleased.toString();
+        for (int i = 0; i < released.length(); i++) {
+            int position = released.charAt(i) - 'a';
+            mRows[position] = mProvider.getComponent(position, mRows[position], mList);
+        }
+    }
+
+    private void assertBound(int... positions) {
+        char[] bound = mProvider.mBound.toString().toCharArray();
+        Arrays.sort(bound);
+        assertEquals(letters(positions), new String(bound));
+    }
+
+    private void assertReleased(int... positions) {
+        assertEquals(letters(positions), mProvider.mReleased.toString());
+    }
+
+    private static String letters(int... positions) {
+        int[] sorted = positions.clone();
+        Arrays.sort(sorted);
+        StringBuilder letters = new StringBuilder();
+        for (int position : sorted) {
+            letters.append((char) ('a' + position));
+        }
+        return letters.toString();
+    }
+
+    /**
+     * Records the rows it binds and the ranges it reports changed, one letter per row.
+     */
+    private final class Rows extends SheetItemProvider {
+        final StringBuilder mBound = new StringBuilder();
+
+        final StringBuilder mReleased = new StringBuilder();
+
+        Rows() {
+            super(ROW_HEIGHT);
+        }
+
+        @Override
+        protected Component bindComponent(int position, Component convertComponent, ComponentContainer parent) {
+            assertTrue("rebinding a placeholder", convertComponent == null || convertComponent == mRows[position]);
+            if (convertComponent == null) {
+                mBound.append((char) ('a' + position));
+                convertComponent = new Component(mContext);
+                convertComponent.setHeight(ROW_HEIGHT);
+            }
+            return convertComponent;
+        }
+
+        @Override
+        public void notifyDataSetItemRangeChanged(int startPos, int countItems) {
+            super.notifyDataSetItemRangeChanged(startPos, countItems);
+            for (int i = startPos; i < startPos + countItems; i++) {
+                mReleased.append((char) ('a' + i));
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return ROWS;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.hardsoftstudio.anchorsheetlayout.benchmark;
+
+import com.hardsoftstudio.anchorsheetlayout.AnchorSheetLayout;
+import com.hardsoftstudio.anchorsheetlayout.DragHelper;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetSavedState;
+import ohos.agp.animation.AnimatorClock;
+import ohos.agp.components.Component;
+import ohos.agp.components.ComponentContainer;
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the sheet and its drag helper through scripted gestures and fails when a gesture
+ * allocates more, or a frame calls back more often, than budgeted. Raise a budget only along
+ * with the change that needs it.
+ */
+public class PerformanceBudgetTest {
+
+    /**
+     * Bytes allocated per touch event of a drag, from the down through the release. The drag
+     * path allocates nothing once warm; the budget is per event so that even a small allocation
+     * on every move fails it.
+     */
+    private static final long SHEET_DRAG_BYTES_PER_EVENT_BUDGET = 0;
+
+    /**
+     * Bytes allocated per frame of the settle that follows a release. The sheet allocates
+     * nothing here either; this is the stand-in {@link AnimatorClock} copying its list of running
+     * animators on every {@code advance}, measured at 24 bytes on a 64-bit JVM.
+     */
+    private static final long SETTLE_FRAME_BYTES_BUDGET = 24;
+
+    /**
+     * Bytes allocated by {@link DragHelper} for a drag and its release.
+     */
+    private static final long DRAG_HELPER_GESTURE_BYTES_BUDGET = 16;
+
+    private static final int SLIDES_PER_FRAME_BUDGET = 1;
+
+    private static final int STATE_CHANGES_PER_GESTURE_BUDGET = 3;
+
+    /**
+     * Touch samples per display frame, as from a 240 Hz panel on a 60 Hz display.
+     */
+    private static final int MOVES_PER_FRAME = 4;
+
+    private static final int COALESCED_FRAMES = 8;
+
+    private static final int MOVES = 30;
+
+    private static final int WARM_UP_GESTURES = 200;
+
+    private static final int MEASURED_GESTURES = 200;
+
+    private final com.sun.management.ThreadMXBean mThreads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void sheetGestureAllocations() {
+        SheetFixture fixture = new SheetFixture();
+        long[] bytes = new long[2];
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            dragUpAndDown(fixture, bytes);
+        }
+        bytes[0] = 0;
+        bytes[1] = 0;
+        int settleFrames = 0;
+        for (int i = 0; i < MEASURED_GESTURES; i++) {
+            settleFrames += dragUpAndDown(fixture, bytes);
+        }
+        long perEvent = bytes[0] / (2 * MEASURED_GESTURES * (MOVES + 2));
+        assertTrue(perEvent + " bytes per drag event", perEvent <= SHEET_DRAG_BYTES_PER_EVENT_BUDGET);
+        long perFrame = bytes[1] / settleFrames;
+        assertTrue(perFrame + " bytes per settle frame", perFrame <= SETTLE_FRAME_BYTES_BUDGET);
+    }
+
+    @Test
+    public void dragHelperGestureAllocations() {
+        Context context = new Context() {
+        };
+        ComponentContainer parent = new ComponentContainer(context);
+        parent.setSize(SheetFixture.WIDTH, SheetFixture.HEIGHT);
+        Component child = new ComponentContainer(context);
+        child.setSize(SheetFixture.WIDTH, SheetFixture.HEIGHT);
+        parent.addComponent(child);
+        int[] positionChanges = new int[1];
+        DragHelper helper = DragHelper.create(parent, new DragHelper.Callback() {
+            @Override
+            public boolean tryCaptureView(Component child, int pointerId) {
+                return true;
+            }
+
+            @Override
+            public int clampViewPositionVertical(Component child, int top, int dy) {
+                return top;
+            }
+
+            @Override
+            public void onViewPositionChanged(Component changedView, int left, int top, int dx, int dy) {
+                positionChanges[0]++;
+            }
+        });
+        TouchEvent event = new TouchEvent();
+        long[] time = new long[1];
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            drag(helper, child, event, time);
+        }
+        positionChanges[0] = 0;
+        long before = allocatedBytes();
+        for (int i = 0; i < MEASURED_GESTURES; i++) {
+            drag(helper, child, event, time);
+        }
+        long perGesture = (allocatedBytes() - before) / MEASURED_GESTURES;
+        assertTrue(perGesture + " bytes per gesture", perGesture <= DRAG_HELPER_GESTURE_BYTES_BUDGET);
+        assertEquals(MOVES * MEASURED_GESTURES, positionChanges[0]);
+    }
+
+    @Test
+    public void callbacksPerFrame() {
+        int[] slides = slidesPerFrame(false);
+        for (int frame = 0; frame < COALESCED_FRAMES; frame++) {
+            assertEquals("frame " + frame, MOVES_PER_FRAME, slides[frame]);
+        }
+    }
+
+    @Test
+    public void coalescedCallbacksPerFrame() {
+        int[] slides = slidesPerFrame(true);
+        // The first move of the gesture is applied right away, ahead of its frame.
+        assertEquals(SLIDES_PER_FRAME_BUDGET + 1, slides[0]);
+        for (int frame = 1; frame < COALESCED_FRAMES; frame++) {
+            assertTrue(slides[frame] + " slides in frame " + frame, slides[frame] <= SLIDES_PER_FRAME_BUDGET);
+        }
+    }
+
+    @Test
+    public void settleCallbacksPerFrame() {
+        SheetFixture fixture = new SheetFixture();
+        CallbackCounter counter = new CallbackCounter();
+        fixture.layout.addAnchorSheetCallback(counter);
+
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, 500, 1800);
+        for (int i = 1; i <= MOVES; i++) {
+            fixture.single(TouchEvent.POINT_MOVE, 500, 1800 - i * 20);
+        }
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, 500, 1800 - MOVES * 20);
+        while (AnimatorClock.runningCount() > 0) {
+            counter.slides = 0;
+            AnimatorClock.advance(SheetFixture.FRAME_INTERVAL_MS);
+            assertTrue(counter.slides + " slides in one frame", counter.slides <= SLIDES_PER_FRAME_BUDGET);
+        }
+        assertTrue(counter.stateChanges + " state changes",
+                counter.stateChanges <= STATE_CHANGES_PER_GESTURE_BUDGET);
+    }
+
+    @Test
+    public void restoreCallbacks() {
+        SheetFixture saved = new SheetFixture();
+        saved.layout.setState(AnchorSheetLayout.STATE_ANCHOR);
+        saved.drainSettle();
+        byte[] bytes = saved.layout.saveState().toByteArray();
+
+        SheetFixture restored = new SheetFixture();
+        CallbackCounter counter = new CallbackCounter();
+        restored.layout.addAnchorSheetCallback(counter);
+        restored.layout.restoreState(SheetSavedState.fromByteArray(bytes));
+        assertEquals(AnchorSheetLayout.STATE_ANCHOR, restored.layout.getState());
+        assertEquals(saved.top(), restored.top(), 0f);
+        assertEquals(0, AnimatorClock.runningCount());
+        assertEquals(1, counter.restores);
+        assertEquals(0, counter.stateChanges);
+        assertEquals(0, counter.slides);
+    }
+
+    private long allocatedBytes() {
+        return mThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Drags the sheet up and back down, adding the bytes allocated by the two drags to
+     * {@code bytes[0]} and by the two settles to {@code bytes[1]}.
+     *
+     * @return number of settle frames ticked
+     */
+    private int dragUpAndDown(SheetFixture fixture, long[] bytes) {
+        return drag(fixture, 1800, -20, bytes) + drag(fixture, 700, 20, bytes);
+    }
+
+    private int drag(SheetFixture fixture, float y, float step, long[] bytes) {
+        long start = allocatedBytes();
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, 500, y);
+        for (int i = 1; i <= MOVES; i++) {
+            fixture.single(TouchEvent.POINT_MOVE, 500, y + i * step);
+        }
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, 500, y + MOVES * step);
+        long released = allocatedBytes();
+        int frames = fixture.drainSettle();
+        bytes[0] += released - start;
+        bytes[1] += allocatedBytes() - released;
+        return frames;
+    }
+
+    /**
+     * Feeds {@link #MOVES_PER_FRAME} moves between each of {@link #COALESCED_FRAMES} frames.
+     *
+     * @return the slides reported during each frame, its moves included
+     */
+    private static int[] slidesPerFrame(boolean coalescing) {
+        SheetFixture fixture = new SheetFixture();
+        fixture.layout.setInputCoalescing(coalescing);
+        CallbackCounter counter = new CallbackCounter();
+        fixture.layout.addAnchorSheetCallback(counter);
+
+        int[] slides = new int[COALESCED_FRAMES];
+        fixture.single(TouchEvent.PRIMARY_POINT_DOWN, 500, 1800);
+        for (int frame = 0; frame < COALESCED_FRAMES; frame++) {
+            counter.slides = 0;
+            for (int i = 1; i <= MOVES_PER_FRAME; i++) {
+                fixture.single(TouchEvent.POINT_MOVE, 500, 1800 - (frame * MOVES_PER_FRAME + i) * 10);
+            }
+            AnimatorClock.advance(SheetFixture.FRAME_INTERVAL_MS);
+            slides[frame] = counter.slides;
+        }
+        assertEquals(coalescing, fixture.layout.getSkippedMoveCount() > 0);
+        fixture.single(TouchEvent.PRIMARY_POINT_UP, 500, 1800 - COALESCED_FRAMES * MOVES_PER_FRAME * 10);
+        fixture.drainSettle();
+        return slides;
+    }
+
+    private static void drag(DragHelper helper, Component child, TouchEvent event, long[] time) {
+        child.setContentPositionY(0);
+        time[0] += SheetFixture.EVENT_INTERVAL_MS;
+        helper.processTouchEvent(event.set(TouchEvent.PRIMARY_POINT_DOWN, 0, time[0], 1).setPointer(0, 0, 500, 1000));
+        for (int i = 1; i <= MOVES; i++) {
+            time[0] += SheetFixture.EVENT_INTERVAL_MS;
+            helper.processTouchEvent(event.set(TouchEvent.POINT_MOVE, 0, time[0], 1).setPointer(0, 0, 500, 1000 - i * 10));
+        }
+        time[0] += SheetFixture.EVENT_INTERVAL_MS;
+        helper.processTouchEvent(event.set(TouchEvent.PRIMARY_POINT_UP, 0, time[0], 1).setPointer(0, 0, 500, 1000 - MOVES * 10));
+    }
+
+    private static final class CallbackCounter extends AnchorSheetLayout.AnchorSheetCallback {
+        int slides;
+
+        int stateChanges;
+
+        int restores;
+
+        @Override
+        public void onStateRestored(Component bottomSheet, int state) {
+            restores++;
+        }
+
+        @Override
+        public void onStateChanged(Component bottomSheet, int newState) {
+            stateChanges++;
+        }
+
+        @Override
+        public void onSlide(Component bottomSheet, float slideOffset) {
+            slides++;
+        }
+    }
+}
@@ -5,14 +5,18 @@ import com.hardsoftstudio.anchorsheetlayout.SampleItem;
 import com.hardsoftstudio.anchorsheetlayout.SampleItemProvider;
 import com.hardsoftstudio.anchorsheetlayout.AnchorSheetLayout;
 import com.hardsoftstudio.anchorsheetlayout.NonNull;
+import com.hardsoftstudio.anchorsheetlayout.core.SheetSavedState;
 import ohos.aafwk.ability.AbilitySlice;
 import ohos.aafwk.content.Intent;
 import ohos.agp.components.*;
+import ohos.utils.PacMap;
 import java.util.ArrayList;
 import java.util.List;
 
 public class MainAbilitySlice extends AbilitySlice {
 
+    private static final String KEY_SHEET_STATE = "anchor_sheet_state";
+
     private AnchorSheetLayout anchorSheetLayout;
 
     @Override
@@ -73,6 +77,11 @@ public class MainAbilitySlice extends AbilitySlice {
 
             }
 
+            @Override
+            public void onStateRestored(@NonNull Component bottomSheet, @AnchorSheetLayout.State int state) {
+                onStateChanged(bottomSheet, state);
+            }
+
             @Override
             public void onSlide(@NonNull Component bottomSheet, float slideOffset) {
 
@@ -97,6 +106,20 @@ public class MainAbilitySlice extends AbilitySlice {
         return list;
     }
 
+    @Override
+    public void onSaveAbilityState(PacMap outState) {
+        super.onSaveAbilityState(outState);
+        outState.putByteValueArray(KEY_SHEET_STATE, anchorSheetLayout.saveState().toByteArray());
+    }
+
+    @Override
+    public void onRestoreAbilityState(PacMap inState) {
+        super.onRestoreAbilityState(inState);
+        if (inState.hasKey(KEY_SHEET_STATE)) {
+            anchorSheetLayout.restoreState(SheetSavedState.fromByteArray(inState.getByteValueArray(KEY_SHEET_STATE)));
+        }
+    }
+
     @Override
     public void onActive() {
         super.onActive();
@@ -0,0 +1,120 @@
+package ohos.agp.animation;
+
+/**
+ * JVM stand-in for the SDK animator. Running animators are advanced by {@link AnimatorClock}.
+ */
+public class Animator {
+    /**
+     * Curve type constants.
+     */
+    public static class CurveType {
+        public static final int LINEAR = 0;
+        public static final int DECELERATE = 1;
+    }
+
+    /**
+     * Lifecycle listener.
+     */
+    public interface StateChangedListener {
+        void onStart(Animator animator);
+
+        void onStop(Animator animator);
+
+        void onCancel(Animator animator);
+
+        void onEnd(Animator animator);
+
+        void onPause(Animator animator);
+
+        void onResume(Animator animator);
+    }
+
+    private long mDuration;
+    private long mStartTime = -1;
+    private boolean mRunning;
+    private StateChangedListener mStateChangedListener;
+
+    public void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public void setCurveType(int curveType) {
+    }
+
+    public void setLoopedCount(int count) {
+    }
+
+    public void setStateChangedListener(StateChangedListener listener) {
+        mStateChangedListener = listener;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public void start() {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mStartTime = -1;
+        AnimatorClock.register(this);
+        if (mStateChangedListener != null) {
+            mStateChangedListener.onStart(this);
+        }
+    }
+
+    public void cancel() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        AnimatorClock.unregister(this);
+        if (mStateChangedListener != null) {
+            mStateChangedListener.onCancel(this);
+            mStateChangedListener.onEnd(this);
+        }
+    }
+
+    public void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        AnimatorClock.unregister(this);
+        if (mStateChangedListener != null) {
+            mStateChangedListener.onStop(this);
+            mStateChangedListener.onEnd(this);
+        }
+    }
+
+    /**
+     * Advances this animator to the given frame time.
+     *
+     * @param frameTimeMs frame time in milliseconds
+     * @return false once the animator finished on this frame
+     */
+    boolean doFrame(long frameTimeMs) {
+        if (mStartTime < 0) {
+            mStartTime = frameTimeMs;
+        }
+        long elapsed = frameTimeMs - mStartTime;
+        float fraction = mDuration <= 0 ? 1f : Math.min(1f, (float) elapsed / mDuration);
+        onFrame(fraction);
+        if (fraction >= 1f && mRunning) {
+            mRunning = false;
+            if (mStateChangedListener != null) {
+                mStateChangedListener.onEnd(this);
+            }
+            return false;
+        }
+        return mRunning;
+    }
+
+    void onFrame(float fraction) {
+    }
+}
@@ -0,0 +1,70 @@
+package ohos.agp.animation;
+
+import ohos.eventhandler.EventHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manual frame clock driving every running stand-in {@link Animator} and delayed
+ * {@link EventHandler} task. Not part of the SDK;
+ * harnesses call {@link #advance(long)} instead of waiting for vsync.
+ */
+public final class AnimatorClock {
+    private static final List<Animator> RUNNING = new ArrayList<>();
+    private static final List<Animator> SCRATCH = new ArrayList<>();
+    private static long sNowMs;
+
+    private AnimatorClock() {
+    }
+
+    static void register(Animator animator) {
+        RUNNING.add(animator);
+    }
+
+    static void unregister(Animator animator) {
+        RUNNING.remove(animator);
+    }
+
+    /**
+     * @return current frame time in milliseconds
+     */
+    public static long now() {
+        return sNowMs;
+    }
+
+    /**
+     * @return number of animators still running
+     */
+    public static int runningCount() {
+        return RUNNING.size();
+    }
+
+    /**
+     * Advances the clock by one frame, ticks every running animator and then runs the
+     * {@link EventHandler} tasks that became due.
+     *
+     * @param frameIntervalMs frame interval in milliseconds
+     */
+    public static void advance(long frameIntervalMs) {
+        sNowMs += frameIntervalMs;
+        SCRATCH.clear();
+        SCRATCH.addAll(RUNNING);
+        for (int i = 0, count = SCRATCH.size(); i < count; i++) {
+            Animator animator = SCRATCH.get(i);
+            if (!animator.doFrame(sNowMs)) {
+                RUNNING.remove(animator);
+            }
+        }
+        EventHandler.runDueTasks(sNowMs);
+    }
+
+    /**
+     * Drops every running animator and rewinds the clock.
+     */
+    public static void reset() {
+        RUNNING.clear();
+        EventHandler.clearTasks();
+        sNowMs = 0;
+    }
+}
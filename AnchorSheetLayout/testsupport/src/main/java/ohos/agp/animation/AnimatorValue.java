@@ -0,0 +1,26 @@
+package ohos.agp.animation;
+
+/**
+ * JVM stand-in for the SDK value animator.
+ */
+public class AnimatorValue extends Animator {
+    /**
+     * Per-frame listener.
+     */
+    public interface ValueUpdateListener {
+        void onUpdate(AnimatorValue animatorValue, float value);
+    }
+
+    private ValueUpdateListener mValueUpdateListener;
+
+    public void setValueUpdateListener(ValueUpdateListener listener) {
+        mValueUpdateListener = listener;
+    }
+
+    @Override
+    void onFrame(float fraction) {
+        if (mValueUpdateListener != null) {
+            mValueUpdateListener.onUpdate(this, fraction);
+        }
+    }
+}
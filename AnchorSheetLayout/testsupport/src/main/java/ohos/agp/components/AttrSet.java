@@ -0,0 +1,7 @@
+package ohos.agp.components;
+
+/**
+ * JVM stand-in for the SDK XML attribute set.
+ */
+public interface AttrSet {
+}
@@ -0,0 +1,41 @@
+package ohos.agp.components;
+
+/**
+ * JVM stand-in for the SDK item provider. Records the last range reported as changed.
+ */
+public abstract class BaseItemProvider {
+    private int mChangedStart = -1;
+    private int mChangedCount;
+
+    public abstract int getCount();
+
+    public abstract Object getItem(int position);
+
+    public abstract long getItemId(int position);
+
+    public abstract Component getComponent(int position, Component convertComponent, ComponentContainer parent);
+
+    public void notifyDataChanged() {
+        mChangedStart = 0;
+        mChangedCount = getCount();
+    }
+
+    public void notifyDataSetItemRangeChanged(int startPos, int countItems) {
+        mChangedStart = startPos;
+        mChangedCount = countItems;
+    }
+
+    /**
+     * @return start of the last range reported as changed, -1 if none
+     */
+    public int getChangedStart() {
+        return mChangedStart;
+    }
+
+    /**
+     * @return size of the last range reported as changed
+     */
+    public int getChangedCount() {
+        return mChangedCount;
+    }
+}
@@ -0,0 +1,275 @@
+package ohos.agp.components;
+
+import ohos.app.Context;
+import ohos.multimodalinput.event.TouchEvent;
+
+/**
+ * JVM stand-in for the SDK component. Keeps position and size in plain fields and counts the
+ * position writes so harnesses can assert on them.
+ */
+public class Component {
+    public static final int DRAG_UP = 1;
+    public static final int DRAG_DOWN = 2;
+    public static final int DRAG_LEFT = 3;
+    public static final int DRAG_RIGHT = 4;
+
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+
+    public static final int VISIBLE = 0;
+    public static final int INVISIBLE = 1;
+    public static final int HIDE = 2;
+
+    /**
+     * Touch listener.
+     */
+    public interface TouchEventListener {
+        boolean onTouchEvent(Component component, TouchEvent touchEvent);
+    }
+
+    /**
+     * Window attach listener.
+     */
+    public interface BindStateChangedListener {
+        void onComponentBoundToWindow(Component component);
+
+        void onComponentUnboundFromWindow(Component component);
+    }
+
+    /**
+     * Layout pass listener.
+     */
+    public interface LayoutRefreshedListener {
+        void onRefreshed(Component component);
+    }
+
+    private final Context mContext;
+    private ComponentContainer mParent;
+    private float mContentPositionX;
+    private float mContentPositionY;
+    private float mTranslationY;
+    private int mWidth;
+    private int mHeight;
+    private int mVisibility = VISIBLE;
+    private boolean mScrollUp;
+    private boolean mScrollDown;
+    private int mScrollRange = -1;
+    private int mScrollY;
+    private TouchEventListener mTouchEventListener;
+    private BindStateChangedListener mBindStateChangedListener;
+    private LayoutRefreshedListener mLayoutRefreshedListener;
+    private long mPositionWrites;
+
+    public Component(Context context) {
+        this(context, null);
+    }
+
+    public Component(Context context, AttrSet attrSet) {
+        mContext = context;
+    }
+
+    public Context getContext() {
+        return mContext;
+    }
+
+    public ComponentParent getComponentParent() {
+        return mParent;
+    }
+
+    void setParent(ComponentContainer parent) {
+        mParent = parent;
+    }
+
+    public float getContentPositionX() {
+        return mContentPositionX;
+    }
+
+    public float getContentPositionY() {
+        return mContentPositionY;
+    }
+
+    public void setContentPositionX(float x) {
+        mContentPositionX = x;
+        mPositionWrites++;
+        relayout();
+    }
+
+    public void setContentPositionY(float y) {
+        mContentPositionY = y;
+        mPositionWrites++;
+        relayout();
+    }
+
+    public void setContentPosition(float x, float y) {
+        mContentPositionX = x;
+        mContentPositionY = y;
+        mPositionWrites++;
+        relayout();
+    }
+
+    /**
+     * Moving a component lays it out again on the device; the stand-in runs that pass right away
+     * so its {@link LayoutRefreshedListener} sees it. Translations do not.
+     */
+    private void relayout() {
+        if (mLayoutRefreshedListener != null) {
+            mLayoutRefreshedListener.onRefreshed(this);
+        }
+    }
+
+    public float getTranslationY() {
+        return mTranslationY;
+    }
+
+    public void setTranslationY(float translationY) {
+        mTranslationY = translationY;
+    }
+
+    public int getLeft() {
+        return (int) mContentPositionX;
+    }
+
+    public int getTop() {
+        return (int) mContentPositionY;
+    }
+
+    public int getRight() {
+        return (int) mContentPositionX + mWidth;
+    }
+
+    public int getBottom() {
+        return (int) mContentPositionY + mHeight;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Stand-in for the framework's layout pass: resizes the component and notifies its
+     * {@link LayoutRefreshedListener}.
+     *
+     * @param width  new width
+     * @param height new height
+     */
+    public void setSize(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        if (mLayoutRefreshedListener != null) {
+            mLayoutRefreshedListener.onRefreshed(this);
+        }
+    }
+
+    public void setLayoutRefreshedListener(LayoutRefreshedListener listener) {
+        mLayoutRefreshedListener = listener;
+    }
+
+    public void setWidth(int width) {
+        mWidth = width;
+    }
+
+    public void setHeight(int height) {
+        mHeight = height;
+    }
+
+    public int getVisibility() {
+        return mVisibility;
+    }
+
+    public void setVisibility(int visibility) {
+        mVisibility = visibility;
+    }
+
+    public boolean canScroll(int direction) {
+        if (mScrollRange >= 0) {
+            return direction == DRAG_UP ? mScrollY < mScrollRange : direction == DRAG_DOWN && mScrollY > 0;
+        }
+        return direction == DRAG_UP ? mScrollUp : direction == DRAG_DOWN && mScrollDown;
+    }
+
+    /**
+     * Gives this component scrollable content, replacing the flags of
+     * {@link #setScrollable(boolean, boolean)}.
+     *
+     * @param range how far the content can scroll vertically, in pixels
+     */
+    public void setScrollRange(int range) {
+        mScrollRange = range;
+        mScrollY = Math.max(0, Math.min(mScrollY, range));
+    }
+
+    public void scrollBy(int x, int y) {
+        if (mScrollRange >= 0) {
+            mScrollY = Math.max(0, Math.min(mScrollY + y, mScrollRange));
+        }
+    }
+
+    public void scrollTo(int x, int y) {
+        if (mScrollRange >= 0) {
+            mScrollY = Math.max(0, Math.min(y, mScrollRange));
+        }
+    }
+
+    public int getScrollValue(int direction) {
+        return direction == AXIS_Y ? mScrollY : 0;
+    }
+
+    /**
+     * Makes this component report itself as scrollable in the given directions.
+     *
+     * @param up   whether {@link #canScroll(int)} returns true for {@link #DRAG_UP}
+     * @param down whether {@link #canScroll(int)} returns true for {@link #DRAG_DOWN}
+     */
+    public void setScrollable(boolean up, boolean down) {
+        mScrollUp = up;
+        mScrollDown = down;
+    }
+
+    public void setTouchEventListener(TouchEventListener listener) {
+        mTouchEventListener = listener;
+    }
+
+    public TouchEventListener getTouchEventListener() {
+        return mTouchEventListener;
+    }
+
+    public void setBindStateChangedListener(BindStateChangedListener listener) {
+        mBindStateChangedListener = listener;
+    }
+
+    /**
+     * Delivers an event the way the framework would.
+     *
+     * @param event event to deliver
+     * @return whether the listener consumed the event
+     */
+    public boolean dispatchTouchEvent(TouchEvent event) {
+        return mTouchEventListener != null && mTouchEventListener.onTouchEvent(this, event);
+    }
+
+    /**
+     * Notifies the bind listener that this component was attached.
+     */
+    public void bindToWindow() {
+        if (mBindStateChangedListener != null) {
+            mBindStateChangedListener.onComponentBoundToWindow(this);
+        }
+    }
+
+    /**
+     * @return number of position writes since construction
+     */
+    public long getPositionWrites() {
+        return mPositionWrites;
+    }
+
+    public void postLayout() {
+    }
+
+    public void invalidate() {
+    }
+}
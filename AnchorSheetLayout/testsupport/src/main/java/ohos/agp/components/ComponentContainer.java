@@ -0,0 +1,49 @@
+package ohos.agp.components;
+
+import ohos.app.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM stand-in for the SDK component container.
+ */
+public class ComponentContainer extends Component implements ComponentParent {
+    private final List<Component> mChildren = new ArrayList<>();
+
+    public ComponentContainer(Context context) {
+        this(context, null);
+    }
+
+    public ComponentContainer(Context context, AttrSet attrSet) {
+        super(context, attrSet);
+    }
+
+    public void addComponent(Component child) {
+        mChildren.add(child);
+        child.setParent(this);
+    }
+
+    public void removeComponent(Component child) {
+        if (mChildren.remove(child)) {
+            child.setParent(null);
+        }
+    }
+
+    public void removeAllComponents() {
+        for (Component child : mChildren) {
+            child.setParent(null);
+        }
+        mChildren.clear();
+    }
+
+    @Override
+    public int getChildCount() {
+        return mChildren.size();
+    }
+
+    @Override
+    public Component getComponentAt(int index) {
+        return mChildren.get(index);
+    }
+}
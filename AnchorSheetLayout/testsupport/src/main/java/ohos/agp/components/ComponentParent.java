@@ -0,0 +1,10 @@
+package ohos.agp.components;
+
+/**
+ * JVM stand-in for the SDK component parent interface.
+ */
+public interface ComponentParent {
+    int getChildCount();
+
+    Component getComponentAt(int index);
+}
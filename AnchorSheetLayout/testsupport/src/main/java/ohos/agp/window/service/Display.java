@@ -0,0 +1,16 @@
+package ohos.agp.window.service;
+
+/**
+ * JVM stand-in for the SDK display.
+ */
+public class Display {
+    private final float mRefreshRate;
+
+    public Display(float refreshRate) {
+        mRefreshRate = refreshRate;
+    }
+
+    public float getRefreshRate() {
+        return mRefreshRate;
+    }
+}
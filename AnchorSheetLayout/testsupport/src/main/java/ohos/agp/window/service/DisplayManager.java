@@ -0,0 +1,25 @@
+package ohos.agp.window.service;
+
+import ohos.app.Context;
+
+import java.util.Optional;
+
+/**
+ * JVM stand-in for the SDK display manager, reporting a single 60Hz display.
+ */
+public class DisplayManager {
+    private static final DisplayManager INSTANCE = new DisplayManager();
+
+    private final Display mDefaultDisplay = new Display(60f);
+
+    private DisplayManager() {
+    }
+
+    public static DisplayManager getInstance() {
+        return INSTANCE;
+    }
+
+    public Optional<Display> getDefaultDisplay(Context context) {
+        return Optional.of(mDefaultDisplay);
+    }
+}
@@ -0,0 +1,7 @@
+package ohos.app;
+
+/**
+ * JVM stand-in for the SDK application context.
+ */
+public interface Context {
+}
@@ -0,0 +1,60 @@
+package ohos.eventhandler;
+
+import ohos.agp.animation.AnimatorClock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM stand-in for the SDK event handler. Delayed tasks run on the {@link AnimatorClock}
+ * timeline, from {@link AnimatorClock#advance(long)}.
+ */
+public class EventHandler {
+    private static final List<Runnable> TASKS = new ArrayList<>();
+    private static final List<Long> DUE_TIMES = new ArrayList<>();
+
+    public EventHandler(EventRunner runner) {
+    }
+
+    public void postTask(Runnable task) {
+        postTask(task, 0);
+    }
+
+    public void postTask(Runnable task, long delayTime) {
+        TASKS.add(task);
+        DUE_TIMES.add(AnimatorClock.now() + delayTime);
+    }
+
+    public void removeTask(Runnable task) {
+        int index;
+        while ((index = TASKS.indexOf(task)) >= 0) {
+            TASKS.remove(index);
+            DUE_TIMES.remove(index);
+        }
+    }
+
+    /**
+     * Runs every task that is due at the given time. Not part of the SDK.
+     *
+     * @param nowMs current time in milliseconds
+     */
+    public static void runDueTasks(long nowMs) {
+        for (int i = 0; i < TASKS.size(); ) {
+            if (DUE_TIMES.get(i) <= nowMs) {
+                Runnable task = TASKS.remove(i);
+                DUE_TIMES.remove(i);
+                task.run();
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Drops every pending task. Not part of the SDK.
+     */
+    public static void clearTasks() {
+        TASKS.clear();
+        DUE_TIMES.clear();
+    }
+}
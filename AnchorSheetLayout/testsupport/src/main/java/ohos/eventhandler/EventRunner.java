@@ -0,0 +1,15 @@
+package ohos.eventhandler;
+
+/**
+ * JVM stand-in for the SDK event runner. There is a single, manually driven main runner.
+ */
+public class EventRunner {
+    private static final EventRunner MAIN = new EventRunner();
+
+    private EventRunner() {
+    }
+
+    public static EventRunner getMainEventRunner() {
+        return MAIN;
+    }
+}
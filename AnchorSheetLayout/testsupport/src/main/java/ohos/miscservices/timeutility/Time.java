@@ -0,0 +1,19 @@
+package ohos.miscservices.timeutility;
+
+import ohos.agp.animation.AnimatorClock;
+
+/**
+ * JVM stand-in for the SDK time utility. The uptime clock is the {@link AnimatorClock}
+ * timeline, which harnesses also use for the times of their touch events.
+ */
+public final class Time {
+    private Time() {
+    }
+
+    /**
+     * @return milliseconds since boot, deep sleep excluded
+     */
+    public static long getCurrentTime() {
+        return AnimatorClock.now();
+    }
+}
@@ -0,0 +1,12 @@
+package ohos.multimodalinput.event;
+
+/**
+ * JVM stand-in for the SDK manipulation event base class.
+ */
+public abstract class ManipulationEvent {
+    public abstract int getPointerCount();
+
+    public abstract int getPointerId(int index);
+
+    public abstract long getOccurredTime();
+}
@@ -0,0 +1,27 @@
+package ohos.multimodalinput.event;
+
+/**
+ * JVM stand-in for the SDK pointer coordinate holder.
+ */
+public class MmiPoint {
+    private float mX;
+    private float mY;
+
+    public MmiPoint(float x, float y) {
+        mX = x;
+        mY = y;
+    }
+
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    void set(float x, float y) {
+        mX = x;
+        mY = y;
+    }
+}
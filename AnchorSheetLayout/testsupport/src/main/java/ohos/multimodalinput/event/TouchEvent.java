@@ -0,0 +1,111 @@
+package ohos.multimodalinput.event;
+
+/**
+ * JVM stand-in for the SDK touch event. Instances are mutable so a harness can replay a
+ * stream through a single event without allocating per sample.
+ */
+public class TouchEvent extends ManipulationEvent {
+    public static final int NONE = 0;
+    public static final int PRIMARY_POINT_DOWN = 1;
+    public static final int PRIMARY_POINT_UP = 2;
+    public static final int OTHER_POINT_DOWN = 3;
+    public static final int OTHER_POINT_UP = 4;
+    public static final int POINT_MOVE = 5;
+    public static final int CANCEL = 6;
+
+    public static final int MAX_POINTERS = 10;
+
+    private int mAction;
+    private int mIndex;
+    private long mOccurredTime;
+    private int mPointerCount;
+    private final int[] mPointerIds = new int[MAX_POINTERS];
+    private final MmiPoint[] mPositions = new MmiPoint[MAX_POINTERS];
+    private final MmiPoint[] mScreenPositions = new MmiPoint[MAX_POINTERS];
+
+    public TouchEvent() {
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            mPositions[i] = new MmiPoint(0, 0);
+            mScreenPositions[i] = new MmiPoint(0, 0);
+        }
+    }
+
+    /**
+     * Rewrites the header of this event.
+     *
+     * @param action       one of the action constants
+     * @param index        index of the pointer the action refers to
+     * @param occurredTime event time in milliseconds
+     * @param pointerCount number of pointers carried by the event
+     * @return this event
+     */
+    public TouchEvent set(int action, int index, long occurredTime, int pointerCount) {
+        mAction = action;
+        mIndex = index;
+        mOccurredTime = occurredTime;
+        mPointerCount = pointerCount;
+        return this;
+    }
+
+    /**
+     * Rewrites one pointer of this event, using the same position on screen.
+     *
+     * @param index     pointer index
+     * @param pointerId pointer id
+     * @param x         x position
+     * @param y         y position
+     * @return this event
+     */
+    public TouchEvent setPointer(int index, int pointerId, float x, float y) {
+        return setPointer(index, pointerId, x, y, x, y);
+    }
+
+    /**
+     * Rewrites one pointer of this event.
+     *
+     * @param index     pointer index
+     * @param pointerId pointer id
+     * @param x         x position
+     * @param y         y position
+     * @param screenX   x position on screen
+     * @param screenY   y position on screen
+     * @return this event
+     */
+    public TouchEvent setPointer(int index, int pointerId, float x, float y, float screenX, float screenY) {
+        mPointerIds[index] = pointerId;
+        mPositions[index].set(x, y);
+        mScreenPositions[index].set(screenX, screenY);
+        return this;
+    }
+
+    public int getAction() {
+        return mAction;
+    }
+
+    public int getIndex() {
+        return mIndex;
+    }
+
+    @Override
+    public long getOccurredTime() {
+        return mOccurredTime;
+    }
+
+    @Override
+    public int getPointerCount() {
+        return mPointerCount;
+    }
+
+    @Override
+    public int getPointerId(int index) {
+        return mPointerIds[index];
+    }
+
+    public MmiPoint getPointerPosition(int index) {
+        return mPositions[index];
+    }
+
+    public MmiPoint getPointerScreenPosition(int index) {
+        return mScreenPositions[index];
+    }
+}